@@ -0,0 +1,108 @@
+package io.github.sanspapyrus683.prog.bench;
+
+import io.github.sanspapyrus683.prog.Parser;
+import io.github.sanspapyrus683.prog.Tokenizer;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.flat.FlatInterpreter;
+import io.github.sanspapyrus683.prog.flat.FlatTree;
+import io.github.sanspapyrus683.prog.flat.Flattener;
+import io.github.sanspapyrus683.prog.inner.Environment;
+import io.github.sanspapyrus683.prog.inner.Interpreter;
+import io.github.sanspapyrus683.prog.inner.Optimizer;
+import io.github.sanspapyrus683.prog.inner.Resolver;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.inner.Types;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * the object tree vs the same tree packed into arrays (flat.FlatTree), run on the same statements
+ * the big generated scripts are where the tree's nodes end up all over the heap, so that's where this matters
+ *
+ * the setup prints about how much memory each one takes up (to stderr)
+ * & for cache misses, run it w/ -prof perfnorm (linux only, needs perf) to get L1/LLC misses per op
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatBench {
+    @Param({"fizzbuzz", "nested-loops", "fizzbuzz-1e6", "fizzbuzz-x1000", "straight-line"})
+    public String script;
+
+    private List<Stmt> statements;
+    private FlatTree flat;
+    private int slots;
+
+    @Setup
+    public void setup() {
+        String src = Scripts.load(script);
+        Resolver resolver = new Resolver(ErrorReporter.STDERR);
+        statements = statements(src, resolver);
+        slots = resolver.slotCount();
+        flat = new Flattener().flatten(statements);
+        // both get measured the same way, so it's just what each one keeps around after the source & tokens are gone
+        // (the flat one still has the Fused & CountedLoop constants, & those point back into the object tree)
+        long treeBytes = bytes(() -> statements(src, new Resolver(ErrorReporter.STDERR)));
+        long flatBytes = bytes(() -> new Flattener().flatten(statements(src, new Resolver(ErrorReporter.STDERR))));
+        System.err.printf("%n%s: object tree ~%d KB, flat tree ~%d KB (%d KB of it's the arrays, %d nodes)%n",
+                script, treeBytes / 1024, flatBytes / 1024, flat.bytes() / 1024, flat.size());
+    }
+
+    /** the statements the way a CompiledScript would have them */
+    private static List<Stmt> statements(String src, Resolver resolver) {
+        List<Stmt> parsed = new Parser(new Tokenizer(src, ErrorReporter.STDERR), ErrorReporter.STDERR).parse();
+        resolver.resolve(parsed);
+        List<Stmt> optimized = new Optimizer().optimize(parsed);
+        Types.infer(optimized, resolver.slotCount());
+        return optimized;
+    }
+
+    @Benchmark
+    public void tree(Blackhole bh) {
+        new Interpreter(new Environment(slots), Scripts.output(bh), ErrorReporter.STDERR).interpret(statements);
+    }
+
+    @Benchmark
+    public void flat(Blackhole bh) {
+        new FlatInterpreter(Scripts.output(bh), ErrorReporter.STDERR).interpret(flat, slots);
+    }
+
+    /** how much the live heap grows by when a bunch more copies of whatever make gives back get kept around */
+    private static long bytes(Supplier<Object> make) {
+        int copies = 8;
+        List<Object> keep = new ArrayList<>();
+        long before = usedAfterGc();
+        for (int i = 0; i < copies; i++) {
+            keep.add(make.get());
+        }
+        long after = usedAfterGc();
+        keep.clear();
+        return Math.max(0, after - before) / copies;
+    }
+
+    private static long usedAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
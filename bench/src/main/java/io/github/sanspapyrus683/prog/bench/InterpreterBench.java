@@ -0,0 +1,50 @@
+package io.github.sanspapyrus683.prog.bench;
+
+import io.github.sanspapyrus683.prog.Backend;
+import io.github.sanspapyrus683.prog.CompiledScript;
+import io.github.sanspapyrus683.prog.Engine;
+import io.github.sanspapyrus683.prog.errors.CompileError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * just running the script on each backend, everything before it (parsing, resolving, compiling) happens in the setup
+ * whatever gets printed goes into the blackhole
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpreterBench {
+    @Param({"helloworld", "vars", "if", "loop", "fizzbuzz", "nested-loops", "fizzbuzz-1e6", "accumulate"})
+    public String script;
+
+    @Param({"TREE", "VM", "NODES", "JVM", "FLAT"})
+    public String backend;
+
+    private CompiledScript compiled;
+
+    @Setup
+    public void setup() throws CompileError {
+        compiled = new Engine(Backend.valueOf(backend)).compile(Scripts.load(script));
+    }
+
+    @Benchmark
+    public void interpret(Blackhole bh) {
+        compiled.execute(Scripts.output(bh));
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.sanspapyrus683.prog.bench;
+
+import io.github.sanspapyrus683.prog.Parser;
+import io.github.sanspapyrus683.prog.Tokenizer;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parsing the source into statements
+ * the parser pulls its tokens from the tokenizer as it goes, so this includes tokenizing too
+ * (take TokenizerBench away from it to get just the parsing part)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBench {
+    @Param({"helloworld", "vars", "if", "loop", "fizzbuzz", "nested-loops", "fizzbuzz-x1000"})
+    public String script;
+
+    private String src;
+
+    @Setup
+    public void setup() {
+        src = Scripts.load(script);
+    }
+
+    @Benchmark
+    public List<Stmt> parse() {
+        return new Parser(new Tokenizer(src, ErrorReporter.STDERR), ErrorReporter.STDERR).parse();
+    }
+}
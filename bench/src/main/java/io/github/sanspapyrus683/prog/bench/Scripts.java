@@ -0,0 +1,95 @@
+package io.github.sanspapyrus683.prog.bench;
+
+import io.github.sanspapyrus683.prog.output.Output;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/** the programs the benchmarks run on, the examples plus some bigger versions of them */
+final class Scripts {
+    /** a lot of arithmetic & not much printing */
+    private static final String NESTED_LOOPS = String.join("\n",
+            "var total = 0;",
+            "for (var i = 0; i < 1000; i = i + 1) {",
+            "    for (var j = 0; j < 1000; j = j + 1) {",
+            "        total = total + i * j % 7;",
+            "    }",
+            "}",
+            "print total;",
+            "");
+
+    /** one long loop of whole number math on a counter (the kind of loop a script spends most of its time in) */
+    private static final String ACCUMULATE = String.join("\n",
+            "var s = 0;",
+            "for (var i = 0; i < 3000000; i = i + 1) {",
+            "    s = s + i % 7;",
+            "}",
+            "print s;",
+            "");
+
+    /** a bunch of different statements one after another, w/ no loops so every node only runs once */
+    private static final String STRAIGHT_LINE_PART = String.join("\n",
+            "x = (x * 31 + y) % 1000;",
+            "if (x > y) { y = y + x / 2; } else { y = y - 1; }",
+            "z = z + (x - y) * (x + y) % 7;",
+            "");
+
+    private Scripts() { }
+
+    /**
+     * one of the examples by name (like "fizzbuzz"), or one of these:
+     * fizzbuzz-1e6 is fizzbuzz up to a million (more running, same source),
+     * fizzbuzz-x1000 is fizzbuzz copied 1000 times (more source to tokenize & parse),
+     * nested-loops is a million iterations of some math, accumulate is 3 million of a single sum,
+     * & straight-line is 30k statements w/o any loops (a big program where nothing runs twice)
+     */
+    static String load(String name) {
+        switch (name) {
+            case "fizzbuzz-1e6":
+                return example("fizzbuzz").replace("var upTo = 100;", "var upTo = 1000000;");
+            case "fizzbuzz-x1000":
+                return example("fizzbuzz").repeat(1000);
+            case "nested-loops":
+                return NESTED_LOOPS;
+            case "accumulate":
+                return ACCUMULATE;
+            case "straight-line":
+                return "var x = 1;\nvar y = 2;\nvar z = 0;\n" + STRAIGHT_LINE_PART.repeat(10000) + "print z;\n";
+            default:
+                return example(name);
+        }
+    }
+
+    /** where a benchmark's prints go, so they still count but don't actually print anything */
+    static Output output(Blackhole bh) {
+        return new Output() {
+            @Override
+            public void println(Object val) {
+                bh.consume(val);
+            }
+
+            @Override
+            public void println(double val) {
+                bh.consume(val);
+            }
+
+            @Override
+            public void flush() { }
+        };
+    }
+
+    private static String example(String name) {
+        String path = "/io/github/sanspapyrus683/prog/examples/" + name + ".txt";
+        try (InputStream in = Scripts.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException("there's no example called " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.sanspapyrus683.prog.bench;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.Tokenizer;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** just turning the source into tokens */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBench {
+    @Param({"helloworld", "vars", "if", "loop", "fizzbuzz", "nested-loops", "fizzbuzz-x1000"})
+    public String script;
+
+    private String src;
+
+    @Setup
+    public void setup() {
+        src = Scripts.load(script);
+    }
+
+    @Benchmark
+    public List<Token> scanTokens() {
+        return new Tokenizer(src, ErrorReporter.STDERR).scanTokens();
+    }
+}
@@ -0,0 +1,305 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.errors.BudgetExceeded;
+import io.github.sanspapyrus683.prog.errors.CompileError;
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.output.StringOutput;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * runs the same scripts on every backend & checks they all do exactly what the tree interpreter does
+ * (same output, same errors), since that's the one the rest are supposed to match
+ */
+class BackendsTest {
+    /** the examples from the readme, relative to the lang module (which is where maven runs the tests) */
+    private static final Path EXAMPLES = Path.of("..", "src", "io", "github", "sanspapyrus683", "prog", "examples");
+
+    /** what a run printed, w/ its errors after */
+    private static String run(CompiledScript script, Budget budget) {
+        StringOutput out = new StringOutput();
+        Diagnostics errors = script.execute(out, budget);
+        return out + String.join("\n", errors.messages());
+    }
+
+    private static void sameAsTree(Backend backend, String src) throws CompileError {
+        String expected = run(new Engine(Backend.TREE).compile(src), Budget.NONE);
+        assertEquals(expected, run(new Engine(backend).compile(src), Budget.NONE));
+    }
+
+    //region examples
+    static Stream<Arguments> examples() throws IOException {
+        List<Arguments> args = new ArrayList<>();
+        try (Stream<Path> files = Files.list(EXAMPLES)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".txt")).sorted()::iterator) {
+                for (Backend backend : Backend.values()) {
+                    args.add(Arguments.of(file.getFileName().toString(), backend));
+                }
+            }
+        }
+        return args.stream();
+    }
+
+    @ParameterizedTest(name = "{0} on {1}")
+    @MethodSource("examples")
+    void example(String name, Backend backend) throws IOException, CompileError {
+        Path file = EXAMPLES.resolve(name);
+        String expected = run(new Engine(Backend.TREE).compile(file), Budget.NONE);
+        assertEquals(expected, run(new Engine(backend).compile(file), Budget.NONE));
+    }
+    //endregion
+
+    //region arrays
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void arrays(Backend backend) throws CompileError {
+        sameAsTree(backend, String.join("\n",
+                "var squares = [0, 0, 0, 0, 0];",
+                "for (var i = 0; i < squares.length; i = i + 1) {",
+                "    squares[i] = i * i;",
+                "}",
+                "print squares;",
+                "print squares[2] + squares[3];",
+                "var mixed = [1, 2.5, \"three\", [4, [5]]];",
+                "mixed[0] = \"one\";",
+                "print mixed;",
+                "print mixed[3][1][0];",
+                "var same = squares;",
+                "same[0] = 100;",
+                "print squares[0];",
+                "print same == squares;",
+                "print [1, 2] == [1, 2];",
+                "var doubles = [0.5, 1.5];",
+                "doubles[1] = true;",
+                "print doubles;"
+        ));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void badIndex(Backend backend) throws CompileError {
+        sameAsTree(backend, "var a = [1, 2, 3];\nprint a[1];\nprint a[3];\nprint \"not here\";");
+        sameAsTree(backend, "var a = [1, 2, 3];\na[-1] = 5;");
+        sameAsTree(backend, "var a = [1, 2, 3];\nprint a[0.5];");
+        sameAsTree(backend, "var a = 5;\nprint a[0];");
+        sameAsTree(backend, "var a = \"abc\";\nprint a.length;");
+    }
+    //endregion
+
+    //region numbers
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void longOverflow(Backend backend) throws CompileError {
+        sameAsTree(backend, String.join("\n",
+                "var big = 9223372036854775807;",
+                "print big;",
+                "print big + 1;",
+                "print big - 1 + 1;",
+                "print big * 2;",
+                "print -big - 2;",
+                "var x = 1;",
+                "for (var i = 0; i < 70; i = i + 1) {",
+                "    x = x * 2;",
+                "    if (i > 60) { print x; }",
+                "}",
+                "var sum = 9223372036854775800;",
+                "for (var i = 0; i < 10; i = i + 1) {",
+                "    sum = sum + i;",
+                "    print sum;",
+                "}"
+        ));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void wholeNumberEdges(Backend backend) throws CompileError {
+        sameAsTree(backend, String.join("\n",
+                "var zero = 0;",
+                "print zero * -1;",
+                "print -zero;",
+                "print -4 % 2;",
+                "print 5 % zero;",
+                "print 7 / 2;",
+                "print 8 / 2;",
+                "print 1 / zero;",
+                "print 1 == 1.0;",
+                "print zero * -1 == 0;",
+                "var n = 0 / zero;",
+                "print n == n;",
+                "var m = zero - 9223372036854775807;",
+                "m = m - 2;",
+                "print m;",
+                "var z = 0;",
+                "z = z * -3;",
+                "print z;",
+                "var q = -6;",
+                "q = q % 3;",
+                "print q;",
+                "print -(zero - 9223372036854775807 - 1);",
+                "print [1, 2, 3].length * -zero;"
+        ));
+    }
+
+    /** variables that are only ever doubles, which some backends do on plain doubles */
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void doubleMath(Backend backend) throws CompileError {
+        sameAsTree(backend, String.join("\n",
+                "var d = 0.5;",
+                "var e = -1.5;",
+                "print d * 3 - e / 4;",
+                "print -(d - d);",
+                "print d % 0.2 + e % 0.5;",
+                "print -e > d;",
+                "print d >= d;",
+                "var nan = (d - d) / (e - e);",
+                "print nan == nan;",
+                "print nan != nan;",
+                "print d / (d - d) < -e;"
+        ));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void runtimeErrors(Backend backend) throws CompileError {
+        sameAsTree(backend, "print 1;\nprint \"a\" + 1;");
+        sameAsTree(backend, "print -\"a\";");
+        sameAsTree(backend, "var s = \"a\";\nfor (var i = 0; i < 3; i = i + 1) {\n    s = s + i;\n}");
+        sameAsTree(backend, "if (true) {\n    print later;\n}\nvar later = 1;");
+    }
+    //endregion
+
+    //region big & deep scripts
+    /** enough top level statements that the jvm backend has to split it up */
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void manyStatements(Backend backend) throws CompileError {
+        StringBuilder src = new StringBuilder("var total = 0;\n");
+        for (int i = 0; i < 3000; i++) {
+            src.append("total = total + ").append(i).append(";\n");
+            if (i % 500 == 0) {
+                src.append("print total;\n");
+            }
+        }
+        src.append("print total;\n");
+        sameAsTree(backend, src.toString());
+    }
+
+    /** a loop w/ way too much in it for one jvm method, which still shouldn't end up on the tree interpreter */
+    private static String bigLoop() {
+        StringBuilder src = new StringBuilder("var a = 0;\nvar b = 0.5;\nfor (var i = 0; i < 100; i = i + 1) {\n");
+        for (int k = 0; k < 300; k++) {
+            if (k % 3 == 0) {
+                src.append("    a = a + ").append(k).append(" % 7;\n");
+            } else if (k % 3 == 1) {
+                src.append("    b = b * 1.5 - ").append(k).append(".5;\n");
+            } else {
+                src.append("    if (a % 2 == 0) { a = a - 1; } else { var c = a; a = c + 2; }\n");
+            }
+        }
+        return src.append("    if (i % 25 == 0) { print a; print b; }\n}\nprint a;\nprint c;\n").toString();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void bigLoopBody(Backend backend) throws CompileError {
+        sameAsTree(backend, bigLoop());
+        assertEquals(backend, new Engine(backend).compile(bigLoop()).backend());
+    }
+
+    /** way too deep for anything that recurses, so every backend should end up on the tree one */
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void deepNesting(Backend backend) throws CompileError {
+        int depth = 100_000;
+        sameAsTree(backend, "print " + "(".repeat(depth) + "1 + 2" + ")".repeat(depth) + ";");
+        sameAsTree(backend, "var a = 1;\n" + "{".repeat(depth) + "a = a + 1; print a;" + "}".repeat(depth));
+        sameAsTree(backend, "var a = 0;\n" + "if (true) {".repeat(depth / 10) + "print a;" + "}".repeat(depth / 10));
+    }
+    //endregion
+
+    //region budgets
+    /** which limit it went over (the line & exactly when can be a bit different between backends) */
+    private static BudgetExceeded.Limit overBy(Backend backend, String src, Budget budget) throws CompileError {
+        Diagnostics errors = new Engine(backend).compile(src).execute(new StringOutput(), budget);
+        return assertInstanceOf(BudgetExceeded.class, errors.runtimeError()).limit;
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void budgets(Backend backend) throws CompileError {
+        String forever = "var i = 0;\nwhile (true) {\n    i = i + 1;\n}";
+        String counted = "var s = 0;\nfor (var i = 0; i < 1000000000; i = i + 1) {\n    s = s + i;\n}";
+        String strings = "var s = \"a\";\nwhile (true) {\n    s = s + s;\n}";
+        assertEquals(BudgetExceeded.Limit.STATEMENTS, overBy(backend, forever, new Budget(100_000, null, 0)));
+        assertEquals(BudgetExceeded.Limit.STATEMENTS, overBy(backend, counted, new Budget(100_000, null, 0)));
+        assertEquals(BudgetExceeded.Limit.TIME, overBy(backend, forever, new Budget(0, Duration.ofMillis(50), 0)));
+        assertEquals(BudgetExceeded.Limit.STRING_BYTES, overBy(backend, strings, new Budget(0, null, 1 << 20)));
+    }
+
+    private static boolean over(Backend backend, String src, long statements) throws CompileError {
+        Diagnostics errors = new Engine(backend).compile(src).execute(new StringOutput(), new Budget(statements, null, 0));
+        return errors.runtimeError() instanceof BudgetExceeded;
+    }
+
+    /** the most statements a budget can let it run, found on the tree interpreter */
+    private static long statementsIn(String src) throws CompileError {
+        long lo = 1;
+        long hi = 1 << 20;
+        while (lo < hi) {
+            long mid = (lo + hi) / 2;
+            if (over(Backend.TREE, src, mid)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** the same budget should be enough (or not enough) on every backend, right down to the last statement */
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void exactStatementLimit(Backend backend) throws CompileError {
+        List<String> scripts = List.of(
+                "var n = 0;\nfor (var k = 0; k < 600; k = k + 1) { n = n + 1; }\nprint n;",
+                "var a = 30;\nfor (var k = 0; k < a; k = k + 1) {}\nprint a;",
+                "for (var x = 0.5; x < 40; x = x + 1.5) {\n    if (x > 20) { print x; } else { var y = x * 2; }\n}",
+                "var i = 0;\nwhile (i < 50) {\n    i = i + 1;\n    for (var j = 0; j < i; j = j + 1) { print j; }\n}",
+                "var s = \"\";\nvar i = 9223372036854775800;\nwhile (i < 9223372036854775807) { i = i + 1; s = s + \"x\"; }\nprint s;",
+                bigLoop()
+        );
+        for (String src : scripts) {
+            long limit = statementsIn(src);
+            assertFalse(over(backend, src, limit), src);
+            assertTrue(over(backend, src, limit - 1), src);
+        }
+    }
+
+    /** a budget it stays under shouldn't change anything */
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void underBudget(Backend backend) throws CompileError {
+        String src = "var s = \"\";\nfor (var i = 0; i < 100; i = i + 1) {\n"
+                + "    if (i % 10 == 0) { s = s + \"x\"; print s; } else { print i * i; }\n}";
+        Budget budget = new Budget(1_000_000, Duration.ofSeconds(30), 1 << 20);
+        String expected = run(new Engine(Backend.TREE).compile(src), Budget.NONE);
+        assertEquals(expected, run(new Engine(backend).compile(src), budget));
+    }
+    //endregion
+}
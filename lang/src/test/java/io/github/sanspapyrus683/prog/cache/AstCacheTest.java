@@ -0,0 +1,51 @@
+package io.github.sanspapyrus683.prog.cache;
+
+import io.github.sanspapyrus683.prog.Backend;
+import io.github.sanspapyrus683.prog.Budget;
+import io.github.sanspapyrus683.prog.CompiledScript;
+import io.github.sanspapyrus683.prog.Engine;
+import io.github.sanspapyrus683.prog.errors.CompileError;
+import io.github.sanspapyrus683.prog.output.StringOutput;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** scripts that went through the cache should run exactly like ones that didn't */
+class AstCacheTest {
+    private static String run(CompiledScript script) {
+        StringOutput out = new StringOutput();
+        return out + String.join("\n", script.execute(out, Budget.NONE).messages());
+    }
+
+    private static long cached(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    /** writing & reading it back doesn't recurse, so even something way too deep to recurse on gets cached */
+    @Test
+    void deepScript(@TempDir Path dir) throws IOException, CompileError {
+        int depth = 100_000;
+        String src = "var a = [1, 2];\nif (a.length > 1) { a[0] = -a[1]; } else { print \"no\"; }\n"
+                + "while (a[0] < 0 and true) { a[0] = a[0] + 1; }\n"
+                + "{".repeat(depth) + "a[1] = a[0] + 1; print a;" + "}".repeat(depth) + "\n"
+                + "print " + "(".repeat(depth) + "\"x\" + \"y\"" + ")".repeat(depth) + ";\n";
+        Path file = dir.resolve("deep.txt");
+        Files.writeString(file, src);
+        Path cacheDir = dir.resolve("cache");
+
+        String expected = run(new Engine(Backend.TREE).compile(file));
+        assertEquals(expected, run(new Engine(Backend.TREE, new AstCache(cacheDir)).compile(file)));
+        assertEquals(1, cached(cacheDir));
+        // this time it comes out of the cache
+        assertEquals(expected, run(new Engine(Backend.TREE, new AstCache(cacheDir)).compile(file)));
+        assertEquals(1, cached(cacheDir));
+    }
+}
@@ -1,75 +1,136 @@
 package io.github.sanspapyrus683.prog;
 
-import io.github.sanspapyrus683.prog.errors.RuntimeError;
-import io.github.sanspapyrus683.prog.inner.Interpreter;
-import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.cache.AstCache;
+import io.github.sanspapyrus683.prog.errors.CompileError;
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.inner.Profiler;
+import io.github.sanspapyrus683.prog.metrics.Metrics;
+import io.github.sanspapyrus683.prog.output.ChannelOutput;
+import io.github.sanspapyrus683.prog.output.Output;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 
+/** the command line thing, for using this from java look at Engine */
 public class ActualLang {
-    private static boolean errored = false;
-    private static boolean runtimeErrored = false;
+    private static Backend backend = Backend.TREE;
+    /** where parsed scripts get saved (null if that's turned off) */
+    private static AstCache cache = AstCache.inHome();
+    /** where the flame graph stacks go if we're profiling (null if we aren't) */
+    private static Path profile = null;
+    /** null unless --metrics was passed */
+    private static Metrics metrics = null;
+    /** from --max-statements, --max-time, & --max-string-bytes */
+    private static Budget budget = Budget.NONE;
+    /** everything printed goes through this, it gets flushed at the end (or on an error) */
+    private static final Output out = ChannelOutput.stdout();
 
-    public static void main(String[] args) throws IOException {
-        if (args.length == 0) {
-            System.err.println("my man i need a file");
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String file = null;
+        boolean batch = false;
+        boolean watch = false;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        long maxStatements = 0;
+        Duration maxTime = null;
+        long maxStringBytes = 0;
+        for (String arg : args) {
+            if (arg.equals("--vm")) {
+                backend = Backend.VM;
+            } else if (arg.equals("--nodes")) {
+                backend = Backend.NODES;
+            } else if (arg.equals("--jvm")) {
+                backend = Backend.JVM;
+            } else if (arg.equals("--flat")) {
+                backend = Backend.FLAT;
+            } else if (arg.equals("--no-cache")) {
+                cache = null;
+            } else if (arg.equals("--profile")) {
+                profile = Path.of("profile.folded");
+            } else if (arg.startsWith("--profile=")) {
+                profile = Path.of(arg.substring("--profile=".length()));
+            } else if (arg.equals("--metrics")) {
+                metrics = new Metrics(true);
+            } else if (arg.equals("--watch")) {
+                watch = true;
+            } else if (arg.equals("--batch")) {
+                batch = true;
+            } else if (arg.startsWith("--jobs=")) {
+                jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+            } else if (arg.startsWith("--max-statements=")) {
+                maxStatements = Long.parseLong(arg.substring("--max-statements=".length()));
+            } else if (arg.startsWith("--max-time=")) {
+                maxTime = Duration.ofMillis(Long.parseLong(arg.substring("--max-time=".length())));
+            } else if (arg.startsWith("--max-string-bytes=")) {
+                maxStringBytes = Long.parseLong(arg.substring("--max-string-bytes=".length()));
+            } else {
+                file = arg;
+            }
+        }
+        budget = new Budget(maxStatements, maxTime, maxStringBytes);
+        if (file == null) {
+            // no file means you get to type stuff in
+            new Repl(out).run(new BufferedReader(new InputStreamReader(System.in)), System.err);
+        } else if (watch) {
+            new Watcher(Path.of(file), new Engine(backend, null, metrics), out, System.err).run();
+        } else if (batch) {
+            boolean ok = new BatchRunner(new Engine(backend, cache, metrics), jobs, budget).run(Path.of(file));
+            printMetrics();
+            if (!ok) {
+                System.exit(1);
+            }
         } else {
-            runFile(args[0]);
+            runFile(file);
         }
     }
 
-    /** reads & runs the file (details of running in the run method) */
+    /** reads & runs the file */
     private static void runFile(String path) throws IOException {
-        BufferedReader read = new BufferedReader(new FileReader(path));
-        // the entire file in a single stringbuilder
-        StringBuilder res = new StringBuilder();
-        String line;
-        // read all the lines from the file
-        while ((line = read.readLine()) != null) {
-            res.append(line).append('\n');
-        }
-        run(res.toString());
-        if (errored || runtimeErrored) {
-            System.exit(1);
+        CompiledScript script = null;
+        try {
+            script = new Engine(backend, cache, metrics).compile(Path.of(path));
+        } catch (CompileError e) {
+            fail(e.messages);
         }
-    }
-
-    /** parses & interprets the code, also does the handling i guess */
-    private static void run(String code) {
-        Tokenizer sc = new Tokenizer(code);
-        List<Token> tokens = sc.scanTokens();
-        Parser parser = new Parser(tokens);
-        List<Stmt> expr = parser.parse();
-        // don't even try to execute the code if there was a parse error
-        if (errored) {
-            return;
+        if (profile == null && script.backend() != backend) {
+            System.err.println("note: " + path + " can't run on " + backend + " (" + script.fallback()
+                    + "), running it on the tree interpreter");
         }
-        new Interpreter().interpret(expr);
-    }
-
-    /** report an error at a line in general or at a specific token */
-    public static void error(int line, String msg) {
-        report(line, "", msg);
-    }
-
-    public static void error(Token token, String msg) {
-        if (token.type == TokenType.EOF) {
-            report(token.line, " at end", msg);
+        // everything printed gets flushed before this returns, so the errors come after it
+        Diagnostics errors;
+        if (profile != null) {
+            errors = new Diagnostics();
+            Profiler profiler = new Profiler(Path.of(path).getFileName().toString());
+            script.profile(out, errors, profiler);
+            profiler.report(System.err);
+            try (Writer stacks = Files.newBufferedWriter(profile)) {
+                profiler.writeCollapsed(stacks);
+            }
         } else {
-            report(token.line, " at '" + token.lexeme + "'", msg);
+            errors = script.execute(out, budget);
+        }
+        if (errors.hadRuntimeError()) {
+            fail(errors.messages());
         }
+        printMetrics();
     }
 
-    private static void report(int line, String where, String msg) {
-        System.err.println("[line " + line + "] Error" + where + ": " + msg);
-        errored = true;
+    private static void fail(List<String> messages) {
+        for (String msg : messages) {
+            System.err.println(msg);
+        }
+        printMetrics();
+        System.exit(1);
     }
 
-    public static void runtimeError(RuntimeError error) {
-        System.err.println(error.getMessage() + " (line " + error.token.line + ")");
-        runtimeErrored = true;
+    private static void printMetrics() {
+        if (metrics != null) {
+            metrics.snapshot().forEach((name, val) -> System.err.println(name + " " + val));
+        }
     }
 }
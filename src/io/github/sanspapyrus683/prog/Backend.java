@@ -0,0 +1,15 @@
+package io.github.sanspapyrus683.prog;
+
+/** all the different ways code can get run */
+public enum Backend {
+    /** just walks the syntax tree */
+    TREE,
+    /** compiles to bytecode for the VM */
+    VM,
+    /** the self-specializing node tree */
+    NODES,
+    /** an actual jvm class */
+    JVM,
+    /** the tree packed into int arrays (see flat.FlatTree) */
+    FLAT
+}
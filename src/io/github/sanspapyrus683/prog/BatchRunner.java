@@ -0,0 +1,226 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.errors.CompileError;
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.output.StringOutput;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * runs a whole bunch of scripts at once in the same jvm
+ * each one gets its own thread (a virtual one if the jvm has them), its own variables,
+ * & its own output & errors, which get printed out in order as soon as it & every script before it are done
+ */
+public class BatchRunner {
+    /** how a single script went */
+    public static class Result {
+        public final Path script;
+        public final int exitCode;  /** 0 if it was fine, 1 if it errored, 2 if it couldn't even be read (or crashed) */
+        public final String out;
+        public final String err;
+        public final long nanos;
+
+        Result(Path script, int exitCode, String out, String err, long nanos) {
+            this.script = script;
+            this.exitCode = exitCode;
+            this.out = out;
+            this.err = err;
+            this.nanos = nanos;
+        }
+    }
+
+    private final Engine engine;
+    private final int limit;  /** how many scripts can be running at the same time */
+    private final Budget budget;  /** for each script on its own */
+
+    public BatchRunner(Engine engine, int limit) {
+        this(engine, limit, Budget.NONE);
+    }
+
+    public BatchRunner(Engine engine, int limit, Budget budget) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("you need to be able to run at least 1 script at a time lol");
+        }
+        this.engine = engine;
+        this.limit = limit;
+        this.budget = budget;
+    }
+
+    /**
+     * runs every script in a directory (the .txt files that none of the others import),
+     * or every one listed in a manifest file (one path per line, relative to the manifest,
+     * blank lines & lines starting w/ # are skipped)
+     * the outputs go to stdout, the errors to stderr, & the stats at the end
+     * returns true if every script ran w/o an error
+     */
+    public boolean run(Path dirOrManifest) throws IOException {
+        List<Path> scripts = scripts(dirOrManifest);
+        long start = System.nanoTime();
+        int[] failed = {0};
+        runAll(scripts, res -> {
+            System.out.println("== " + res.script + " (exit " + res.exitCode + ", " + res.nanos / 1_000_000 + " ms)");
+            System.out.print(res.out);
+            System.out.flush();
+            if (!res.err.isEmpty()) {
+                System.err.println("== " + res.script);
+                System.err.print(res.err);
+                System.err.flush();
+            }
+            if (res.exitCode != 0) {
+                failed[0]++;
+            }
+        });
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("ran %d scripts in %.3f s (%.1f scripts/s), %d failed%n",
+                scripts.size(), secs, scripts.size() / secs, failed[0]);
+        return failed[0] == 0;
+    }
+
+    /** runs them all & gives back the results in the same order */
+    public List<Result> runAll(List<Path> scripts) {
+        List<Result> ret = new ArrayList<>();
+        runAll(scripts, ret::add);
+        return ret;
+    }
+
+    /**
+     * runs them all & hands each result to done in the same order, as soon as it & all the ones before it are done
+     * (so a slow script only holds up the ones after it, not the whole batch)
+     */
+    public void runAll(List<Path> scripts, Consumer<Result> done) {
+        Semaphore running = new Semaphore(limit);
+        ExecutorService pool = executor();
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path script : scripts) {
+                futures.add(pool.submit(() -> {
+                    running.acquire();
+                    try {
+                        return runOne(script);
+                    } finally {
+                        running.release();
+                    }
+                }));
+            }
+            for (Future<Result> f : futures) {
+                done.accept(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("got interrupted while running the batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("a script blew up the runner", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public Result runOne(Path script) {
+        long start = System.nanoTime();
+        StringOutput out = new StringOutput();
+        try {
+            Diagnostics errors = engine.compile(script).execute(out, budget);
+            return new Result(script, errors.hadRuntimeError() ? 1 : 0, out.toString(),
+                    lines(errors.messages()), System.nanoTime() - start);
+        } catch (CompileError e) {
+            return new Result(script, 1, "", lines(e.messages), System.nanoTime() - start);
+        } catch (IOException e) {
+            return new Result(script, 2, "", "couldn't read it: " + e + System.lineSeparator(), System.nanoTime() - start);
+        } catch (RuntimeException | StackOverflowError e) {
+            // one broken script shouldn't take the rest of the batch down w/ it
+            return new Result(script, 2, out.toString(), "crashed: " + e + System.lineSeparator(), System.nanoTime() - start);
+        }
+    }
+
+    private static List<Path> scripts(Path dirOrManifest) throws IOException {
+        if (Files.isDirectory(dirOrManifest)) {
+            return inDirectory(dirOrManifest);
+        }
+        Path base = dirOrManifest.toAbsolutePath().getParent();
+        List<Path> ret = new ArrayList<>();
+        for (String line : Files.readAllLines(dirOrManifest)) {
+            line = line.strip();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                ret.add(base.resolve(line));
+            }
+        }
+        return ret;
+    }
+
+    /** the .txt files in a directory, minus any that another one of them imports (those run as part of it) */
+    private static List<Path> inDirectory(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(f -> Files.isRegularFile(f) && f.getFileName().toString().endsWith(".txt"))
+                    .map(Path::normalize)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        Set<Path> imported = new HashSet<>();
+        for (Path file : files) {
+            imported.addAll(imports(file));
+        }
+        return files.stream().filter(f -> !imported.contains(f)).collect(Collectors.toList());
+    }
+
+    /**
+     * every file a script imports, which just takes the tokenizer since an import's always import "path";
+     * anything wrong w/ the script gets reported when it actually runs
+     */
+    private static List<Path> imports(Path script) {
+        List<Token> tokens;
+        try (Reader reader = Files.newBufferedReader(script)) {
+            tokens = new Tokenizer(reader, new Diagnostics()).scanTokens();
+        } catch (IOException | UncheckedIOException e) {
+            return List.of();
+        }
+        List<Path> ret = new ArrayList<>();
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            if (tokens.get(i).type == TokenType.IMPORT && tokens.get(i + 1).type == TokenType.STRING) {
+                try {
+                    ret.add(script.resolveSibling((String) tokens.get(i + 1).literal).normalize());
+                } catch (InvalidPathException ignored) { }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * a virtual thread for each script if the jvm has them (java 21+),
+     * otherwise just a normal pool w/ as many threads as are allowed to run at once
+     */
+    private ExecutorService executor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(limit);
+        }
+    }
+
+    private static String lines(List<String> messages) {
+        StringBuilder ret = new StringBuilder();
+        for (String msg : messages) {
+            ret.append(msg).append(System.lineSeparator());
+        }
+        return ret.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.sanspapyrus683.prog;
+
+import java.time.Duration;
+
+/**
+ * limits for a single run of a script, so a script can't hang forever or fill up the heap w/ strings
+ * pass one to CompiledScript.execute, & a run that goes over any of them ends w/ a BudgetExceeded error
+ * a limit that's 0 (or null for the time) isn't a limit at all
+ *
+ * they only get checked at cheap spots (every statement & every time a loop goes around,
+ * & the clock only every so often), so a run can go a little over before it gets stopped
+ */
+public final class Budget {
+    public static final Budget NONE = new Budget(0, null, 0);
+
+    public final long statements;  /** how many statements it can run (going around a loop counts as one too) */
+    public final Duration time;
+    public final long stringBytes;  /** about how many bytes of strings it can make */
+
+    public Budget(long statements, Duration time, long stringBytes) {
+        if (statements < 0 || stringBytes < 0 || time != null && time.isNegative()) {
+            throw new IllegalArgumentException("a budget can't be negative lol");
+        }
+        this.statements = statements;
+        this.time = time == null || time.isZero() ? null : time;
+        this.stringBytes = stringBytes;
+    }
+
+    /** if there's actually anything to check */
+    public boolean limited() {
+        return statements > 0 || time != null || stringBytes > 0;
+    }
+}
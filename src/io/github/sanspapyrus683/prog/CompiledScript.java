@@ -0,0 +1,233 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.flat.FlatInterpreter;
+import io.github.sanspapyrus683.prog.flat.FlatTree;
+import io.github.sanspapyrus683.prog.flat.Flattener;
+import io.github.sanspapyrus683.prog.inner.BudgetMeter;
+import io.github.sanspapyrus683.prog.inner.BudgetedInterpreter;
+import io.github.sanspapyrus683.prog.inner.Environment;
+import io.github.sanspapyrus683.prog.inner.Interpreter;
+import io.github.sanspapyrus683.prog.inner.MeteredInterpreter;
+import io.github.sanspapyrus683.prog.inner.Profiler;
+import io.github.sanspapyrus683.prog.inner.ProfilingInterpreter;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.jvm.JvmInterpreter;
+import io.github.sanspapyrus683.prog.metrics.ExecuteEvent;
+import io.github.sanspapyrus683.prog.metrics.Metrics;
+import io.github.sanspapyrus683.prog.nodes.NodeInterpreter;
+import io.github.sanspapyrus683.prog.output.Output;
+import io.github.sanspapyrus683.prog.vm.Chunk;
+import io.github.sanspapyrus683.prog.vm.Compiler;
+import io.github.sanspapyrus683.prog.vm.VM;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * a script that's been parsed, resolved, & compiled for whatever backend, ready to run
+ * nothing in here changes after it's made, every run gets its own variables, output, & errors,
+ * so it's fine to run the same one from a bunch of threads at once
+ */
+public final class CompiledScript {
+    /** passes the errors on, remembering if there was a runtime one */
+    private static class Watched implements ErrorReporter {
+        private final ErrorReporter inner;
+        private boolean runtimeErrored = false;
+
+        private Watched(ErrorReporter inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public void error(int line, String where, String msg) {
+            inner.error(line, where, msg);
+        }
+
+        @Override
+        public void runtimeError(RuntimeError error) {
+            runtimeErrored = true;
+            inner.runtimeError(error);
+        }
+    }
+
+    private final String name;  /** the file it came from (or something like <string>) */
+    private final Backend backend;
+    private final String fallback;  /** why it's not on the backend the engine asked for, null if it is */
+    private final List<Stmt> statements;
+    private final int slots;  /** how many variables the script needs */
+    private final Chunk chunk;  /** only for the VM */
+    private final JvmInterpreter.Compiled jvm;  /** only for the JVM backend */
+    private final FlatTree flat;  /** only for the FLAT backend */
+    // the budgeted versions of the chunk & class only get made the first time a run w/ a budget needs them
+    private volatile Chunk budgetedChunk;
+    private volatile JvmInterpreter.Compiled budgetedJvm;
+    private final Metrics metrics;  /** can be null */
+
+    CompiledScript(String name, Backend backend, List<Stmt> statements, int slots, Metrics metrics) {
+        this.name = name;
+        this.metrics = metrics;
+        this.statements = Collections.unmodifiableList(new ArrayList<>(statements));
+        this.slots = slots;
+        // the other backends all recurse to compile or run it, so something nested that deep has to go on the tree one
+        boolean deep = statements.stream().anyMatch(s -> s.deep);
+        JvmInterpreter.Compiled jvm = !deep && backend == Backend.JVM ? JvmInterpreter.compile(this.statements, slots) : null;
+        if (deep) {
+            this.fallback = "it's nested too deep";
+        } else if (jvm != null && jvm.tooBig() != null) {
+            // & so does something the jvm backend couldn't fit in a class
+            this.fallback = jvm.tooBig();
+        } else {
+            this.fallback = null;
+        }
+        this.backend = fallback != null ? Backend.TREE : backend;
+        this.chunk = this.backend == Backend.VM ? new Compiler().compile(this.statements) : null;
+        this.jvm = this.backend == Backend.JVM ? jvm : null;
+        this.flat = this.backend == Backend.FLAT ? new Flattener().flatten(this.statements) : null;
+    }
+
+    /**
+     * what it actually runs on, which is the tree interpreter instead of the one the engine asked for
+     * if anything in it is nested too deep for the others (see Stmt.deep), or it's too big for the jvm one
+     */
+    public Backend backend() {
+        return backend;
+    }
+
+    /** why backend() isn't the one the engine asked for, or null if it is */
+    public String fallback() {
+        return fallback;
+    }
+
+    /** runs it & gives back whatever runtime error happened (if any) */
+    public Diagnostics execute(Output out) {
+        return execute(out, Budget.NONE);
+    }
+
+    public Diagnostics execute(Output out, Budget budget) {
+        Diagnostics diagnostics = new Diagnostics();
+        execute(out, diagnostics, budget);
+        return diagnostics;
+    }
+
+    /** the output gets flushed once it's done, error or not */
+    public void execute(Output out, ErrorReporter errors) {
+        execute(out, errors, Budget.NONE);
+    }
+
+    /**
+     * a run w/ a budget goes on a version of the backend that ticks a BudgetMeter as it goes
+     * (for the VM & JVM that's a separate chunk or class), so a run w/o one doesn't check anything
+     */
+    public void execute(Output out, ErrorReporter errors, Budget budget) {
+        ExecuteEvent event = Metrics.jfrOn() ? new ExecuteEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        Watched watched = new Watched(metrics != null ? metrics.counting(errors) : errors);
+        MeteredInterpreter metered = null;
+        try {
+            BudgetMeter meter = BudgetMeter.of(budget);
+            if (meter != null) {
+                budgeted(out, watched, meter);
+                return;
+            }
+            switch (backend) {
+                case VM:
+                    new VM(out, watched).interpret(chunk);
+                    break;
+                case NODES:
+                    // the nodes rewrite themselves as they run, so every run has to build its own
+                    new NodeInterpreter(out, watched).interpret(statements, slots);
+                    break;
+                case JVM:
+                    new JvmInterpreter(out, watched).run(jvm);
+                    break;
+                case FLAT:
+                    new FlatInterpreter(out, watched).interpret(flat, slots);
+                    break;
+                default:
+                    if (metrics != null && metrics.detailed()) {
+                        metered = new MeteredInterpreter(slots, out, watched);
+                        metered.interpret(statements);
+                    } else {
+                        new Interpreter(new Environment(slots), out, watched).interpret(statements);
+                    }
+            }
+        } finally {
+            out.flush();
+            if (event != null) {
+                event.end();
+            }
+            if (event != null && event.shouldCommit()) {
+                event.script = name;
+                event.backend = backend.name();
+                event.statements = metered != null ? metered.statements() : 0;
+                event.runtimeError = watched.runtimeErrored;
+                event.commit();
+            }
+            if (metrics != null) {
+                metrics.ran(metered);
+            }
+        }
+    }
+
+    private void budgeted(Output out, ErrorReporter errors, BudgetMeter meter) {
+        switch (backend) {
+            case VM:
+                new VM(out, errors, meter).interpret(budgetedChunk());
+                break;
+            case NODES:
+                new NodeInterpreter(out, errors).interpret(statements, slots, meter);
+                break;
+            case JVM:
+                new JvmInterpreter(out, errors).run(budgetedJvm(), meter);
+                break;
+            case FLAT:
+                new FlatInterpreter(out, errors).interpret(flat, slots, meter);
+                break;
+            default:
+                new BudgetedInterpreter(slots, out, errors, meter).interpret(statements);
+        }
+    }
+
+    private Chunk budgetedChunk() {
+        Chunk compiled = budgetedChunk;
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = budgetedChunk;
+                if (compiled == null) {
+                    compiled = new Compiler(true).compile(statements);
+                    budgetedChunk = compiled;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    private JvmInterpreter.Compiled budgetedJvm() {
+        JvmInterpreter.Compiled compiled = budgetedJvm;
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = budgetedJvm;
+                if (compiled == null) {
+                    compiled = JvmInterpreter.compile(statements, slots, true);
+                    budgetedJvm = compiled;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /** runs it on the tree interpreter no matter what the backend is, timing every statement */
+    public void profile(Output out, ErrorReporter errors, Profiler profiler) {
+        try {
+            new ProfilingInterpreter(new Environment(slots), out, errors, profiler).interpret(statements);
+        } finally {
+            out.flush();
+        }
+    }
+}
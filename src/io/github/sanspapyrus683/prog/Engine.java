@@ -0,0 +1,163 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.cache.AstCache;
+import io.github.sanspapyrus683.prog.errors.CompileError;
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.inner.Optimizer;
+import io.github.sanspapyrus683.prog.inner.Resolver;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.inner.Types;
+import io.github.sanspapyrus683.prog.metrics.CompileEvent;
+import io.github.sanspapyrus683.prog.metrics.Metrics;
+import io.github.sanspapyrus683.prog.metrics.ParseEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * for running scripts from other java code
+ * compile a script once & then run the CompiledScript as many times as you want, from as many threads as you want
+ * none of this has any static state, so separate scripts never mess w/ each other
+ */
+public class Engine {
+    private final Backend backend;
+    private final AstCache cache;  /** where parsed files get saved, can be null */
+    private final Metrics metrics;  /** can be null too */
+
+    public Engine() {
+        this(Backend.TREE);
+    }
+
+    public Engine(Backend backend) {
+        this(backend, null);
+    }
+
+    public Engine(Backend backend, AstCache cache) {
+        this(backend, cache, null);
+    }
+
+    public Engine(Backend backend, AstCache cache, Metrics metrics) {
+        this.backend = backend;
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    /** imports in here are relative to wherever the program's running */
+    public CompiledScript compile(CharSequence src) throws CompileError {
+        Diagnostics diagnostics = new Diagnostics();
+        List<Stmt> statements = parse("<string>", new Tokenizer(src, diagnostics), diagnostics);
+        return compile("<string>", link(null, statements, diagnostics), diagnostics);
+    }
+
+    public CompiledScript compile(Path file) throws IOException, CompileError {
+        Diagnostics diagnostics = new Diagnostics();
+        List<Stmt> statements = load(file, diagnostics);
+        return compile(file.toString(), link(file, statements, diagnostics), diagnostics);
+    }
+
+    /** for statements that have been parsed but not resolved (they belong to the script after this) */
+    public CompiledScript compile(List<Stmt> statements) throws CompileError {
+        return compile(null, statements);
+    }
+
+    /** the same thing, but imports in them are relative to the file they came from */
+    public CompiledScript compile(Path from, List<Stmt> statements) throws CompileError {
+        Diagnostics diagnostics = new Diagnostics();
+        return compile("<ast>", link(from, statements, diagnostics), diagnostics);
+    }
+
+    /** parses a file, or gets it from the cache if it hasn't changed */
+    private List<Stmt> load(Path file, Diagnostics diagnostics) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            // if this exact script's been parsed before, just use that
+            byte[] hash = cache != null ? AstCache.hash(channel) : null;
+            List<Stmt> statements = cache != null ? cache.load(hash) : null;
+            if (statements == null) {
+                // the file gets mapped & tokenized as it's read, it's never one big string
+                statements = parse(file.toString(), new Tokenizer(new MappedSource(channel), diagnostics), diagnostics);
+                if (!diagnostics.hadError() && cache != null) {
+                    cache.store(hash, statements);
+                }
+            }
+            return statements;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();  // the tokenizer couldn't read the file
+        }
+    }
+
+    /** swaps out the imports for what they import (see Modules), each module gets loaded like a normal file */
+    private List<Stmt> link(Path from, List<Stmt> statements, Diagnostics diagnostics) {
+        return new Modules(this::load).link(from, statements, diagnostics);
+    }
+
+    private List<Stmt> parse(String name, Tokenizer tokenizer, Diagnostics diagnostics) {
+        ParseEvent event = Metrics.jfrOn() ? new ParseEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        List<Stmt> statements = new Parser(tokenizer, diagnostics).parse();
+        // counting the statements means going over all of them, so only do it if someone wants it
+        boolean commit = false;
+        if (event != null) {
+            event.end();
+            commit = event.shouldCommit();
+        }
+        if (commit || metrics != null) {
+            int tokens = tokenizer.tokens().scanned();
+            int count = Metrics.countStatements(statements);
+            if (metrics != null) {
+                metrics.parsed(tokens, count);
+            }
+            if (commit) {
+                event.script = name;
+                event.tokens = tokens;
+                event.statements = count;
+                event.commit();
+            }
+        }
+        return statements;
+    }
+
+    private CompiledScript compile(String name, List<Stmt> statements, Diagnostics diagnostics) throws CompileError {
+        CompileEvent event = Metrics.jfrOn() ? new CompileEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        CompiledScript script = null;
+        try {
+            if (diagnostics.hadError()) {
+                throw new CompileError(diagnostics);
+            }
+            Resolver resolver = new Resolver(diagnostics);
+            resolver.resolve(statements);
+            // variables that don't exist anywhere count as a compile error too
+            if (diagnostics.hadError()) {
+                throw new CompileError(diagnostics);
+            }
+            List<Stmt> optimized = new Optimizer().optimize(statements);
+            Types.infer(optimized, resolver.slotCount());
+            if (event != null) {
+                event.slots = resolver.slotCount();
+            }
+            script = new CompiledScript(name, backend, optimized, resolver.slotCount(), metrics);
+            if (metrics != null && script.backend() != backend) {
+                metrics.fellBack();
+            }
+            return script;
+        } finally {
+            if (event != null) {
+                event.script = name;
+                event.backend = (script != null ? script.backend() : backend).name();
+                event.requestedBackend = backend.name();
+                event.errored = diagnostics.hadError();
+                event.commit();
+            }
+            if (metrics != null) {
+                metrics.compiled(diagnostics.hadError());
+            }
+        }
+    }
+}
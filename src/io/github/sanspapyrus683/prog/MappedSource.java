@@ -0,0 +1,110 @@
+package io.github.sanspapyrus683.prog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * reads a file by memory mapping it & decoding it a chunk at a time,
+ * so the whole thing never has to sit in memory as a string
+ *
+ * the line endings come out the same way reading the file line by line did:
+ * \r\n & \r both turn into \n, & the last line always ends w/ a \n
+ */
+public class MappedSource extends Reader {
+    private static final long MAX_REGION = 1L << 30;  /** how much of the file gets mapped at once */
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final CharBuffer decoded = CharBuffer.allocate(8192);
+    private MappedByteBuffer region;
+    private long regionStart = 0;  /** where in the file the current region starts */
+    private boolean decodedAll = false;
+    private boolean lastWasCR = false;  /** if the last char was \r (so a \n right after gets skipped) */
+    private boolean wroteAny = false;
+    private boolean endsInNewline = true;
+    private boolean done = false;
+
+    public MappedSource(FileChannel channel) throws IOException {
+        this(channel, Charset.defaultCharset());
+    }
+
+    public MappedSource(FileChannel channel, Charset charset) throws IOException {
+        this.channel = channel;
+        // FileReader swaps out bad bytes instead of erroring, so this does too
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.region = map(0);
+        decoded.flip();
+    }
+
+    @Override
+    public int read(char[] buf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int amt = 0;
+        while (amt < len) {
+            if (!decoded.hasRemaining() && !decodeMore()) {
+                // the last line still gets its newline even if the file didn't have one
+                if (wroteAny && !endsInNewline && !done) {
+                    buf[off + amt++] = '\n';
+                    endsInNewline = true;
+                }
+                done = true;
+                break;
+            }
+            char c = decoded.get();
+            if (c == '\n' && lastWasCR) {
+                lastWasCR = false;
+                continue;
+            }
+            lastWasCR = c == '\r';
+            c = c == '\r' ? '\n' : c;
+            buf[off + amt++] = c;
+            wroteAny = true;
+            endsInNewline = c == '\n';
+        }
+        return amt == 0 ? -1 : amt;
+    }
+
+    /** decodes the next chunk of the file, returns false if there's nothing left */
+    private boolean decodeMore() throws IOException {
+        if (decodedAll) {
+            return false;
+        }
+        decoded.clear();
+        while (decoded.position() == 0) {
+            boolean lastRegion = regionStart + region.limit() >= channel.size();
+            decoder.decode(region, decoded, lastRegion);
+            if (lastRegion && !region.hasRemaining()) {
+                decoder.flush(decoded);
+                decodedAll = true;
+                break;
+            }
+            if (!region.hasRemaining() || region.remaining() < 16) {
+                // map the next bit, starting at whatever the decoder didn't get to yet
+                region = map(regionStart + region.position());
+            }
+        }
+        decoded.flip();
+        return decoded.hasRemaining();
+    }
+
+    private MappedByteBuffer map(long start) throws IOException {
+        regionStart = start;
+        long size = Math.min(channel.size() - start, MAX_REGION);
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
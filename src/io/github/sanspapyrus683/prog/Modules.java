@@ -0,0 +1,198 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * the front end for scripts w/ imports
+ * every file that gets imported is a module, & imports are always relative to the file they're in
+ *
+ * first every module that can be reached gets parsed, once each, on a fork join pool
+ * (each one forks off the modules it imports that nobody's gotten to yet, so ones that don't depend on each other
+ * get parsed at the same time), & each module goes through the engine's cache on its own,
+ * so only the files that actually changed get parsed again
+ *
+ * then each import gets swapped out for its module's statements, like the files just got pasted together
+ * a module only gets pasted in the first time it's imported, importing it again (or importing something
+ * that's still in the middle of getting pasted in, like when two modules import each other) does nothing
+ * keep one of these around to keep that going between calls (like the repl does)
+ */
+final class Modules {
+    /** parses a file, errors go in the diagnostics & not being able to read it is an IOException */
+    interface Loader {
+        List<Stmt> load(Path file, Diagnostics diagnostics) throws IOException;
+    }
+
+    private static final class Module {
+        final Path file;
+        final Diagnostics diagnostics = new Diagnostics();
+        List<Stmt> statements;
+        IOException failed;  /** if the file couldn't be read */
+
+        Module(Path file) {
+            this.file = file;
+        }
+    }
+
+    /** loads a module & everything it imports that hasn't been claimed by another one of these yet */
+    private final class Parse extends RecursiveAction {
+        private final Module module;
+
+        Parse(Module module) {
+            this.module = module;
+        }
+
+        @Override
+        protected void compute() {
+            if (module.statements == null) {
+                try {
+                    module.statements = loader.load(module.file, module.diagnostics);
+                } catch (IOException e) {
+                    module.failed = e;
+                    return;
+                } catch (UncheckedIOException e) {
+                    module.failed = e.getCause();  // the tokenizer couldn't read it
+                    return;
+                }
+            }
+            // each module only gets joined by the one that claimed it, so a cycle can't deadlock anything
+            invokeAll(claim(module));
+        }
+    }
+
+    /** just tokenizes & parses, w/o any caching */
+    static final Loader PARSE = (file, diagnostics) -> {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return new Parser(new Tokenizer(new MappedSource(channel), diagnostics), diagnostics).parse();
+        }
+    };
+
+    private final Loader loader;
+    private final Map<Path, Module> modules = new ConcurrentHashMap<>();
+    private final Set<Path> pasted = new HashSet<>();  /** only touched by link, which isn't on the pool */
+
+    Modules(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * gives back the statements w/ every import swapped out for what's in the module
+     * from is the file they came from (null if they didn't come from one, then imports are relative to where
+     * the program's running), errors in other modules get reported w/ the module's name in front of them
+     */
+    List<Stmt> link(Path from, List<Stmt> statements, Diagnostics diagnostics) {
+        if (!hasImports(statements)) {
+            return statements;  // the normal case, no pool or anything
+        }
+        Module root = new Module(from == null ? null : from.normalize());
+        root.statements = statements;
+        if (root.file != null) {
+            modules.putIfAbsent(root.file, root);
+            pasted.add(root.file);
+        }
+        ForkJoinPool.commonPool().invoke(new Parse(root));
+
+        // the modules being pasted in, innermost on top (imports can go as deep as they want w/o recursing)
+        List<Stmt> ret = new ArrayList<>();
+        Deque<Module> inside = new ArrayDeque<>();
+        Deque<Iterator<Stmt>> left = new ArrayDeque<>();
+        inside.push(root);
+        left.push(statements.iterator());
+        while (!inside.isEmpty()) {
+            if (!left.peek().hasNext()) {
+                Module done = inside.pop();
+                left.pop();
+                if (done != root) {
+                    diagnostics.include(done.file.toString(), done.diagnostics);
+                }
+                continue;
+            }
+            Stmt s = left.peek().next();
+            if (!(s instanceof Stmt.Import)) {
+                ret.add(s);
+                continue;
+            }
+            Module importer = inside.peek();
+            Stmt.Import imp = (Stmt.Import) s;
+            Diagnostics reportTo = importer == root ? diagnostics : importer.diagnostics;
+            Path file = resolve(importer.file, imp.path);
+            if (file == null) {
+                reportTo.error(imp.path, "that's not a file name");
+                continue;
+            }
+            Module module = modules.get(file);
+            if (!pasted.add(file)) {
+                continue;
+            }
+            if (module.failed != null) {
+                reportTo.error(imp.path, module.failed instanceof NoSuchFileException
+                        ? "there's no file called " + file
+                        : "couldn't read " + file + " (" + module.failed.getMessage() + ")");
+                // maybe it'll be there next time
+                modules.remove(file);
+                pasted.remove(file);
+                continue;
+            }
+            inside.push(module);
+            left.push(module.statements.iterator());
+        }
+        return ret;
+    }
+
+    /** claims every module the statements import that nobody else has, & gives back the tasks to load them */
+    private List<Parse> claim(Module importer) {
+        List<Parse> ret = new ArrayList<>();
+        for (Stmt s : importer.statements) {
+            if (!(s instanceof Stmt.Import)) {
+                continue;
+            }
+            Path file = resolve(importer.file, ((Stmt.Import) s).path);
+            if (file == null) {
+                continue;
+            }
+            Module module = new Module(file);
+            if (modules.putIfAbsent(file, module) == null) {
+                ret.add(new Parse(module));
+            }
+        }
+        return ret;
+    }
+
+    /** the file an import's talking about, or null if it isn't even a valid path */
+    private static Path resolve(Path importer, Token path) {
+        try {
+            String name = (String) path.literal;
+            Path ret = importer == null ? Path.of(name) : importer.resolveSibling(name);
+            return ret.normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasImports(List<Stmt> statements) {
+        for (Stmt s : statements) {
+            if (s instanceof Stmt.Import) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
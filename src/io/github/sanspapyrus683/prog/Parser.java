@@ -1,10 +1,13 @@
 package io.github.sanspapyrus683.prog;
 
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
 import io.github.sanspapyrus683.prog.inner.Expr;
 import io.github.sanspapyrus683.prog.inner.Stmt;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -14,47 +17,214 @@ import java.util.List;
 public class Parser {
     private static class ParseError extends RuntimeException { }
 
-    private final List<Token> tokens;
+    /** a statement that's waiting for the statement inside it to get parsed */
+    private static final class Waiting {
+        TokenType kind;  /** what kind of statement (ELSE for an if that's on its else part) */
+        final int line;
+        List<Stmt> content;  /** for blocks */
+        Expr condition;
+        Stmt body;  /** the then part of an if, or the init part of a for */
+        Expr post;  /** the increment of a for */
+
+        Waiting(TokenType kind, int line) {
+            this.kind = kind;
+            this.line = line;
+        }
+    }
+
+    //region what's left to do for a partly parsed expression (see expression)
+    // the levels, lowest priority first
+    private static final int ASSIGNMENT = 0;
+    private static final int OR = 1;
+    private static final int AND = 2;
+    private static final int EQUALITY = 3;
+    private static final int COMPARISON = 4;
+    private static final int TERM = 5;
+    private static final int FACTOR = 6;
+    // waiting on the right side of something
+    private static final int ASSIGN_VAL = 7;
+    private static final int OR_RIGHT = 8;
+    private static final int AND_RIGHT = 9;
+    private static final int EQUALITY_RIGHT = 10;
+    private static final int COMPARISON_RIGHT = 11;
+    private static final int TERM_RIGHT = 12;
+    private static final int FACTOR_RIGHT = 13;
+    private static final int UNARY_RIGHT = 14;
+    private static final int GROUPING = 15;
+    private static final int ARRAY_ITEM = 16;  /** the left's the array literal so far */
+    private static final int INDEX = 17;  /** the left's what's getting indexed */
+    private static final int INDEX_VAL = 18;  /** the left's the array[index] getting assigned to */
+    //endregion
+
+    private final TokenBuffer tokens;
+    private final ErrorReporter errors;
     private int at = 0;  /** the current token we're at */
 
-    public Parser(List<Token> tokens) {
-        this.tokens = tokens;
+    private int[] resume = new int[32];  /** what each partly parsed expression does next */
+    private Expr[] lefts = new Expr[32];  /** the left sides of the binary stuff */
+    private Token[] ops = new Token[32];
+    private int depth = 0;
+
+    public Parser(Tokenizer tokenizer, ErrorReporter errors) {
+        this.tokens = tokenizer.tokens();
+        this.errors = errors;
     }
 
+    /** the parser stops at the first error, check the reporter to see if there was one */
     public List<Stmt> parse() {
         List<Stmt> res = new ArrayList<>();
-        while (peek().type != TokenType.EOF) {
-            res.add(statement());
+        try {
+            while (peek() != TokenType.EOF) {
+                res.add(statement());
+            }
+        } catch (ParseError e) {
+            // already reported, there's not much point in going on
         }
         return res;
     }
 
+    //region going one statement at a time (for only re-parsing part of something)
+    /** the next statement, or null if it had an error */
+    Stmt next() {
+        try {
+            return statement();
+        } catch (ParseError e) {
+            return null;
+        }
+    }
+
+    TokenType nextType() {
+        return peek();
+    }
+
+    boolean atEnd() {
+        return peek() == TokenType.EOF;
+    }
+
+    /** where the next token starts in the source */
+    int nextStart() {
+        return tokens.start(at);
+    }
+
+    int nextLine() {
+        return tokens.line(at);
+    }
+
+    /** one past where the last token ended */
+    int lastEnd() {
+        return tokens.start(at - 1) + tokens.length(at - 1);
+    }
+
+    int lastLine() {
+        return tokens.line(at - 1);
+    }
+    //endregion
+
     //region STATEMENT parsing
+    /*
+     * blocks, ifs, & loops have statements inside them, so instead of recursing into those,
+     * the outer statement goes on a stack & waits for the inside one to finish
+     * that way nesting them a ton doesn't overflow anything
+     */
     private Stmt statement() {
-        if (match(TokenType.PRINT)) {
-            return printStatement();
-        } else if (match(TokenType.VAR)) {
-            return varStatement();
-        } else if (match(TokenType.LEFT_BRACE)) {
-            return blockStatement();
+        Deque<Waiting> waiting = new ArrayDeque<>();
+        while (true) {
+            Stmt done = begin(waiting);
+            // give whatever just got done to the statement it's inside of, which might finish that one too
+            while (done != null) {
+                if (waiting.isEmpty()) {
+                    return done;
+                }
+                done = finish(waiting, done);
+            }
+        }
+    }
+
+    /** starts a statement, gives it back if it's already done or null if it's waiting on one inside it */
+    private Stmt begin(Deque<Waiting> waiting) {
+        int line = tokens.line(at);
+        if (match(TokenType.LEFT_BRACE)) {
+            Waiting block = new Waiting(TokenType.LEFT_BRACE, line);
+            block.content = new ArrayList<>();
+            waiting.push(block);
+            return endBlock(waiting);
         } else if (match(TokenType.IF)) {
-            return ifStatement();
+            consume(TokenType.LEFT_PAREN, "if condition needs to be in parens");
+            Waiting ifStmt = new Waiting(TokenType.IF, line);
+            ifStmt.condition = expression();
+            consume(TokenType.RIGHT_PAREN, "if condition needs to be in parens");
+            waiting.push(ifStmt);
+            return null;
         } else if (match(TokenType.WHILE)) {
-            return whileStatement();
+            consume(TokenType.LEFT_PAREN, "need parens for the while condition fam");
+            Waiting whileStmt = new Waiting(TokenType.WHILE, line);
+            whileStmt.condition = expression();
+            consume(TokenType.RIGHT_PAREN, "need parens for the while condition fam");
+            waiting.push(whileStmt);
+            return null;
         } else if (match(TokenType.FOR)) {
-            return forStatement();
+            waiting.push(forStatement());
+            return null;
+        }
+
+        Stmt ret;
+        if (match(TokenType.IMPORT)) {
+            if (!waiting.isEmpty()) {
+                throw error(prev(), "imports have to be at the top level, not inside anything");
+            }
+            ret = importStatement();
+        } else if (match(TokenType.PRINT)) {
+            ret = printStatement();
+        } else if (match(TokenType.VAR)) {
+            ret = varStatement();
+        } else {
+            ret = exprStatement();
         }
-        return exprStatement();
+        ret.line = line;
+        return ret;
     }
 
-    private Stmt blockStatement() {
-        List<Stmt> ret = new ArrayList<>();
-        while (peek().type != TokenType.RIGHT_BRACE
-                && peek().type != TokenType.EOF) {
-            ret.add(statement());
+    /** gives the statement that was just parsed to the one it's inside, & gives that back if it's done too */
+    private Stmt finish(Deque<Waiting> waiting, Stmt inner) {
+        Waiting outer = waiting.peek();
+        Stmt ret;
+        switch (outer.kind) {
+            case LEFT_BRACE:
+                outer.content.add(inner);
+                return endBlock(waiting);
+            case IF:
+                if (match(TokenType.ELSE)) {
+                    outer.kind = TokenType.ELSE;
+                    outer.body = inner;
+                    return null;
+                }
+                ret = new Stmt.If(outer.condition, inner, null);
+                break;
+            case ELSE:
+                ret = new Stmt.If(outer.condition, outer.body, inner);
+                break;
+            case WHILE:
+                ret = new Stmt.While(outer.condition, inner);
+                break;
+            default:
+                ret = forLoop(outer, inner);
+                break;
+        }
+        waiting.pop();
+        ret.line = outer.line;
+        return ret;
+    }
+
+    /** finishes the block on top if it's over, otherwise gives null since there's another statement in it */
+    private Stmt endBlock(Deque<Waiting> waiting) {
+        if (peek() != TokenType.RIGHT_BRACE && peek() != TokenType.EOF) {
+            return null;
         }
         consume(TokenType.RIGHT_BRACE, "you have to uh terminate w/ a left brace lol");
-        return new Stmt.Block(ret);
+        Waiting block = waiting.pop();
+        Stmt ret = new Stmt.Block(block.content);
+        ret.line = block.line;
+        return ret;
     }
 
     private Stmt exprStatement() {
@@ -63,7 +233,9 @@ public class Parser {
         return new Stmt.Expression(expr);
     }
 
-    private Stmt forStatement() {
+    /** parses everything in the parens, the body comes after (see forLoop) */
+    private Waiting forStatement() {
+        int line = prev().line;
         consume(TokenType.LEFT_PAREN, "need a paren to start a for");
         Stmt init;
         if (match(TokenType.SEMICOLON)) {
@@ -73,39 +245,53 @@ public class Parser {
         } else {
             init = exprStatement();
         }
+        if (init != null) {
+            init.line = line;
+        }
 
         Expr condition = new Expr.Literal(true);
-        if (peek().type != TokenType.SEMICOLON) {
+        if (peek() != TokenType.SEMICOLON) {
             condition = expression();
         }
         consume(TokenType.SEMICOLON, "for condition needs to end w/ a ;");
 
         Expr post = null;
-        if (peek().type != TokenType.RIGHT_PAREN) {
+        if (peek() != TokenType.RIGHT_PAREN) {
             post = expression();
         }
         consume(TokenType.RIGHT_PAREN, "for loop needs to end w/ a paren");
 
-        Stmt toDo = statement();
+        Waiting ret = new Waiting(TokenType.FOR, line);
+        ret.body = init;
+        ret.condition = condition;
+        ret.post = post;
+        return ret;
+    }
+
+    /** turns the for loop into a while loop now that it has its body */
+    private Stmt forLoop(Waiting header, Stmt toDo) {
+        int line = header.line;
         Stmt loopPart = toDo;
-        if (post != null) {
-            loopPart = new Stmt.Block(Arrays.asList(toDo, new Stmt.Expression(post)));
+        // everything made up here counts as being on the line w/ the for
+        if (header.post != null) {
+            Stmt postStmt = new Stmt.Expression(header.post);
+            postStmt.line = line;
+            loopPart = new Stmt.Block(Arrays.asList(toDo, postStmt));
+            loopPart.line = line;
         }
-        Stmt loop = new Stmt.While(condition, loopPart);
-        if (init != null) {
-            loop = new Stmt.Block(Arrays.asList(init, loop));
+        Stmt loop = new Stmt.While(header.condition, loopPart);
+        loop.line = line;
+        if (header.body != null) {
+            loop = new Stmt.Block(Arrays.asList(header.body, loop));
         }
-
         return loop;
     }
 
-    private Stmt ifStatement() {
-        consume(TokenType.LEFT_PAREN, "if condition needs to be in parens");
-        Expr condition = expression();
-        consume(TokenType.RIGHT_PAREN, "if condition needs to be in parens");
-        Stmt thenDo = statement();
-        Stmt elseDo = match(TokenType.ELSE) ? statement() : null;
-        return new Stmt.If(condition, thenDo, elseDo);
+    private Stmt importStatement() {
+        consume(TokenType.STRING, "the file to import has to be a string");
+        Token path = prev();
+        consume(TokenType.SEMICOLON, "you need to end w/ a semicolon my guy");
+        return new Stmt.Import(path);
     }
 
     private Stmt printStatement() {
@@ -115,118 +301,218 @@ public class Parser {
     }
 
     private Stmt varStatement() {
-        Token name = consume(TokenType.IDENTIFIER, "you need a variable name lol");
+        consume(TokenType.IDENTIFIER, "you need a variable name lol");
+        Token name = prev();
         consume(TokenType.EQUAL, "missing = after variable?");
         Expr val = expression();
         consume(TokenType.SEMICOLON, "you need to end w/ a semicolon my guy");
         return new Stmt.Var(name, val);
     }
-
-    private Stmt whileStatement() {
-        consume(TokenType.LEFT_PAREN, "need parens for the while condition fam");
-        Expr condition = expression();
-        consume(TokenType.RIGHT_PAREN, "need parens for the while condition fam");
-        Stmt toDo = statement();
-        return new Stmt.While(condition, toDo);
-    }
     //endregion
 
     //region EXPRESSION parsing
+    /*
+     * this is still the same recursive descent as always, it just keeps its own stack:
+     * every level that's partway done (like a + that's waiting for its right side)
+     * goes on the arrays w/ what it has to do once the thing it's waiting for is done
+     */
     /** *basically* everything except the base literals */
     private Expr expression() {
-        return assignment();
-    }
-
-    /** more REassignment than actual assignment (a = 1, not var a = 1) */
-    private Expr assignment() {
-        Expr expr = or();
-        if (match(TokenType.EQUAL)) {
-            Token equals = prev();
-            if (expr instanceof Expr.Var) {
-                Expr val = or();
-                return new Expr.Assignment(((Expr.Var) expr).name, val);
+        depth = 0;
+        descend(ASSIGNMENT);
+        Expr done = null;
+        boolean postfix = false;  // if done can still have a [index] or .length after it
+        while (true) {
+            if (done == null) {
+                // we're at the bottom, so unary stuff & then the actual literals
+                if (match(TokenType.BANG, TokenType.MINUS)) {
+                    // like !bool or -bruh
+                    push(UNARY_RIGHT, null, prev());
+                    continue;
+                } else if (match(TokenType.LEFT_PAREN)) {
+                    push(GROUPING, null, null);
+                    descend(ASSIGNMENT);
+                    continue;
+                } else if (match(TokenType.LEFT_BRACKET)) {
+                    Token bracket = prev();
+                    Expr.ArrayLiteral array = new Expr.ArrayLiteral(bracket, new ArrayList<>());
+                    if (!match(TokenType.RIGHT_BRACKET)) {
+                        push(ARRAY_ITEM, array, bracket);
+                        descend(ASSIGNMENT);
+                        continue;
+                    }
+                    done = array;
+                } else {
+                    done = primary();
+                }
+                postfix = true;
+            }
+            if (postfix) {
+                // these go on whatever's right before them, so -a[0] is -(a[0])
+                if (match(TokenType.LEFT_BRACKET)) {
+                    push(INDEX, done, prev());
+                    descend(ASSIGNMENT);
+                    done = null;
+                    continue;
+                } else if (match(TokenType.DOT)) {
+                    consume(TokenType.IDENTIFIER, "you need a name after the .");
+                    Token name = prev();
+                    if (!name.lexeme.equals("length")) {
+                        throw error(name, "the only thing after a . can be length");
+                    }
+                    done = new Expr.Length(done, name);
+                    continue;
+                }
+                postfix = false;
+            }
+            if (depth == 0) {
+                return done;
             }
-            throw error(equals, "bruh you have to assign to a variable");
-        }
-        return expr;
-    }
-
-    /** parses the || token (lower priority than and) */
-    private Expr or() {
-        Expr curr = and();
-        if (match(TokenType.OR)) {
-            Token op = prev();
-            curr = new Expr.Logical(curr, op, and());
-        }
-        return curr;
-    }
-
-    /** parses the && stuff */
-    private Expr and() {
-        Expr curr = equality();
-        if (match(TokenType.AND)) {
-            Token op = prev();
-            curr = new Expr.Logical(curr, op, equality());
-        }
-        return curr;
-    }
-
-    /** == or !=, that's it */
-    private Expr equality() {
-        Expr curr = comparison();  // consume the left side tokens
-        while (match(TokenType.BANG_EQUAL, TokenType.EQUAL_EQUAL)) {
-            Token op = prev();
-            Expr right = comparison();
-            curr = new Expr.Binary(curr, op, right);
-        }
-        return curr;
-    }
-
-    /** <=, <, you know all that stuff */
-    private Expr comparison() {
-        Expr curr = term();
-        while (match(TokenType.LESS, TokenType.LESS_EQUAL,
-                TokenType.GREATER, TokenType.GREATER_EQUAL)) {
-            Token op = prev();
-            Expr right = term();
-            curr = new Expr.Binary(curr, op, right);
-        }
-        return curr;
-    }
 
-    /** addition/subtraction stuff */
-    private Expr term() {
-        Expr curr = factor();
-        while (match(TokenType.PLUS, TokenType.MINUS)) {
-            Token op = prev();
-            Expr right = factor();
-            curr = new Expr.Binary(curr, op, right);
+            depth--;
+            Expr left = lefts[depth];
+            Token op = ops[depth];
+            lefts[depth] = null;
+            switch (resume[depth]) {
+                case ASSIGNMENT:
+                    // more REassignment than actual assignment (a = 1, not var a = 1)
+                    if (match(TokenType.EQUAL)) {
+                        Token equals = prev();
+                        if (done instanceof Expr.Index) {
+                            push(INDEX_VAL, done, equals);
+                        } else if (done instanceof Expr.Var) {
+                            push(ASSIGN_VAL, null, ((Expr.Var) done).name);
+                        } else {
+                            throw error(equals, "bruh you have to assign to a variable (or a spot in an array)");
+                        }
+                        descend(OR);
+                        done = null;
+                    }
+                    break;
+                case OR:  // || is lower priority than &&, & there's only ever one of each
+                    if (match(TokenType.OR)) {
+                        push(OR_RIGHT, done, prev());
+                        descend(AND);
+                        done = null;
+                    }
+                    break;
+                case AND:
+                    if (match(TokenType.AND)) {
+                        push(AND_RIGHT, done, prev());
+                        descend(EQUALITY);
+                        done = null;
+                    }
+                    break;
+                case EQUALITY:  // == or !=, that's it
+                    if (match(TokenType.BANG_EQUAL, TokenType.EQUAL_EQUAL)) {
+                        push(EQUALITY_RIGHT, done, prev());
+                        descend(COMPARISON);
+                        done = null;
+                    }
+                    break;
+                case COMPARISON:  // <=, <, you know all that stuff
+                    if (match(TokenType.LESS, TokenType.LESS_EQUAL,
+                            TokenType.GREATER, TokenType.GREATER_EQUAL)) {
+                        push(COMPARISON_RIGHT, done, prev());
+                        descend(TERM);
+                        done = null;
+                    }
+                    break;
+                case TERM:  // addition/subtraction stuff
+                    if (match(TokenType.PLUS, TokenType.MINUS)) {
+                        push(TERM_RIGHT, done, prev());
+                        descend(FACTOR);
+                        done = null;
+                    }
+                    break;
+                case FACTOR:  // multiplication, division, & modulus
+                    if (match(TokenType.STAR, TokenType.SLASH, TokenType.MOD)) {
+                        push(FACTOR_RIGHT, done, prev());
+                        descend(FACTOR);
+                        done = null;
+                    }
+                    break;
+
+                case ASSIGN_VAL:
+                    done = new Expr.Assignment(op, done);
+                    break;
+                case INDEX_VAL: {
+                    Expr.Index target = (Expr.Index) left;
+                    done = new Expr.IndexAssignment(target.array, target.bracket, target.index, done);
+                    break;
+                }
+                case OR_RIGHT:
+                case AND_RIGHT:
+                    done = new Expr.Logical(left, op, done);
+                    break;
+                // these 3 keep going left to right, so they check for another one after
+                case EQUALITY_RIGHT:
+                    done = new Expr.Binary(left, op, done);
+                    push(EQUALITY, null, null);
+                    break;
+                case COMPARISON_RIGHT:
+                    done = new Expr.Binary(left, op, done);
+                    push(COMPARISON, null, null);
+                    break;
+                case TERM_RIGHT:
+                    done = new Expr.Binary(left, op, done);
+                    push(TERM, null, null);
+                    break;
+                // the right side already took all the *s after it, so these go right to left
+                case FACTOR_RIGHT:
+                    done = new Expr.Binary(left, op, done);
+                    break;
+                case UNARY_RIGHT:
+                    done = new Expr.Unary(op, done);
+                    break;
+                case ARRAY_ITEM: {
+                    Expr.ArrayLiteral array = (Expr.ArrayLiteral) left;
+                    array.items.add(done);
+                    if (match(TokenType.COMMA)) {
+                        push(ARRAY_ITEM, array, op);
+                        descend(ASSIGNMENT);
+                        done = null;
+                        break;
+                    }
+                    consume(TokenType.RIGHT_BRACKET, "you need a ] to end the array");
+                    done = array;
+                    postfix = true;
+                    break;
+                }
+                case INDEX:
+                    consume(TokenType.RIGHT_BRACKET, "you need a ] after the index");
+                    done = new Expr.Index(left, op, done);
+                    postfix = true;
+                    break;
+                default:  // GROUPING
+                    consume(TokenType.RIGHT_PAREN, "you need to complete your parentheses bruh");
+                    done = new Expr.Grouping(done);
+                    postfix = true;
+                    break;
+            }
         }
-        return curr;
     }
 
-    /** multiplication, division, & modulus */
-    private Expr factor() {
-        Expr curr = unary();
-        while (match(TokenType.STAR, TokenType.SLASH, TokenType.MOD)) {
-            Token op = prev();
-            Expr right = factor();
-            curr = new Expr.Binary(curr, op, right);
+    /** starts parsing an expression at that level, which means every level under it too */
+    private void descend(int level) {
+        for (int l = level; l <= FACTOR; l++) {
+            push(l, null, null);
         }
-        return curr;
     }
 
-    /** like !bool or -bruh */
-    private Expr unary() {
-        if (match(TokenType.BANG, TokenType.MINUS)) {
-            Token op = prev();
-            Expr right = unary();
-            return new Expr.Unary(op, right);
+    private void push(int step, Expr left, Token op) {
+        if (depth == resume.length) {
+            resume = Arrays.copyOf(resume, depth * 2);
+            lefts = Arrays.copyOf(lefts, depth * 2);
+            ops = Arrays.copyOf(ops, depth * 2);
         }
-        return primary();
+        resume[depth] = step;
+        lefts[depth] = left;
+        ops[depth] = op;
+        depth++;
     }
 
-    /** parses basically everything else (this is also where the recursion happens) */
+    /** the literals & variables (the parentheses are in expression) */
     private Expr primary() {
         if (match(TokenType.FALSE)) {
             return new Expr.Literal(false);
@@ -235,28 +521,24 @@ public class Parser {
         } else if (match(TokenType.NULL)) {
             return new Expr.Literal(null);
         } else if (match(TokenType.STRING, TokenType.NUMBER)) {
-            return new Expr.Literal(prev().literal);
-        } else if (match(TokenType.LEFT_PAREN)) {
-            Expr expr = expression();
-            consume(TokenType.RIGHT_PAREN, "you need to complete your parentheses bruh");
-            return new Expr.Grouping(expr);
+            return new Expr.Literal(tokens.literal(at - 1));
         } else if (match(TokenType.IDENTIFIER)) {
             return new Expr.Var(prev());
         }
-        throw error(peek(), "expected something");
+        throw error(tokens.token(at), "expected something");
     }
     //endregion
 
     /** checks if the current token is of the given type (errors if it doesn't lol) */
-    private Token consume(TokenType type, String msg) {
-        if (peek().type == type) {
-            return advance();
+    private void consume(TokenType type, String msg) {
+        if (peek() != type) {
+            throw error(tokens.token(at), msg);
         }
-        throw error(peek(), msg);
+        advance();
     }
 
     private ParseError error(Token token, String msg) {
-        ActualLang.error(token, msg);
+        errors.error(token, msg);
         return new ParseError();
     }
 
@@ -266,7 +548,7 @@ public class Parser {
      */
     private boolean match(TokenType... types) {
         for (TokenType t : types) {
-            if (peek().type == t) {
+            if (peek() == t) {
                 advance();
                 return true;
             }
@@ -274,15 +556,21 @@ public class Parser {
         return false;
     }
 
-    private Token peek() {
-        return tokens.get(at);
+    /** the type of the current token */
+    private TokenType peek() {
+        return tokens.type(at);
     }
 
-    private Token advance() {
-        return tokens.get(at++);
+    private void advance() {
+        if (tokens.type(at) != TokenType.EOF) {
+            at++;
+            // only the one we just went past might be needed again (for prev)
+            tokens.release(at - 1);
+        }
     }
 
+    /** the token we just went past, as an actual object */
     private Token prev() {
-        return tokens.get(at - 1);
+        return tokens.token(at - 1);
     }
 }
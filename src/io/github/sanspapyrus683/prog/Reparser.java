@@ -0,0 +1,302 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.inner.Expr;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.inner.Walk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * parses new versions of the same script over & over, only re-parsing the statements that changed
+ *
+ * it remembers where every top level statement was in the last version that parsed,
+ * then for a new version it finds where the changes start & end by comparing the two
+ * - statements before the changes are kept, unless there's an else right after them now
+ *   (an if only knows it's done once it sees what's after it, nothing else looks past its end)
+ * - it parses from there until it gets to a statement that starts past the changes
+ *   & lines up w/ the start of an old statement, then the rest of the old ones get kept too
+ *   (w/ their lines moved if lines got added or removed)
+ * the tokenizer & parser don't look at anything but where they are, so starting over from
+ * the same spot in the same text always gives the same statements
+ */
+public class Reparser {
+    /** a top level statement & where it was */
+    private static final class Piece {
+        final Stmt stmt;
+        final int start;
+        final int end;  /** one past the last character */
+        final int line;
+        final int endLine;
+
+        Piece(Stmt stmt, int start, int end, int line, int endLine) {
+            this.stmt = stmt;
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.endLine = endLine;
+        }
+    }
+
+    /** copies a tree w/ every line moved by the same amount (w/o recursing, the copies of what's inside are on a stack) */
+    private static final class Relined implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+        private final int by;
+        private final List<Object> done = new ArrayList<>();
+
+        Relined(int by) {
+            this.by = by;
+        }
+
+        Stmt copy(Stmt stmt) {
+            Walk.after(stmt, this, this);
+            return (Stmt) done.remove(0);
+        }
+
+        private Token token(Token t) {
+            return new Token(t.type, t.lexeme, t.literal, t.line + by);
+        }
+
+        private Expr expr() {
+            return (Expr) done.remove(done.size() - 1);
+        }
+
+        private Stmt stmt() {
+            return (Stmt) done.remove(done.size() - 1);
+        }
+
+        private <T> T push(T made) {
+            done.add(made);
+            return made;
+        }
+
+        private Stmt line(Stmt made, Stmt from) {
+            made.line = from.line + by;
+            return push(made);
+        }
+
+        //region statements
+        @Override
+        public Stmt visitBlock(Stmt.Block stmt) {
+            List<Object> inside = done.subList(done.size() - stmt.content.size(), done.size());
+            List<Stmt> content = new ArrayList<>();
+            for (Object s : inside) {
+                content.add((Stmt) s);
+            }
+            inside.clear();
+            return line(new Stmt.Block(content), stmt);
+        }
+
+        @Override
+        public Stmt visitExpr(Stmt.Expression stmt) {
+            return line(new Stmt.Expression(expr()), stmt);
+        }
+
+        @Override
+        public Stmt visitIf(Stmt.If stmt) {
+            Stmt elseDo = stmt.elseDo == null ? null : stmt();
+            Stmt thenDo = stmt();
+            return line(new Stmt.If(expr(), thenDo, elseDo), stmt);
+        }
+
+        @Override
+        public Stmt visitImport(Stmt.Import stmt) {
+            return line(new Stmt.Import(token(stmt.path)), stmt);
+        }
+
+        @Override
+        public Stmt visitPrint(Stmt.Print stmt) {
+            return line(new Stmt.Print(expr()), stmt);
+        }
+
+        @Override
+        public Stmt visitVar(Stmt.Var stmt) {
+            return line(new Stmt.Var(token(stmt.name), expr()), stmt);
+        }
+
+        @Override
+        public Stmt visitWhile(Stmt.While stmt) {
+            Stmt toDo = stmt();
+            return line(new Stmt.While(expr(), toDo), stmt);
+        }
+        //endregion
+
+        //region expressions
+        @Override
+        public Expr visitAssignmentExpr(Expr.Assignment expr) {
+            return push(new Expr.Assignment(token(expr.assignTo), expr()));
+        }
+
+        @Override
+        public Expr visitBinaryExpr(Expr.Binary expr) {
+            Expr right = expr();
+            return push(new Expr.Binary(expr(), token(expr.op), right));
+        }
+
+        @Override
+        public Expr visitLiteralExpr(Expr.Literal expr) {
+            return push(expr);
+        }
+
+        @Override
+        public Expr visitGroupingExpr(Expr.Grouping expr) {
+            return push(new Expr.Grouping(expr()));
+        }
+
+        @Override
+        public Expr visitLogicalExpr(Expr.Logical expr) {
+            Expr right = expr();
+            return push(new Expr.Logical(expr(), token(expr.op), right));
+        }
+
+        @Override
+        public Expr visitUnaryExpr(Expr.Unary expr) {
+            return push(new Expr.Unary(token(expr.op), expr()));
+        }
+
+        @Override
+        public Expr visitVarExpr(Expr.Var expr) {
+            return push(new Expr.Var(token(expr.name)));
+        }
+
+        @Override
+        public Expr visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+            List<Object> inside = done.subList(done.size() - expr.items.size(), done.size());
+            List<Expr> items = new ArrayList<>();
+            for (Object item : inside) {
+                items.add((Expr) item);
+            }
+            inside.clear();
+            return push(new Expr.ArrayLiteral(token(expr.bracket), items));
+        }
+
+        @Override
+        public Expr visitIndexExpr(Expr.Index expr) {
+            Expr index = expr();
+            return push(new Expr.Index(expr(), token(expr.bracket), index));
+        }
+
+        @Override
+        public Expr visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+            Expr val = expr();
+            Expr index = expr();
+            return push(new Expr.IndexAssignment(expr(), token(expr.bracket), index, val));
+        }
+
+        @Override
+        public Expr visitLengthExpr(Expr.Length expr) {
+            return push(new Expr.Length(expr(), token(expr.name)));
+        }
+        //endregion
+    }
+
+    private String src = "";  /** the last version that parsed w/o errors */
+    private List<Piece> pieces = new ArrayList<>();
+    private int parsed = 0;  /** how many statements the last call actually had to parse */
+
+    /**
+     * parses the new version, check the diagnostics to see if it worked
+     * if it didn't, the next version still gets compared to the last one that did
+     */
+    public List<Stmt> parse(String newSrc, Diagnostics diagnostics) {
+        int prefix = 0;
+        int most = Math.min(src.length(), newSrc.length());
+        while (prefix < most && src.charAt(prefix) == newSrc.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < most - prefix
+                && src.charAt(src.length() - 1 - suffix) == newSrc.charAt(newSrc.length() - 1 - suffix)) {
+            suffix++;
+        }
+        int moved = newSrc.length() - src.length();
+        // everything from here on is the same as before
+        int changedEnd = newSrc.length() - suffix;
+
+        int keep = 0;
+        while (keep < pieces.size() && pieces.get(keep).end <= prefix) {
+            keep++;
+        }
+        for (; keep > 0; keep--) {
+            // this one gets thrown out, it's just to look at the next token w/o reporting anything twice
+            Parser peek = new Parser(startAfter(newSrc, keep, new Diagnostics()), new Diagnostics());
+            if (peek.nextType() != TokenType.ELSE) {
+                break;
+            }
+        }
+        List<Piece> made = new ArrayList<>(pieces.subList(0, keep));
+
+        Parser parser = new Parser(startAfter(newSrc, keep, diagnostics), diagnostics);
+        parsed = 0;
+        while (!parser.atEnd()) {
+            int start = parser.nextStart();
+            int startLine = parser.nextLine();
+            if (start >= changedEnd) {
+                int old = pieceAt(start - moved);
+                if (old >= 0) {
+                    int lines = startLine - pieces.get(old).line;
+                    for (Piece p : pieces.subList(old, pieces.size())) {
+                        made.add(shift(p, moved, lines));
+                    }
+                    break;
+                }
+            }
+            Stmt stmt = parser.next();
+            if (stmt == null) {
+                break;
+            }
+            made.add(new Piece(stmt, start, parser.lastEnd(), startLine, parser.lastLine()));
+            parsed++;
+        }
+
+        List<Stmt> ret = new ArrayList<>();
+        for (Piece p : made) {
+            ret.add(p.stmt);
+        }
+        if (!diagnostics.hadError()) {
+            src = newSrc;
+            pieces = made;
+        }
+        return ret;
+    }
+
+    /** how many statements the last parse had to actually parse (the rest were reused) */
+    public int parsed() {
+        return parsed;
+    }
+
+    /** a tokenizer that picks up right after the first few old pieces */
+    private Tokenizer startAfter(String newSrc, int pieceCount, Diagnostics diagnostics) {
+        if (pieceCount == 0) {
+            return new Tokenizer(newSrc, diagnostics);
+        }
+        Piece last = pieces.get(pieceCount - 1);
+        return new Tokenizer(newSrc, last.end, last.endLine, diagnostics);
+    }
+
+    /** the index of the old piece that starts exactly there, or -1 */
+    private int pieceAt(int start) {
+        int lo = 0;
+        int hi = pieces.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = pieces.get(mid).start;
+            if (at == start) {
+                return mid;
+            } else if (at < start) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static Piece shift(Piece p, int chars, int lines) {
+        if (chars == 0 && lines == 0) {
+            return p;
+        }
+        Stmt stmt = lines == 0 ? p.stmt : new Relined(lines).copy(p.stmt);
+        return new Piece(stmt, p.start + chars, p.end + chars, p.line + lines, p.endLine + lines);
+    }
+}
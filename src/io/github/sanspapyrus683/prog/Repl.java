@@ -0,0 +1,124 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.Environment;
+import io.github.sanspapyrus683.prog.inner.Interpreter;
+import io.github.sanspapyrus683.prog.inner.Optimizer;
+import io.github.sanspapyrus683.prog.inner.Resolver;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.output.Output;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * type stuff in & it runs right away
+ * it's the same interpreter, variables, & resolver the whole time, so only the new code gets parsed
+ * & everything that got warmed up by the jit stays warm
+ *
+ * if what you typed isn't a whole statement yet (like an open {), it waits for more lines
+ * (or until you give it an empty one)
+ * the tree interpreter is the only one that can keep going like this
+ */
+public class Repl {
+    /** remembers if the parser ran off the end (so the chunk just isn't done yet) */
+    private static class Chunk extends Diagnostics {
+        private boolean ranOut = false;
+
+        @Override
+        public void error(int line, String where, String msg) {
+            if (where.equals(" at end")) {
+                ranOut = true;
+            }
+            super.error(line, where, msg);
+        }
+    }
+
+    /** the resolver & interpreter stick around, so this sends their errors to whatever chunk is running */
+    private static class Forward implements ErrorReporter {
+        private Diagnostics to;
+
+        @Override
+        public void error(int line, String where, String msg) {
+            to.error(line, where, msg);
+        }
+
+        @Override
+        public void runtimeError(RuntimeError error) {
+            to.runtimeError(error);
+        }
+    }
+
+    private final Forward errors = new Forward();
+    private final Resolver resolver = new Resolver(errors);
+    private final Modules modules = new Modules(Modules.PARSE);  /** so a module only gets imported once the whole time */
+    private final Interpreter interpreter;
+    private final Output out;
+    private final StringBuilder pending = new StringBuilder();  /** the lines of a chunk that isn't done yet */
+    private int line = 1;  /** the line the pending chunk starts on (lines keep counting up the whole time) */
+    private int pendingLines = 0;
+
+    public Repl(Output out) {
+        this.out = out;
+        this.interpreter = new Interpreter(new Environment(), out, errors);
+    }
+
+    /**
+     * adds a line & runs it if that finishes a chunk
+     * everything that went wrong is in what it gives back (a chunk w/ a compile error doesn't run at all)
+     */
+    public Diagnostics feed(String input) {
+        pending.append(input).append('\n');
+        pendingLines++;
+        Chunk chunk = new Chunk();
+        List<Stmt> statements = new Parser(new Tokenizer(pending, 0, line, chunk), chunk).parse();
+        // a blank line means give up on it & just show the errors
+        if (chunk.ranOut && !input.isBlank()) {
+            return new Diagnostics();  // wait for the rest of it
+        }
+        line += pendingLines;
+        pending.setLength(0);
+        pendingLines = 0;
+        if (chunk.hadError()) {
+            return chunk;
+        }
+
+        // imports are relative to where the repl's running
+        statements = modules.link(null, statements, chunk);
+        if (chunk.hadError()) {
+            return chunk;
+        }
+        errors.to = chunk;
+        resolver.resolve(statements);
+        if (!chunk.hadError()) {
+            interpreter.interpret(new Optimizer().optimize(statements));
+        }
+        out.flush();
+        return chunk;
+    }
+
+    /** if the last line didn't finish a chunk */
+    public boolean continuing() {
+        return pendingLines > 0;
+    }
+
+    /** the actual interactive part, keeps going until the input ends */
+    public void run(BufferedReader in, PrintStream console) throws IOException {
+        while (true) {
+            console.print(continuing() ? "... " : "> ");
+            console.flush();
+            String input = in.readLine();
+            if (input == null) {
+                break;
+            }
+            for (String msg : feed(input).messages()) {
+                console.println(msg);
+            }
+        }
+        console.println();
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.sanspapyrus683.prog;
+
+import java.util.Arrays;
+
+/**
+ * all the tokens, but stored as a bunch of int arrays instead of one object each
+ * lexemes aren't copied out of the source, you just get a view into it
+ *
+ * it gets filled by the tokenizer as the parser asks for tokens,
+ * & once the parser says it's done w/ some it drops them to make room
+ */
+public class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final Tokenizer tokenizer;
+    private int[] types = new int[256];  /** the ordinal of each token's type */
+    private int[] starts = new int[256];  /** where each one starts in the source */
+    private int[] lengths = new int[256];
+    private int[] lines = new int[256];
+    private long[] numbers = new long[256];  /** the value if it's a number (so it doesn't get boxed), doubles are their bits */
+    private boolean[] wholes = new boolean[256];  /** if the number's a long instead of a double */
+    private int first = 0;  /** the index of whatever token's in slot 0 */
+    private int size = 0;  /** how many tokens have been scanned in total */
+    private int keepFrom = 0;  /** the first token that's still needed */
+    private boolean done = false;  /** if the EOF's been added */
+
+    TokenBuffer(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    //region reading tokens (all the indices are just the nth token in the source)
+    public TokenType type(int i) {
+        return TYPES[types[slot(i)]];
+    }
+
+    public int line(int i) {
+        return lines[slot(i)];
+    }
+
+    public int start(int i) {
+        return starts[slot(i)];
+    }
+
+    public int length(int i) {
+        return lengths[slot(i)];
+    }
+
+    public double number(int i) {
+        int s = slot(i);
+        return wholes[s] ? numbers[s] : Double.longBitsToDouble(numbers[s]);
+    }
+
+    /** the text of the token, only good until the token gets released */
+    public CharSequence lexeme(int i) {
+        int s = slot(i);
+        return tokenizer.view(starts[s], lengths[s]);
+    }
+
+    /** what the literal would be (a Long, a Double, the string w/o quotes, or null) */
+    public Object literal(int i) {
+        int s = slot(i);
+        switch (TYPES[types[s]]) {
+            case NUMBER: return wholes[s] ? (Object) numbers[s] : Double.longBitsToDouble(numbers[s]);
+            case STRING: return tokenizer.view(starts[s] + 1, lengths[s] - 2).toString();
+            default: return null;
+        }
+    }
+
+    /** makes an actual Token object, only do this for the ones the AST keeps */
+    public Token token(int i) {
+        return new Token(type(i), lexeme(i).toString(), literal(i), line(i));
+    }
+    //endregion
+
+    /** how many tokens have been scanned so far (the EOF counts) */
+    public int scanned() {
+        return size;
+    }
+
+    /** tokens before i aren't gonna be looked at again */
+    public void release(int i) {
+        keepFrom = Math.max(keepFrom, i);
+    }
+
+    /** where the oldest token that's still kept starts (so the tokenizer knows what source it can throw out) */
+    int keptStart(int fallback) {
+        return keepFrom < size ? starts[keepFrom - first] : fallback;
+    }
+
+    void add(TokenType type, int start, int length, int line, long number, boolean whole) {
+        if (size - first == types.length) {
+            makeRoom();
+        }
+        int s = size++ - first;
+        types[s] = type.ordinal();
+        starts[s] = start;
+        lengths[s] = length;
+        lines[s] = line;
+        numbers[s] = number;
+        wholes[s] = whole;
+        if (type == TokenType.EOF) {
+            done = true;
+        }
+    }
+
+    /** gets the slot of the token, scanning up to it if it hasn't been yet */
+    private int slot(int i) {
+        while (i >= size) {
+            if (done) {
+                return size - 1 - first;  // past the end is just more EOF
+            }
+            tokenizer.scanToken();
+        }
+        return i - first;
+    }
+
+    private void makeRoom() {
+        // slide the stuff that's still needed to the front if that frees up enough
+        int drop = keepFrom - first;
+        int kept = size - keepFrom;
+        if (drop > 0 && kept < types.length / 2) {
+            shift(types, drop, kept);
+            shift(starts, drop, kept);
+            shift(lengths, drop, kept);
+            shift(lines, drop, kept);
+            System.arraycopy(numbers, drop, numbers, 0, kept);
+            System.arraycopy(wholes, drop, wholes, 0, kept);
+            first = keepFrom;
+            return;
+        }
+        int cap = types.length * 2;
+        types = Arrays.copyOf(types, cap);
+        starts = Arrays.copyOf(starts, cap);
+        lengths = Arrays.copyOf(lengths, cap);
+        lines = Arrays.copyOf(lines, cap);
+        numbers = Arrays.copyOf(numbers, cap);
+        wholes = Arrays.copyOf(wholes, cap);
+    }
+
+    private static void shift(int[] arr, int drop, int kept) {
+        System.arraycopy(arr, drop, arr, 0, kept);
+    }
+}
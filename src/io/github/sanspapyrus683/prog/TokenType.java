@@ -2,7 +2,7 @@ package io.github.sanspapyrus683.prog;
 
 public enum TokenType {
     // Single-character tokens.
-    LEFT_PAREN, RIGHT_PAREN, LEFT_BRACE, RIGHT_BRACE,
+    LEFT_PAREN, RIGHT_PAREN, LEFT_BRACE, RIGHT_BRACE, LEFT_BRACKET, RIGHT_BRACKET,
     COMMA, DOT, MINUS, MOD, PLUS, SEMICOLON, SLASH, STAR,
 
     // One or two character tokens.
@@ -15,7 +15,7 @@ public enum TokenType {
     IDENTIFIER, STRING, NUMBER,
 
     // Keywords.
-    AND, ELSE, FALSE, FOR, IF, NULL, OR,
+    AND, ELSE, FALSE, FOR, IF, IMPORT, NULL, OR,
     PRINT, TRUE, VAR, WHILE,
 
     EOF
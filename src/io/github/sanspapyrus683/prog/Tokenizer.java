@@ -1,9 +1,23 @@
 package io.github.sanspapyrus683.prog;
 
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * turns characters into tokens, one at a time as the parser asks for them
+ * it can go over a string or anything else that's a CharSequence,
+ * or it can read from a Reader through a little window so the source never has to be in memory all at once
+ *
+ * the tokens go into a TokenBuffer, see that for how they're stored
+ */
 public class Tokenizer {
     private static final Map<String, TokenType> keywords = Map.ofEntries(
             Map.entry("and", TokenType.AND),
@@ -11,6 +25,7 @@ public class Tokenizer {
             Map.entry("false", TokenType.FALSE),
             Map.entry("for", TokenType.FOR),
             Map.entry("if", TokenType.IF),
+            Map.entry("import", TokenType.IMPORT),
             Map.entry("null", TokenType.NULL),
             Map.entry("or", TokenType.OR),
             Map.entry("print", TokenType.PRINT),
@@ -18,33 +33,102 @@ public class Tokenizer {
             Map.entry("var", TokenType.VAR),
             Map.entry("while", TokenType.WHILE)
     );
+    /*
+     * (first char + last char + 3 * length) % 32 happens to be different for every keyword,
+     * so that's where each one goes & checking a word is just one lookup
+     */
+    private static final String[] keywordTable = new String[32];
+    private static final TokenType[] keywordTypes = new TokenType[32];
+    static {
+        for (Map.Entry<String, TokenType> kw : keywords.entrySet()) {
+            String word = kw.getKey();
+            int h = keywordHash(word.charAt(0), word.charAt(word.length() - 1), word.length());
+            if (keywordTable[h] != null) {
+                throw new IllegalStateException("keyword hash collision between " + word + " & " + keywordTable[h]);
+            }
+            keywordTable[h] = word;
+            keywordTypes[h] = kw.getValue();
+        }
+    }
+    /** the powers of 10 that a double can hold exactly */
+    private static final double[] pow10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
-    private final String src;
-    private final List<Token> tokens = new ArrayList<>();
+    private final CharSequence src;  /** null if we're reading from a Reader */
+    private final Reader reader;
+    private final ErrorReporter errors;
+    private char[] window;  /** the bit of the reader's stuff we have right now */
+    private int windowStart = 0;  /** where in the whole source window[0] is */
+    private int windowEnd = 0;  /** one past the last character we've read in */
+    private boolean readerDone = false;
+
+    private final TokenBuffer tokens = new TokenBuffer(this);
+    private boolean added;  /** if the last character scanned made a token */
     private int prev = 0;  /** where we left off */
     private int at = 0;  /** the current character we're at */
     private int line = 1;  /** current line number */
 
-    public Tokenizer(String src) {
+    public Tokenizer(CharSequence src, ErrorReporter errors) {
+        this(src, 0, 1, errors);
+    }
+
+    /** starts partway into src, for when everything before from has already been parsed */
+    public Tokenizer(CharSequence src, int from, int line, ErrorReporter errors) {
         this.src = src;
+        this.reader = null;
+        this.errors = errors;
+        this.prev = from;
+        this.at = from;
+        this.line = line;
     }
 
+    public Tokenizer(Reader reader, ErrorReporter errors) {
+        this.src = null;
+        this.reader = reader;
+        this.errors = errors;
+        this.window = new char[8192];
+    }
+
+    /** where the tokens end up, they get scanned as you read them from it */
+    public TokenBuffer tokens() {
+        return tokens;
+    }
+
+    /** just scans everything at once */
     public List<Token> scanTokens() {
-        while (!isAtEnd()) {
+        List<Token> res = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            res.add(tokens.token(i));
+            if (tokens.type(i) == TokenType.EOF) {
+                return res;
+            }
+        }
+    }
+
+    /** keeps going until there's another token in the buffer (EOF counts) */
+    void scanToken() {
+        added = false;
+        while (!added) {
+            if (isAtEnd()) {
+                tokens.add(TokenType.EOF, at, 0, line, 0, false);
+                return;
+            }
             prev = at;
-            scanToken();
+            scanChar();
         }
-        tokens.add(new Token(TokenType.EOF, "", null, line));
-        return tokens;
     }
 
-    private void scanToken() {
+    private void scanChar() {
         char c = advance();
         switch (c) {
             case '(': addToken(TokenType.LEFT_PAREN); break;
             case ')': addToken(TokenType.RIGHT_PAREN); break;
             case '{': addToken(TokenType.LEFT_BRACE); break;
             case '}': addToken(TokenType.RIGHT_BRACE); break;
+            case '[': addToken(TokenType.LEFT_BRACKET); break;
+            case ']': addToken(TokenType.RIGHT_BRACKET); break;
             case ',': addToken(TokenType.COMMA); break;
             case '.': addToken(TokenType.DOT); break;
             case '-': addToken(TokenType.MINUS); break;
@@ -79,7 +163,7 @@ public class Tokenizer {
                 } else if (isAlpha(c)) {
                     handleIdentifier();
                 } else {
-                    ActualLang.error(line, "wth is " + c);
+                    errors.error(line, "wth is " + c);
                 }
         }
     }
@@ -93,11 +177,11 @@ public class Tokenizer {
             advance();
         }
         if (isAtEnd()) {
-            ActualLang.error(line, "you didn't complete the string...");
+            errors.error(line, "you didn't complete the string...");
             return;
         }
         advance();  // that other " to close the string
-        addToken(TokenType.STRING, src.substring(prev + 1, at - 1));
+        addToken(TokenType.STRING);
     }
 
     private void handleNumber() {
@@ -107,15 +191,83 @@ public class Tokenizer {
         if (peek() == '.' && Character.isDigit(peekNext())) {
             advance();
             for (; Character.isDigit(peek()); advance()) ;
+            addToken(TokenType.NUMBER, Double.doubleToRawLongBits(number(prev, at)), false);
+            return;
+        }
+        whole(prev, at);
+    }
+
+    /** adds a number w/o a decimal point, it's a long unless it's too big for one (then it's a double like always) */
+    private void whole(int start, int end) {
+        // 18 digits always fits
+        if (end - start <= 18) {
+            long val = 0;
+            for (int i = start; i < end; i++) {
+                val = val * 10 + (charAt(i) - '0');
+            }
+            addToken(TokenType.NUMBER, val, true);
+            return;
+        }
+        String digits = view(start, end - start).toString();
+        try {
+            addToken(TokenType.NUMBER, Long.parseLong(digits), true);
+        } catch (NumberFormatException e) {
+            addToken(TokenType.NUMBER, Double.doubleToRawLongBits(Double.parseDouble(digits)), false);
         }
-        addToken(TokenType.NUMBER, Double.parseDouble(src.substring(prev, at)));
     }
 
     private void handleIdentifier() {
         for (; isAlphanumeric(peek()); advance());
         // change the token type if the word is something like if or for
-        TokenType type = keywords.getOrDefault(src.substring(prev, at), TokenType.IDENTIFIER);
-        addToken(type);
+        addToken(keyword(prev, at));
+    }
+
+    private TokenType keyword(int start, int end) {
+        int len = end - start;
+        if (len < 2 || len > 6) {
+            return TokenType.IDENTIFIER;
+        }
+        int h = keywordHash(charAt(start), charAt(end - 1), len);
+        String word = keywordTable[h];
+        if (word == null || word.length() != len) {
+            return TokenType.IDENTIFIER;
+        }
+        for (int i = 0; i < len; i++) {
+            if (word.charAt(i) != charAt(start + i)) {
+                return TokenType.IDENTIFIER;
+            }
+        }
+        return keywordTypes[h];
+    }
+
+    private static int keywordHash(char first, char last, int len) {
+        return (first + last + 3 * len) & 31;
+    }
+
+    /**
+     * if there's few enough digits, the digits as a long & one division by a power of 10
+     * gives the exact same thing parseDouble would (w/o having to make a string first)
+     */
+    private double number(int start, int end) {
+        long digits = 0;
+        int digitCount = 0;
+        int decimals = -1;
+        for (int i = start; i < end; i++) {
+            char c = charAt(i);
+            if (c == '.') {
+                decimals = 0;
+                continue;
+            }
+            digits = digits * 10 + (c - '0');
+            digitCount++;
+            if (decimals >= 0) {
+                decimals++;
+            }
+        }
+        if (digitCount <= 15 && decimals < pow10.length) {
+            return decimals <= 0 ? digits : digits / pow10[decimals];
+        }
+        return Double.parseDouble(view(start, end - start).toString());
     }
     //endregion
 
@@ -131,7 +283,7 @@ public class Tokenizer {
     //region checks & gets the characters or whatever
     /** returns the current character & advances the pointer */
     private char advance() {
-        return src.charAt(at++);
+        return charAt(at++);
     }
 
     private boolean match(char c) {
@@ -145,24 +297,77 @@ public class Tokenizer {
     }
 
     private char peek() {
-        return isAtEnd() ? '\0' : src.charAt(at);
+        return isAtEnd() ? '\0' : charAt(at);
     }
 
     private char peekNext() {
-        return at + 1 >= src.length() ? '\0' : src.charAt(at + 1);
+        return !has(at + 1) ? '\0' : charAt(at + 1);
     }
 
     private boolean isAtEnd() {
-        return at >= src.length();
+        return !has(at);
+    }
+    //endregion
+
+    //region deals w/ where the characters actually come from
+    /** only call this after has(i) said yes */
+    private char charAt(int i) {
+        return src != null ? src.charAt(i) : window[i - windowStart];
+    }
+
+    /** the source from start on, w/o copying it (only good while the tokens there are kept) */
+    CharSequence view(int start, int len) {
+        if (src != null) {
+            return CharBuffer.wrap(src, start, start + len);
+        }
+        return CharBuffer.wrap(window, start - windowStart, len);
+    }
+
+    /** checks if there's a character at i, reading more in if it has to */
+    private boolean has(int i) {
+        if (src != null) {
+            return i < src.length();
+        }
+        return i < windowEnd || fill(i);
+    }
+
+    private boolean fill(int i) {
+        try {
+            while (i >= windowEnd && !readerDone) {
+                // anything before the tokens that are still kept isn't needed anymore
+                int keep = Math.min(tokens.keptStart(prev), prev);
+                int used = windowEnd - windowStart;
+                if (keep > windowStart) {
+                    int drop = keep - windowStart;
+                    System.arraycopy(window, drop, window, 0, used - drop);
+                    windowStart = keep;
+                    used -= drop;
+                }
+                // the token's bigger than the whole window (prob a huge string)
+                if (used == window.length) {
+                    window = Arrays.copyOf(window, window.length * 2);
+                }
+                int amt = reader.read(window, used, window.length - used);
+                if (amt < 0) {
+                    readerDone = true;
+                } else {
+                    windowEnd += amt;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return i < windowEnd;
     }
     //endregion
 
     private void addToken(TokenType type) {
-        addToken(type, null);
+        addToken(type, 0, false);
     }
 
-    private void addToken(TokenType type, Object literal) {
-        String content = src.substring(prev, at);
-        tokens.add(new Token(type, content, literal, line));
+    /** the number's either a long or the bits of a double, whichever whole says */
+    private void addToken(TokenType type, long number, boolean whole) {
+        tokens.add(type, prev, at - prev, line, number, whole);
+        added = true;
     }
 }
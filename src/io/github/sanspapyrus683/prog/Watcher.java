@@ -0,0 +1,91 @@
+package io.github.sanspapyrus683.prog;
+
+import io.github.sanspapyrus683.prog.errors.CompileError;
+import io.github.sanspapyrus683.prog.errors.Diagnostics;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.output.Output;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+
+/**
+ * runs a script again every time the file changes, until you kill it
+ * only the statements that changed get parsed again (see Reparser),
+ * & it's all in the same jvm so whatever the jit did for the last run is still there
+ * every run still starts w/ fresh variables, like running the file normally would
+ */
+public class Watcher {
+    private final Path file;
+    private final Engine engine;
+    private final Output out;
+    private final PrintStream console;  /** where the errors & the stuff about each run go */
+    private final Reparser reparser = new Reparser();
+
+    public Watcher(Path file, Engine engine, Output out, PrintStream console) {
+        this.file = file;
+        this.engine = engine;
+        this.out = out;
+        this.console = console;
+    }
+
+    public void run() throws IOException, InterruptedException {
+        Path dir = file.toAbsolutePath().getParent();
+        try (WatchService watch = dir.getFileSystem().newWatchService()) {
+            // watching the directory catches editors that save by replacing the whole file
+            dir.register(watch, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            String last = null;
+            while (true) {
+                String src = read();
+                if (src != null && !src.equals(last)) {
+                    last = src;
+                    runOnce(src);
+                }
+                WatchKey key = watch.take();
+                Thread.sleep(50);  // saving can take a couple of writes, let them all happen
+                key.pollEvents();
+                key.reset();
+            }
+        }
+    }
+
+    private void runOnce(String src) {
+        long start = System.nanoTime();
+        Diagnostics parseErrors = new Diagnostics();
+        List<Stmt> statements = reparser.parse(src, parseErrors);
+        console.printf("== %s (parsed %d of %d statements)%n", file, reparser.parsed(), statements.size());
+        List<String> messages;
+        if (parseErrors.hadError()) {
+            messages = parseErrors.messages();
+        } else {
+            try {
+                messages = engine.compile(file, statements).execute(out).messages();
+            } catch (CompileError e) {
+                messages = e.messages;
+            }
+        }
+        for (String msg : messages) {
+            console.println(msg);
+        }
+        console.printf("== done in %.1f ms, waiting for changes%n", (System.nanoTime() - start) / 1e6);
+    }
+
+    /** the file w/ its line endings changed the same way MappedSource does, or null if it's not there right now */
+    private String read() throws IOException {
+        String src;
+        try {
+            src = new String(Files.readAllBytes(file), Charset.defaultCharset());
+        } catch (NoSuchFileException e) {
+            return null;  // prob in the middle of getting saved
+        }
+        src = src.replace("\r\n", "\n").replace('\r', '\n');
+        return src.isEmpty() || src.endsWith("\n") ? src : src + "\n";
+    }
+}
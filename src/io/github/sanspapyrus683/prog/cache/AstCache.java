@@ -0,0 +1,157 @@
+package io.github.sanspapyrus683.prog.cache;
+
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * saves parsed scripts to a directory so running the same script again can skip tokenizing & parsing
+ * each file's named after the SHA-256 of the script's source
+ *
+ * the format is:
+ * MAGIC, VERSION, how many token types there are, the source hash,
+ * then every node after everything inside it (the same order inner.Walk goes in), each one a tag byte followed by
+ * its own parts (its tokens, the line for statements, & how many things are inside for blocks & arrays), then END,
+ * then MAGIC again
+ * that way neither side has to recurse, & reading it back is just building each node out of the ones before it
+ * strings are written once & referred to by index after that
+ *
+ * if a file's from an old version or is messed up in any way it just gets ignored & deleted,
+ * & nothing that goes wrong here ever stops a script from running
+ */
+public class AstCache {
+    private static final int MAGIC = 0x4c434143;  /** "LCAC" */
+    /** bump this whenever the format or the AST classes change */
+    private static final int VERSION = 6;
+
+    //region the tags for each kind of node (& value)
+    static final int BLOCK = 1;  /** how many statements are in it (after the line) */
+    static final int EXPRESSION = 2;
+    static final int IF = 3;  /** whether it has an else (after the line) */
+    static final int PRINT = 4;
+    static final int VAR_STMT = 5;
+    static final int WHILE = 6;
+    static final int END = 7;  /** after the last statement */
+    static final int IMPORT = 8;
+
+    static final int ASSIGNMENT = 16;
+    static final int BINARY = 17;
+    static final int LITERAL = 18;
+    static final int GROUPING = 19;
+    static final int LOGICAL = 20;
+    static final int UNARY = 21;
+    static final int VAR_EXPR = 22;
+    static final int ARRAY = 23;  /** the [ & how many items */
+    static final int INDEX = 24;
+    static final int INDEX_ASSIGNMENT = 25;
+    static final int LENGTH = 26;
+
+    static final int NULL = 32;
+    static final int NUMBER = 33;
+    static final int STRING = 34;
+    static final int TRUE = 35;
+    static final int FALSE = 36;
+    static final int WHOLE = 37;  /** a Long, NUMBER's a Double */
+    //endregion
+
+    private final Path dir;
+
+    public AstCache(Path dir) {
+        this.dir = dir;
+    }
+
+    /** the default place, ~/.cache/language-crap */
+    public static AstCache inHome() {
+        return new AstCache(Path.of(System.getProperty("user.home"), ".cache", "language-crap"));
+    }
+
+    /** SHA-256 of the whole file, mapped a big chunk at a time */
+    public static byte[] hash(FileChannel channel) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("every JVM has to have SHA-256", e);
+        }
+        long size = channel.size();
+        for (long at = 0; at < size; ) {
+            long len = Math.min(size - at, 1L << 30);
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, at, len));
+            at += len;
+        }
+        return digest.digest();
+    }
+
+    /** the cached statements for a script w/ this hash, or null if there aren't any (usable ones) */
+    public List<Stmt> load(byte[] hash) {
+        Path file = fileFor(hash);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != TokenType.values().length) {
+                throw new IOException("cache file from some other version");
+            }
+            if (!Arrays.equals(in.readNBytes(hash.length), hash)) {
+                throw new IOException("cache file is for some other script");
+            }
+            List<Stmt> ret = new AstReader(in).read();
+            // if this isn't here the file got cut off somewhere
+            if (in.readInt() != MAGIC || in.read() != -1) {
+                throw new IOException("cache file has the wrong ending");
+            }
+            return ret;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // it's no good, get rid of it so it gets rewritten
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) { }
+            return null;
+        }
+    }
+
+    /** saves the statements, has to be called before the resolver or optimizer touch them */
+    public void store(byte[] hash, List<Stmt> stmts) {
+        Path file = fileFor(hash);
+        Path temp = null;
+        try {
+            Files.createDirectories(dir);
+            // write to a temp file & move it over so nobody ever sees half a file
+            temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(TokenType.values().length);
+                out.write(hash);
+                new AstWriter(out).write(stmts);
+                out.writeInt(MAGIC);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            // not being able to cache something isn't worth failing over
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) { }
+            }
+        }
+    }
+
+    private Path fileFor(byte[] hash) {
+        return dir.resolve(HexFormat.of().formatHex(hash) + ".ast");
+    }
+}
@@ -0,0 +1,217 @@
+package io.github.sanspapyrus683.prog.cache;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.inner.Expr;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * reads back what AstWriter wrote
+ * every node comes after everything inside it, so the nodes that are done but aren't inside anything yet
+ * go on a stack & each node just takes what it needs off the top, no recursion needed
+ * anything that doesn't make sense is an IOException, since it means the file's messed up
+ */
+class AstReader {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+    private Object[] done = new Object[32];
+    private int size = 0;
+
+    AstReader(DataInputStream in) {
+        this.in = in;
+    }
+
+    List<Stmt> read() throws IOException {
+        for (int tag = in.readByte(); tag != AstCache.END; tag = in.readByte()) {
+            push(tag < AstCache.ASSIGNMENT ? stmt(tag) : expr(tag));
+        }
+        // everything that's left is the top level
+        List<Stmt> ret = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (!(done[i] instanceof Stmt)) {
+                throw new IOException("expression outside of a statement");
+            }
+            ret.add((Stmt) done[i]);
+        }
+        return ret;
+    }
+
+    private Stmt stmt(int tag) throws IOException {
+        int line = in.readInt();
+        Stmt ret = stmtNode(tag);
+        ret.line = line;
+        return ret;
+    }
+
+    private Stmt stmtNode(int tag) throws IOException {
+        switch (tag) {
+            case AstCache.BLOCK: return new Stmt.Block(stmts(in.readInt()));
+            case AstCache.EXPRESSION: return new Stmt.Expression(popExpr());
+            case AstCache.IF: {
+                Stmt elseDo = in.readByte() == 0 ? null : popStmt();
+                Stmt thenDo = popStmt();
+                return new Stmt.If(popExpr(), thenDo, elseDo);
+            }
+            case AstCache.IMPORT: return new Stmt.Import(token());
+            case AstCache.PRINT: return new Stmt.Print(popExpr());
+            case AstCache.VAR_STMT: return new Stmt.Var(token(), popExpr());
+            case AstCache.WHILE: {
+                Stmt toDo = popStmt();
+                return new Stmt.While(popExpr(), toDo);
+            }
+            default: throw new IOException("bad statement tag " + tag);
+        }
+    }
+
+    private Expr expr(int tag) throws IOException {
+        switch (tag) {
+            case AstCache.ASSIGNMENT: return new Expr.Assignment(token(), popExpr());
+            case AstCache.BINARY: {
+                Token op = token();
+                Expr right = popExpr();
+                return new Expr.Binary(popExpr(), op, right);
+            }
+            case AstCache.LITERAL: return new Expr.Literal(value());
+            case AstCache.GROUPING: return new Expr.Grouping(popExpr());
+            case AstCache.LOGICAL: {
+                Token op = token();
+                Expr right = popExpr();
+                return new Expr.Logical(popExpr(), op, right);
+            }
+            case AstCache.UNARY: return new Expr.Unary(token(), popExpr());
+            case AstCache.VAR_EXPR: return new Expr.Var(token());
+            case AstCache.ARRAY: {
+                Token bracket = token();
+                return new Expr.ArrayLiteral(bracket, exprs(in.readInt()));
+            }
+            case AstCache.INDEX: {
+                Token bracket = token();
+                Expr index = popExpr();
+                return new Expr.Index(popExpr(), bracket, index);
+            }
+            case AstCache.INDEX_ASSIGNMENT: {
+                Token bracket = token();
+                Expr val = popExpr();
+                Expr index = popExpr();
+                return new Expr.IndexAssignment(popExpr(), bracket, index, val);
+            }
+            case AstCache.LENGTH: {
+                Token name = token();
+                return new Expr.Length(popExpr(), name);
+            }
+            default: throw new IOException("bad expression tag " + tag);
+        }
+    }
+
+    //region the stack
+    private void push(Object node) {
+        if (size == done.length) {
+            done = Arrays.copyOf(done, size * 2);
+        }
+        done[size++] = node;
+    }
+
+    private Object pop() throws IOException {
+        if (size == 0) {
+            throw new IOException("node's missing something inside it");
+        }
+        Object ret = done[--size];
+        done[size] = null;
+        return ret;
+    }
+
+    private Stmt popStmt() throws IOException {
+        Object ret = pop();
+        if (!(ret instanceof Stmt)) {
+            throw new IOException("expected a statement");
+        }
+        return (Stmt) ret;
+    }
+
+    private Expr popExpr() throws IOException {
+        Object ret = pop();
+        if (!(ret instanceof Expr)) {
+            throw new IOException("expected an expression");
+        }
+        return (Expr) ret;
+    }
+
+    /** the last count statements, in the order they were written */
+    private List<Stmt> stmts(int count) throws IOException {
+        checkCount(count);
+        Stmt[] ret = new Stmt[count];
+        for (int i = count - 1; i >= 0; i--) {
+            ret[i] = popStmt();
+        }
+        return new ArrayList<>(Arrays.asList(ret));
+    }
+
+    private List<Expr> exprs(int count) throws IOException {
+        checkCount(count);
+        Expr[] ret = new Expr[count];
+        for (int i = count - 1; i >= 0; i--) {
+            ret[i] = popExpr();
+        }
+        return new ArrayList<>(Arrays.asList(ret));
+    }
+
+    private void checkCount(int count) throws IOException {
+        if (count < 0 || count > size) {
+            throw new IOException("bad count " + count);
+        }
+    }
+    //endregion
+
+    private Token token() throws IOException {
+        int type = in.readUnsignedByte();
+        if (type >= TYPES.length) {
+            throw new IOException("bad token type " + type);
+        }
+        String lexeme = string();
+        Object literal = value();
+        return new Token(TYPES[type], lexeme, literal, in.readInt());
+    }
+
+    private Object value() throws IOException {
+        int tag = in.readByte();
+        switch (tag) {
+            case AstCache.NULL: return null;
+            case AstCache.NUMBER: return in.readDouble();
+            case AstCache.WHOLE: return in.readLong();
+            case AstCache.STRING: return string();
+            case AstCache.TRUE: return true;
+            case AstCache.FALSE: return false;
+            default: throw new IOException("bad value tag " + tag);
+        }
+    }
+
+    private String string() throws IOException {
+        int index = in.readInt();
+        if (index >= 0) {
+            if (index >= strings.size()) {
+                throw new IOException("string " + index + " doesn't exist yet");
+            }
+            return strings.get(index);
+        }
+        int len = in.readInt();
+        if (len < 0) {
+            throw new IOException("negative string length");
+        }
+        byte[] bytes = in.readNBytes(len);
+        if (bytes.length != len) {
+            throw new IOException("file ended in the middle of a string");
+        }
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(s);
+        return s;
+    }
+}
@@ -0,0 +1,235 @@
+package io.github.sanspapyrus683.prog.cache;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.inner.Expr;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.inner.Walk;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * writes an AST out as bytes (see AstCache for what the format looks like)
+ * it goes through it w/ Walk, so every node's written right after everything inside it
+ * & each visit only has to write the node's own parts
+ */
+class AstWriter implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private final DataOutputStream out;
+    /** every string gets written once, after that it's just its index */
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    AstWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    void write(List<Stmt> stmts) throws IOException {
+        try {
+            Walk.after(stmts, this, this);
+            tag(AstCache.END);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    //region STATEMENTS
+    @Override
+    public Void visitBlock(Stmt.Block stmt) {
+        stmtTag(AstCache.BLOCK, stmt);
+        integer(stmt.content.size());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Stmt.Expression stmt) {
+        stmtTag(AstCache.EXPRESSION, stmt);
+        return null;
+    }
+
+    @Override
+    public Void visitIf(Stmt.If stmt) {
+        stmtTag(AstCache.IF, stmt);
+        tag(stmt.elseDo == null ? 0 : 1);
+        return null;
+    }
+
+    @Override
+    public Void visitImport(Stmt.Import stmt) {
+        stmtTag(AstCache.IMPORT, stmt);
+        token(stmt.path);
+        return null;
+    }
+
+    @Override
+    public Void visitPrint(Stmt.Print stmt) {
+        stmtTag(AstCache.PRINT, stmt);
+        return null;
+    }
+
+    @Override
+    public Void visitVar(Stmt.Var stmt) {
+        stmtTag(AstCache.VAR_STMT, stmt);
+        token(stmt.name);
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(Stmt.While stmt) {
+        stmtTag(AstCache.WHILE, stmt);
+        return null;
+    }
+    //endregion
+
+    //region EXPRESSIONS
+    @Override
+    public Void visitAssignmentExpr(Expr.Assignment expr) {
+        tag(AstCache.ASSIGNMENT);
+        token(expr.assignTo);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        tag(AstCache.BINARY);
+        token(expr.op);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        tag(AstCache.LITERAL);
+        value(expr.val);
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        tag(AstCache.GROUPING);
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        tag(AstCache.LOGICAL);
+        token(expr.op);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        tag(AstCache.UNARY);
+        token(expr.op);
+        return null;
+    }
+
+    @Override
+    public Void visitVarExpr(Expr.Var expr) {
+        tag(AstCache.VAR_EXPR);
+        token(expr.name);
+        return null;
+    }
+
+    @Override
+    public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        tag(AstCache.ARRAY);
+        token(expr.bracket);
+        integer(expr.items.size());
+        return null;
+    }
+
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        tag(AstCache.INDEX);
+        token(expr.bracket);
+        return null;
+    }
+
+    @Override
+    public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        tag(AstCache.INDEX_ASSIGNMENT);
+        token(expr.bracket);
+        return null;
+    }
+
+    @Override
+    public Void visitLengthExpr(Expr.Length expr) {
+        tag(AstCache.LENGTH);
+        token(expr.name);
+        return null;
+    }
+    //endregion
+
+    private void token(Token token) {
+        try {
+            out.writeByte(token.type.ordinal());
+            string(token.lexeme);
+            value(token.literal);
+            out.writeInt(token.line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void value(Object val) {
+        try {
+            if (val == null) {
+                out.writeByte(AstCache.NULL);
+            } else if (val instanceof Long) {
+                out.writeByte(AstCache.WHOLE);
+                out.writeLong((Long) val);
+            } else if (val instanceof Double) {
+                out.writeByte(AstCache.NUMBER);
+                out.writeDouble((Double) val);
+            } else if (val instanceof String) {
+                out.writeByte(AstCache.STRING);
+                string((String) val);
+            } else if (val instanceof Boolean) {
+                out.writeByte((Boolean) val ? AstCache.TRUE : AstCache.FALSE);
+            } else {
+                throw new IllegalArgumentException("can't cache a " + val.getClass());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void string(String s) throws IOException {
+        Integer seen = strings.get(s);
+        if (seen != null) {
+            out.writeInt(seen);
+            return;
+        }
+        strings.put(s, strings.size());
+        // not writeUTF since that can't do strings over 64k
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(-1);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** statements have their line right after their tag */
+    private void stmtTag(int tag, Stmt stmt) {
+        tag(tag);
+        integer(stmt.line);
+    }
+
+    private void tag(int tag) {
+        try {
+            out.writeByte(tag);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void integer(int val) {
+        try {
+            out.writeInt(val);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
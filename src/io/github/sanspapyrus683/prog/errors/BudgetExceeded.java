@@ -0,0 +1,17 @@
+package io.github.sanspapyrus683.prog.errors;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+
+/** a run went over one of the limits in its Budget, so it got stopped */
+public class BudgetExceeded extends RuntimeError {
+    public enum Limit { STATEMENTS, TIME, STRING_BYTES }
+
+    public final Limit limit;  /** which one it went over */
+
+    public BudgetExceeded(Limit limit, int line, String msg) {
+        // there's no real token for this, it's just for the line
+        super(new Token(TokenType.IDENTIFIER, "", null, line), msg);
+        this.limit = limit;
+    }
+}
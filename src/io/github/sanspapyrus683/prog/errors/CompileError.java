@@ -0,0 +1,13 @@
+package io.github.sanspapyrus683.prog.errors;
+
+import java.util.List;
+
+/** thrown when a script doesn't even make it past the parser or resolver */
+public class CompileError extends Exception {
+    public final List<String> messages;
+
+    public CompileError(Diagnostics diagnostics) {
+        super(String.join("\n", diagnostics.messages()));
+        this.messages = List.copyOf(diagnostics.messages());
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.sanspapyrus683.prog.errors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * holds onto every error that gets reported to it
+ * make a new one for each compile or run, they aren't meant to be shared between threads
+ */
+public class Diagnostics implements ErrorReporter {
+    private final List<String> messages = new ArrayList<>();
+    private boolean errored = false;  /** if there was a compile error */
+    private RuntimeError runtimeError = null;  /** the one that stopped the run, if it didn't make it to the end */
+
+    @Override
+    public void error(int line, String where, String msg) {
+        messages.add(ErrorReporter.format(line, where, msg));
+        errored = true;
+    }
+
+    @Override
+    public void runtimeError(RuntimeError error) {
+        messages.add(ErrorReporter.format(error));
+        runtimeError = error;
+    }
+
+    /** copies another one's messages in w/ where they came from in front, like "lib.txt: [line 3] Error..." */
+    public void include(String from, Diagnostics other) {
+        for (String msg : other.messages) {
+            messages.add(from + ": " + msg);
+        }
+        errored |= other.errored;
+    }
+
+    public boolean hadError() {
+        return errored;
+    }
+
+    public boolean hadRuntimeError() {
+        return runtimeError != null;
+    }
+
+    /** null if there wasn't one, check if it's a BudgetExceeded to see if it got stopped for going over */
+    public RuntimeError runtimeError() {
+        return runtimeError;
+    }
+
+    /** everything that got reported, formatted the same way the command line prints it */
+    public List<String> messages() {
+        return Collections.unmodifiableList(messages);
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.sanspapyrus683.prog.errors;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+
+/**
+ * where errors go instead of straight to System.err
+ * the tokenizer, parser, & resolver report compile errors & the interpreters report runtime ones
+ */
+public interface ErrorReporter {
+    /** just prints everything to stderr the moment it happens */
+    ErrorReporter STDERR = new ErrorReporter() {
+        @Override
+        public void error(int line, String where, String msg) {
+            System.err.println(format(line, where, msg));
+        }
+
+        @Override
+        public void runtimeError(RuntimeError error) {
+            System.err.println(format(error));
+        }
+    };
+
+    /** where is something like " at 'x'" (or empty if it's just the line) */
+    void error(int line, String where, String msg);
+
+    void runtimeError(RuntimeError error);
+
+    /** report an error at a line in general or at a specific token */
+    default void error(int line, String msg) {
+        error(line, "", msg);
+    }
+
+    default void error(Token token, String msg) {
+        if (token.type == TokenType.EOF) {
+            error(token.line, " at end", msg);
+        } else {
+            error(token.line, " at '" + token.lexeme + "'", msg);
+        }
+    }
+
+    static String format(int line, String where, String msg) {
+        return "[line " + line + "] Error" + where + ": " + msg;
+    }
+
+    static String format(RuntimeError error) {
+        return error.getMessage() + " (line " + error.token.line + ")";
+    }
+}
@@ -0,0 +1,427 @@
+package io.github.sanspapyrus683.prog.flat;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.Array;
+import io.github.sanspapyrus683.prog.inner.BudgetMeter;
+import io.github.sanspapyrus683.prog.inner.CountedLoop;
+import io.github.sanspapyrus683.prog.inner.Fused;
+import io.github.sanspapyrus683.prog.inner.Values;
+import io.github.sanspapyrus683.prog.output.Output;
+
+import java.util.Arrays;
+
+/**
+ * runs a FlatTree, it's the tree interpreter but going by offsets into an int array
+ * so there's no visitor calls & no jumping around the heap from node to node, just a switch on the kind
+ * it does everything the tree interpreter does in the same order, so the output & errors come out the same
+ */
+public class FlatInterpreter {
+    /** what a variable slot holds before its var statement runs */
+    private static final Object UNDEFINED = new Object();
+
+    private final Output out;
+    private final ErrorReporter errors;
+    private int[] nodes;
+    private int[] lists;
+    private int[] lines;
+    private Object[] constants;
+    private Object[] vars;
+    private BudgetMeter meter;  /** null unless the run has a budget */
+
+    public FlatInterpreter(Output out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    public void interpret(FlatTree tree, int slots) {
+        interpret(tree, slots, null);
+    }
+
+    /** the same, but every statement & loop going around ticks the meter (if there is one) */
+    public void interpret(FlatTree tree, int slots, BudgetMeter meter) {
+        this.meter = meter;
+        nodes = tree.nodes;
+        lists = tree.lists;
+        lines = tree.lines;
+        constants = tree.constants;
+        vars = new Object[slots];
+        Arrays.fill(vars, UNDEFINED);
+        try {
+            // the root's just the list of top level statements, so it doesn't count as a statement itself
+            int start = nodes[tree.root + 1];
+            int end = start + nodes[tree.root + 2];
+            for (int i = start; i < end; i++) {
+                execute(lists[i]);
+            }
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        }
+    }
+
+    //region statements
+    private void execute(int at) {
+        final int[] nodes = this.nodes;
+        if (meter != null) {
+            meter.tick(lines[at / FlatTree.STRIDE]);
+        }
+        switch (nodes[at]) {
+            case Kind.BLOCK: {
+                int start = nodes[at + 1];
+                int end = start + nodes[at + 2];
+                for (int i = start; i < end; i++) {
+                    execute(lists[i]);
+                }
+                break;
+            }
+            case Kind.EXPRESSION:
+                evaluate(nodes[at + 1]);
+                break;
+            case Kind.IF:
+                if (Values.bool(evaluate(nodes[at + 1]))) {
+                    execute(nodes[at + 2]);
+                } else if (nodes[at + 3] >= 0) {
+                    execute(nodes[at + 3]);
+                }
+                break;
+            case Kind.PRINT:
+                out.println(evaluate(nodes[at + 1]));
+                break;
+            case Kind.VAR:
+                vars[nodes[at + 1]] = evaluate(nodes[at + 2]);
+                break;
+            case Kind.WHILE:
+                if (meter != null) {
+                    // the counted loop doesn't tick, so it's just the normal loop
+                    while (Values.bool(evaluate(nodes[at + 1]))) {
+                        execute(nodes[at + 2]);
+                        meter.tick(lines[at / FlatTree.STRIDE]);
+                    }
+                    break;
+                }
+                if (nodes[at + 3] >= 0 && countedLoop(at)) {
+                    break;
+                }
+                while (Values.bool(evaluate(nodes[at + 1]))) {
+                    execute(nodes[at + 2]);
+                }
+                break;
+            default:
+                throw new IllegalStateException("not a statement: " + nodes[at] + " at " + at);
+        }
+    }
+
+    /** the same as the tree interpreter's, it gives false if i, the bound, & the step aren't the same kind of number */
+    private boolean countedLoop(int at) {
+        CountedLoop loop = (CountedLoop) constants[nodes[at + 3]];
+        int condition = nodes[at + 1];
+        if (nodes[condition] == Kind.FUSED) {
+            condition = nodes[condition + 2];  // it's always a var & a number too
+        }
+        int counter = nodes[condition + 1];
+        Object start = evaluate(counter);
+        Object bound = evaluate(nodes[condition + 2]);
+        // the body's everything in the block but the increment at the end
+        int toDo = nodes[at + 2];
+        int from = 0;
+        int to = 0;
+        if (nodes[toDo] == Kind.BLOCK) {
+            from = nodes[toDo + 1];
+            to = from + nodes[toDo + 2] - 1;
+        }
+        int slot = nodes[counter + 1];
+        if (start instanceof Long && bound instanceof Long && loop.step instanceof Long) {
+            long i = (long) start;
+            long n = (long) bound;
+            long step = (long) loop.step;
+            boolean overflowed = false;
+            try {
+                while (loop.test(i, n)) {
+                    if (loop.bodyReads) {
+                        vars[slot] = i;
+                    }
+                    for (int s = from; s < to; s++) {
+                        execute(lists[s]);
+                    }
+                    Object next = Values.add(i, step);
+                    if (!(next instanceof Long)) {
+                        overflowed = true;
+                        vars[slot] = next;
+                        return false;
+                    }
+                    i = (long) next;
+                }
+            } finally {
+                if (!overflowed) {
+                    vars[slot] = i;
+                }
+            }
+            return true;
+        }
+        if (!(start instanceof Double && bound instanceof Double && loop.step instanceof Double)) {
+            return false;
+        }
+        double i = (double) start;
+        double n = (double) bound;
+        double step = (double) loop.step;
+        try {
+            while (loop.test(i, n)) {
+                if (loop.bodyReads) {
+                    vars[slot] = i;
+                }
+                for (int s = from; s < to; s++) {
+                    execute(lists[s]);
+                }
+                i += step;
+            }
+        } finally {
+            vars[slot] = i;
+        }
+        return true;
+    }
+    //endregion
+
+    //region expressions
+    private Object evaluate(int at) {
+        final int[] nodes = this.nodes;
+        switch (nodes[at]) {
+            case Kind.LITERAL:
+                return constants[nodes[at + 1]];
+            case Kind.GET: {
+                Object val = vars[nodes[at + 1]];
+                if (val == UNDEFINED) {
+                    throw error(at, "variable '" + constants[nodes[at + 2]] + "' not found");
+                }
+                return val;
+            }
+            case Kind.ASSIGN: {
+                Object val = evaluate(nodes[at + 2]);
+                int slot = nodes[at + 1];
+                if (vars[slot] == UNDEFINED) {
+                    throw error(at, "variable '" + constants[nodes[at + 3]] + "' not initialized you moron");
+                }
+                vars[slot] = val;
+                return val;
+            }
+            case Kind.FUSED: {
+                Fused fused = (Fused) constants[nodes[at + 1]];
+                int slot = fused.var.slot;
+                Object val = vars[slot];
+                if (val == UNDEFINED) {
+                    throw error(at, "variable '" + fused.var.name.lexeme + "' not found");
+                }
+                Object res = fused.apply(val);
+                if (res == null) {
+                    return evaluate(nodes[at + 2]);
+                }
+                if (fused.shape == Fused.Shape.INCREMENT) {
+                    vars[slot] = res;
+                }
+                return res;
+            }
+
+            case Kind.ADD:
+            case Kind.SUB:
+            case Kind.MUL:
+            case Kind.DIV:
+            case Kind.MOD:
+            case Kind.GREATER:
+            case Kind.GREATER_EQUAL:
+            case Kind.LESS:
+            case Kind.LESS_EQUAL:
+            case Kind.EQUAL:
+            case Kind.NOT_EQUAL:
+                return binary(at);
+            case Kind.AND: {
+                Object left = evaluate(nodes[at + 1]);
+                return !Values.bool(left) ? left : evaluate(nodes[at + 2]);
+            }
+            case Kind.OR: {
+                Object left = evaluate(nodes[at + 1]);
+                return Values.bool(left) ? left : evaluate(nodes[at + 2]);
+            }
+
+            case Kind.NEGATE: {
+                Object val = evaluate(nodes[at + 1]);
+                if (nodes[at + 2] == Kind.ANYTHING && !Values.isNumber(val)) {
+                    throw error(at, "operand must be a number");
+                }
+                return Values.negate(val);
+            }
+            case Kind.NOT:
+                return !Values.bool(evaluate(nodes[at + 1]));
+
+            case Kind.ARRAY:
+            case Kind.INDEX:
+            case Kind.SET_INDEX:
+            case Kind.LENGTH:
+                return array(at);
+            default:
+                throw new IllegalStateException("not an expression: " + nodes[at] + " at " + at);
+        }
+    }
+
+    //region math
+    // the same fast paths as the tree interpreter, going off of what Types worked out (see Kind's types)
+
+    private Object binary(int at) {
+        final int[] nodes = this.nodes;
+        int kind = nodes[at];
+        if (nodes[at + 3] == Kind.DOUBLES) {
+            double left = number(nodes[at + 1]);
+            return doubles(kind, left, number(nodes[at + 2]));
+        }
+        Object left = evaluate(nodes[at + 1]);
+        Object right = evaluate(nodes[at + 2]);
+        if (left instanceof Long && right instanceof Long) {
+            return longs(kind, (long) left, (long) right);
+        }
+        if (nodes[at + 3] == Kind.ANYTHING) {
+            check(at, kind, left, right);
+            if (kind == Kind.ADD && left instanceof CharSequence) {
+                return meter == null ? Values.concat(left, right)
+                        : meter.concat(left, right, lines[at / FlatTree.STRIDE]);
+            }
+        }
+        switch (kind) {
+            case Kind.ADD: return Values.add(left, right);
+            case Kind.SUB: return Values.sub(left, right);
+            case Kind.MUL: return Values.mul(left, right);
+            case Kind.DIV: return Values.div(left, right);
+            case Kind.MOD: return Values.mod(left, right);
+            case Kind.GREATER: return Values.greater(left, right);
+            case Kind.GREATER_EQUAL: return Values.greaterEqual(left, right);
+            case Kind.LESS: return Values.less(left, right);
+            case Kind.LESS_EQUAL: return Values.lessEqual(left, right);
+            case Kind.EQUAL: return Values.equal(left, right);
+            default: return !Values.equal(left, right);
+        }
+    }
+
+    /** errors if the two sides don't work w/ the operator (+ works on 2 strings, == & != work on anything) */
+    private void check(int at, int kind, Object left, Object right) {
+        if (kind == Kind.ADD) {
+            if (!(left instanceof CharSequence && right instanceof CharSequence
+                    || Values.isNumber(left) && Values.isNumber(right))) {
+                throw error(at, "operands need to be the same");
+            }
+        } else if (kind != Kind.EQUAL && kind != Kind.NOT_EQUAL) {
+            checkBothNums(at, left, right);
+        }
+    }
+
+    private static Object longs(int kind, long left, long right) {
+        switch (kind) {
+            case Kind.ADD: return Values.add(left, right);
+            case Kind.SUB: return Values.sub(left, right);
+            case Kind.MUL: return Values.mul(left, right);
+            case Kind.DIV: return Values.div(left, right);
+            case Kind.MOD: return Values.mod(left, right);
+            case Kind.GREATER: return left > right;
+            case Kind.GREATER_EQUAL: return left >= right;
+            case Kind.LESS: return left < right;
+            case Kind.LESS_EQUAL: return left <= right;
+            case Kind.EQUAL: return left == right;
+            default: return left != right;
+        }
+    }
+
+    private static Object doubles(int kind, double left, double right) {
+        switch (kind) {
+            case Kind.ADD: return left + right;
+            case Kind.SUB: return left - right;
+            case Kind.MUL: return left * right;
+            case Kind.DIV: return left / right;
+            case Kind.MOD: return Values.mod(left, right);
+            case Kind.GREATER: return left > right;
+            case Kind.GREATER_EQUAL: return left >= right;
+            case Kind.LESS: return left < right;
+            case Kind.LESS_EQUAL: return left <= right;
+            case Kind.EQUAL: return Values.same(left, right);
+            default: return !Values.same(left, right);
+        }
+    }
+
+    /** something that's always a Double (or errors), w/ any math in it done on plain doubles */
+    private double number(int at) {
+        final int[] nodes = this.nodes;
+        int kind = nodes[at];
+        if (kind >= Kind.ADD && kind <= Kind.MOD && nodes[at + 3] == Kind.DOUBLES) {
+            double left = number(nodes[at + 1]);
+            double right = number(nodes[at + 2]);
+            switch (kind) {
+                case Kind.ADD: return left + right;
+                case Kind.SUB: return left - right;
+                case Kind.MUL: return left * right;
+                case Kind.DIV: return left / right;
+                default: return Values.mod(left, right);
+            }
+        } else if (kind == Kind.NEGATE && nodes[at + 2] == Kind.DOUBLES) {
+            return -number(nodes[at + 1]);
+        }
+        return (double) evaluate(at);
+    }
+    //endregion
+
+    //region arrays
+    // kept out of evaluate so it stays small enough for the jit to do a good job on it
+
+    private Object array(int at) {
+        final int[] nodes = this.nodes;
+        switch (nodes[at]) {
+            case Kind.ARRAY: {
+                int start = nodes[at + 1];
+                Object[] items = new Object[nodes[at + 2]];
+                for (int i = 0; i < items.length; i++) {
+                    items[i] = evaluate(lists[start + i]);
+                }
+                return Array.of(items);
+            }
+            case Kind.INDEX: {
+                Object array = evaluate(nodes[at + 1]);
+                Object index = evaluate(nodes[at + 2]);
+                try {
+                    return Array.index(array, index);
+                } catch (Array.BadAccess e) {
+                    throw e.at(token(at));
+                }
+            }
+            case Kind.SET_INDEX: {
+                Object array = evaluate(nodes[at + 1]);
+                Object index = evaluate(nodes[at + 2]);
+                Object val = evaluate(nodes[at + 3]);
+                try {
+                    return Array.setIndex(array, index, val);
+                } catch (Array.BadAccess e) {
+                    throw e.at(token(at));
+                }
+            }
+            default: {
+                try {
+                    return Array.lengthOf(evaluate(nodes[at + 1]));
+                } catch (Array.BadAccess e) {
+                    throw e.at(token(at));
+                }
+            }
+        }
+    }
+    //endregion
+
+    private void checkBothNums(int at, Object left, Object right) {
+        if (!(Values.isNumber(left) && Values.isNumber(right))) {
+            throw error(at, "operands must both be numbers");
+        }
+    }
+
+    /** makes an error pointing at the node's line */
+    private RuntimeError error(int at, String msg) {
+        return new RuntimeError(token(at), msg);
+    }
+
+    /** a stand-in for the node's token, only the line's right */
+    private Token token(int at) {
+        return new Token(TokenType.IDENTIFIER, "", null, lines[at / FlatTree.STRIDE]);
+    }
+}
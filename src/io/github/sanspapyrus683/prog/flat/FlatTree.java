@@ -0,0 +1,43 @@
+package io.github.sanspapyrus683.prog.flat;
+
+/**
+ * the whole syntax tree packed into a few arrays instead of an object for every node
+ * (see Kind for what each node looks like)
+ *
+ * the nodes are in the order they got finished in, so everything inside a node comes right before it
+ * & a node & its children are usually in the same couple of cache lines,
+ * instead of being wherever the allocator happened to put each one
+ */
+public final class FlatTree {
+    public static final int STRIDE = 4;  /** how many ints each node takes up */
+
+    final int[] nodes;
+    final int[] lists;  /** the statements in each block */
+    final int[] lines;  /** the line of each node (the node's offset / STRIDE), for errors */
+    final Object[] constants;  /** literals, variable names, & the Fused & CountedLoop stuff */
+    final int root;  /** the block w/ all the top level statements */
+
+    FlatTree(int[] nodes, int[] lists, int[] lines, Object[] constants, int root) {
+        this.nodes = nodes;
+        this.lists = lists;
+        this.lines = lines;
+        this.constants = constants;
+        this.root = root;
+    }
+
+    /** how many nodes there are */
+    public int size() {
+        return nodes.length / STRIDE;
+    }
+
+    /** about how much memory the arrays take up, not counting the constants themselves */
+    public long bytes() {
+        // 16 bytes of header for each array
+        return 16 * 4L + 4L * (nodes.length + lists.length + lines.length + constants.length);
+    }
+
+    @Override
+    public String toString() {
+        return "FlatTree(" + size() + " nodes, " + constants.length + " constants)";
+    }
+}
@@ -0,0 +1,242 @@
+package io.github.sanspapyrus683.prog.flat;
+
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.inner.Expr;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.inner.Walk;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * packs the statements (after the resolver & optimizer) into a FlatTree
+ * it goes through them w/ Walk, so by the time a node gets visited, where everything inside it went
+ * is already on a stack & the node can just get written right after them
+ */
+public class Flattener implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private int[] nodes = new int[256];
+    private int size = 0;  /** in ints, not nodes */
+    private int[] lists = new int[64];
+    private int listSize = 0;
+    private int[] lines = new int[64];
+    private final Map<Object, Integer> constants = new HashMap<>();
+    private int[] done = new int[32];  /** where each finished node that hasn't been used yet went */
+    private int doneCount = 0;
+
+    public FlatTree flatten(List<Stmt> statements) {
+        for (Stmt s : statements) {
+            Walk.after(s, this, this);
+        }
+        int root = block(statements.size(), 0);
+
+        Object[] pool = new Object[constants.size()];
+        for (Map.Entry<Object, Integer> c : constants.entrySet()) {
+            pool[c.getValue()] = c.getKey();
+        }
+        return new FlatTree(
+                Arrays.copyOf(nodes, size), Arrays.copyOf(lists, listSize),
+                Arrays.copyOf(lines, size / FlatTree.STRIDE), pool, root
+        );
+    }
+
+    //region statements
+    @Override
+    public Void visitBlock(Stmt.Block stmt) {
+        done(block(stmt.content.size(), stmt.line));
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Stmt.Expression stmt) {
+        done(node(Kind.EXPRESSION, stmt.line, pop(), 0, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitIf(Stmt.If stmt) {
+        int elseDo = stmt.elseDo == null ? -1 : pop();
+        int thenDo = pop();
+        done(node(Kind.IF, stmt.line, pop(), thenDo, elseDo));
+        return null;
+    }
+
+    @Override
+    public Void visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
+    @Override
+    public Void visitPrint(Stmt.Print stmt) {
+        done(node(Kind.PRINT, stmt.line, pop(), 0, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitVar(Stmt.Var stmt) {
+        done(node(Kind.VAR, stmt.line, stmt.slot, pop(), 0));
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(Stmt.While stmt) {
+        int toDo = pop();
+        int counted = stmt.counted == null ? -1 : constant(stmt.counted);
+        done(node(Kind.WHILE, stmt.line, pop(), toDo, counted));
+        return null;
+    }
+    //endregion
+
+    //region expressions
+    @Override
+    public Void visitAssignmentExpr(Expr.Assignment expr) {
+        int assign = node(Kind.ASSIGN, expr.assignTo.line, expr.slot, pop(), constant(expr.assignTo.lexeme));
+        done(expr.fused == null ? assign : node(Kind.FUSED, expr.assignTo.line, constant(expr.fused), assign, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        int kind;
+        switch (expr.op.type) {
+            case PLUS: kind = Kind.ADD; break;
+            case MINUS: kind = Kind.SUB; break;
+            case STAR: kind = Kind.MUL; break;
+            case SLASH: kind = Kind.DIV; break;
+            case MOD: kind = Kind.MOD; break;
+            case GREATER: kind = Kind.GREATER; break;
+            case GREATER_EQUAL: kind = Kind.GREATER_EQUAL; break;
+            case LESS: kind = Kind.LESS; break;
+            case LESS_EQUAL: kind = Kind.LESS_EQUAL; break;
+            case EQUAL_EQUAL: kind = Kind.EQUAL; break;
+            case BANG_EQUAL: kind = Kind.NOT_EQUAL; break;
+            default: throw new IllegalStateException("not a binary operator: " + expr.op);
+        }
+        int right = pop();
+        int binary = node(kind, expr.op.line, pop(), right, types(expr.numeric, expr.doubles));
+        done(expr.fused == null ? binary : node(Kind.FUSED, expr.fused.var.name.line, constant(expr.fused), binary, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        done(node(Kind.LITERAL, 0, constant(expr.val), 0, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        return null;  // what's inside is already on there, it just stays
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        int right = pop();
+        done(node(expr.op.type == TokenType.OR ? Kind.OR : Kind.AND, expr.op.line, pop(), right, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        int kind = expr.op.type == TokenType.MINUS ? Kind.NEGATE : Kind.NOT;
+        done(node(kind, expr.op.line, pop(), types(expr.numeric, expr.doubles), 0));
+        return null;
+    }
+
+    @Override
+    public Void visitVarExpr(Expr.Var expr) {
+        done(node(Kind.GET, expr.name.line, expr.slot, constant(expr.name.lexeme), 0));
+        return null;
+    }
+
+    @Override
+    public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        int count = expr.items.size();
+        done(node(Kind.ARRAY, expr.bracket.line, list(count), count, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        int index = pop();
+        done(node(Kind.INDEX, expr.bracket.line, pop(), index, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        int val = pop();
+        int index = pop();
+        done(node(Kind.SET_INDEX, expr.bracket.line, pop(), index, val));
+        return null;
+    }
+
+    @Override
+    public Void visitLengthExpr(Expr.Length expr) {
+        done(node(Kind.LENGTH, expr.name.line, pop(), 0, 0));
+        return null;
+    }
+    //endregion
+
+    private static int types(boolean numeric, boolean doubles) {
+        return doubles ? Kind.DOUBLES : numeric ? Kind.NUMERIC : Kind.ANYTHING;
+    }
+
+    /** a block of the last count nodes that got finished */
+    private int block(int count, int line) {
+        return node(Kind.BLOCK, line, list(count), count, 0);
+    }
+
+    /** moves the last count nodes that got finished into lists, gives back where they start */
+    private int list(int count) {
+        if (listSize + count > lists.length) {
+            lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listSize + count));
+        }
+        int start = listSize;
+        System.arraycopy(done, doneCount - count, lists, start, count);
+        listSize += count;
+        doneCount -= count;
+        return start;
+    }
+
+    /** writes a node & gives back its offset */
+    private int node(int kind, int line, int a, int b, int c) {
+        if (size + FlatTree.STRIDE > nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        int at = size;
+        nodes[at] = kind;
+        nodes[at + 1] = a;
+        nodes[at + 2] = b;
+        nodes[at + 3] = c;
+        size += FlatTree.STRIDE;
+
+        int index = at / FlatTree.STRIDE;
+        if (index == lines.length) {
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        lines[index] = line;
+        return at;
+    }
+
+    private int constant(Object val) {
+        Integer index = constants.get(val);
+        if (index == null) {
+            index = constants.size();
+            constants.put(val, index);
+        }
+        return index;
+    }
+
+    private void done(int node) {
+        if (doneCount == done.length) {
+            done = Arrays.copyOf(done, doneCount * 2);
+        }
+        done[doneCount++] = node;
+    }
+
+    private int pop() {
+        return done[--doneCount];
+    }
+}
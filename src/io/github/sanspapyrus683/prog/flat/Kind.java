@@ -0,0 +1,64 @@
+package io.github.sanspapyrus683.prog.flat;
+
+/**
+ * all the kinds of nodes in a flat tree
+ * every node takes up 4 ints in the nodes array, its kind & then up to 3 operands (listed in the brackets),
+ * & anything that points at another node has that node's offset in the array
+ */
+public final class Kind {
+    private Kind() { }
+
+    //region statements
+    public static final int BLOCK = 0;  /** [start, count] the statements are lists[start] to lists[start + count - 1] */
+    public static final int EXPRESSION = 1;  /** [expr] */
+    public static final int IF = 2;  /** [condition, then, else] the else is -1 if there isn't one */
+    public static final int PRINT = 3;  /** [expr] */
+    public static final int VAR = 4;  /** [slot, init] */
+    /**
+     * [condition, body, counted] counted is the CountedLoop's constant, or -1 if it's not one
+     * (its counter & bound are the condition's 2 sides, & its body is all of the body block but the last one)
+     */
+    public static final int WHILE = 5;
+    //endregion
+
+    //region expressions
+    public static final int LITERAL = 6;  /** [constant] */
+    public static final int GET = 7;  /** [slot, name] the name's a constant, for the error if it isn't there */
+    public static final int ASSIGN = 8;  /** [slot, value, name] */
+    /**
+     * [constant, normal] one of the shapes in inner.Fused, done all at once if the variable's a number,
+     * otherwise it's just the normal node
+     */
+    public static final int FUSED = 9;
+
+    // all of these are [left, right, types], types is one of the flags at the bottom
+    public static final int ADD = 10;
+    public static final int SUB = 11;
+    public static final int MUL = 12;
+    public static final int DIV = 13;
+    public static final int MOD = 14;
+    public static final int GREATER = 15;
+    public static final int GREATER_EQUAL = 16;
+    public static final int LESS = 17;
+    public static final int LESS_EQUAL = 18;
+    public static final int EQUAL = 19;
+    public static final int NOT_EQUAL = 20;
+    public static final int AND = 21;
+    public static final int OR = 22;
+
+    public static final int NEGATE = 23;  /** [operand, types] */
+    public static final int NOT = 24;  /** [operand] */
+
+    public static final int ARRAY = 25;  /** [start, count] the items are in lists, the same as a block's statements */
+    public static final int INDEX = 26;  /** [array, index] */
+    public static final int SET_INDEX = 27;  /** [array, index, value] */
+    public static final int LENGTH = 28;  /** [array] */
+    //endregion
+
+    //region types
+    // what Types worked out about math, a comparison, or a negate (see Expr.Binary.numeric & doubles)
+    public static final int ANYTHING = 0;  /** it has to check what it got */
+    public static final int NUMERIC = 1;  /** it only ever gets numbers, so there's nothing to check */
+    public static final int DOUBLES = 2;  /** it only ever gets Doubles, so it can all be done on plain doubles */
+    //endregion
+}
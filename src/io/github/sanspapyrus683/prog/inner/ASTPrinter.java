@@ -26,7 +26,7 @@ public class ASTPrinter implements Expr.Visitor<String> {
 
     @Override
     public String visitLiteralExpr(Expr.Literal expr) {
-        return expr.val == null ? "null" : expr.val.toString();
+        return Values.str(expr.val);
     }
 
     @Override
@@ -44,6 +44,26 @@ public class ASTPrinter implements Expr.Visitor<String> {
         return parenthesize("var", expr);
     }
 
+    @Override
+    public String visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        return parenthesize("array", expr.items.toArray(new Expr[0]));
+    }
+
+    @Override
+    public String visitIndexExpr(Expr.Index expr) {
+        return parenthesize("[]", expr.array, expr.index);
+    }
+
+    @Override
+    public String visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        return parenthesize("[] =", expr.array, expr.index, expr.val);
+    }
+
+    @Override
+    public String visitLengthExpr(Expr.Length expr) {
+        return parenthesize("length", expr.array);
+    }
+
     // prints out a node of the AST
     private String parenthesize(String name, Expr... exprs) {
         StringBuilder builder = new StringBuilder();
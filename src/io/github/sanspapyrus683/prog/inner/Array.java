@@ -0,0 +1,219 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+
+import java.util.Arrays;
+
+/**
+ * what an array literal makes, it's a fixed length & gets shared like any other object (so == is "same array")
+ *
+ * the stuff in it is kept in a plain long[] while it's all Longs, or a plain double[] while it's all Doubles,
+ * so an array of numbers is just the numbers & not an object for every one of them
+ * the first time anything else gets put in it, it switches to an Object[] for good
+ * (mixing longs & doubles counts as anything else, a double[] can't hold every long exactly
+ * & a long has to come back out as a long, see Values)
+ *
+ * not thread safe, but a run's values never leave the run anyways
+ */
+public final class Array {
+    private long[] longs;  /** while everything in it's a Long */
+    private double[] doubles;  /** while everything in it's a Double */
+    private Object[] objects;  /** once it's had anything else in it */
+    private final int length;
+    private boolean printing;  /** if toString is partway through this one, so an array inside itself doesn't go forever */
+
+    private Array(int length) {
+        this.length = length;
+    }
+
+    /** an array of these things, the array it's given becomes the array's (so don't use it after) */
+    public static Array of(Object[] items) {
+        Array ret = new Array(items.length);
+        boolean allLongs = true;
+        boolean allDoubles = true;
+        for (Object item : items) {
+            allLongs &= item instanceof Long;
+            allDoubles &= item instanceof Double;
+        }
+        if (allLongs) {
+            ret.longs = new long[items.length];
+            for (int i = 0; i < items.length; i++) {
+                ret.longs[i] = (long) items[i];
+            }
+        } else if (allDoubles) {
+            ret.doubles = new double[items.length];
+            for (int i = 0; i < items.length; i++) {
+                ret.doubles[i] = (double) items[i];
+            }
+        } else {
+            ret.objects = items;
+        }
+        return ret;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    //region indexing
+    /**
+     * what index, setIndex, & lengthOf throw when they're used on something that isn't an array or w/ a bad index
+     * it doesn't know what line it's on, so each backend turns it into a RuntimeError w/ at
+     */
+    public static final class BadAccess extends RuntimeException {
+        private BadAccess(String msg) {
+            super(msg, null, false, false);
+        }
+
+        public RuntimeError at(Token token) {
+            return new RuntimeError(token, getMessage());
+        }
+    }
+
+    /** what array[index] gives */
+    public static Object index(Object array, Object index) {
+        Array arr = array(array);
+        return arr.get(arr.spot(index));
+    }
+
+    /** array[index] = val, & gives back val */
+    public static Object setIndex(Object array, Object index, Object val) {
+        Array arr = array(array);
+        arr.set(arr.spot(index), val);
+        return val;
+    }
+
+    /** what array.length gives */
+    public static long lengthOf(Object array) {
+        if (!(array instanceof Array)) {
+            throw new BadAccess("only arrays have a length");
+        }
+        return ((Array) array).length;
+    }
+
+    private static Array array(Object val) {
+        if (!(val instanceof Array)) {
+            throw new BadAccess("only arrays can be indexed");
+        }
+        return (Array) val;
+    }
+
+    /**
+     * the spot an index points to, or an error if it isn't a whole number that's in bounds
+     * a whole double works the same as the long would
+     */
+    private int spot(Object index) {
+        if (index instanceof Long) {
+            long i = (long) index;
+            if (0 <= i && i < length) {
+                return (int) i;
+            }
+        } else if (index instanceof Double) {
+            double i = (double) index;
+            if (0 <= i && i < length && i == (int) i) {
+                return (int) i;
+            }
+        }
+        throw new BadAccess(badIndex(index));
+    }
+
+    /** what's wrong w/ an index that isn't ok */
+    private String badIndex(Object index) {
+        if (!Values.isNumber(index)) {
+            return "array indices have to be numbers";
+        }
+        if (index instanceof Double && (double) index != Math.rint((double) index)) {
+            return "array indices have to be whole numbers";
+        }
+        return "index " + Values.str(index) + " is out of bounds (the length's " + Values.str((long) length) + ")";
+    }
+
+    /** what's at a spot (that's in bounds) */
+    private Object get(int i) {
+        if (longs != null) {
+            return longs[i];
+        } else if (doubles != null) {
+            return doubles[i];
+        }
+        return objects[i];
+    }
+
+    private void set(int i, Object val) {
+        if (longs != null) {
+            if (val instanceof Long) {
+                longs[i] = (long) val;
+                return;
+            }
+            widen();
+        } else if (doubles != null) {
+            if (val instanceof Double) {
+                doubles[i] = (double) val;
+                return;
+            }
+            widen();
+        }
+        objects[i] = val;
+    }
+
+    /** switches to an Object[] since something that isn't the same kind of number is going in */
+    private void widen() {
+        objects = new Object[length];
+        for (int i = 0; i < length; i++) {
+            objects[i] = get(i);
+        }
+        longs = null;
+        doubles = null;
+    }
+    //endregion
+
+    /**
+     * what print shows, like [1.0, 2.5, hi] (everything in it gets shown the way print would show it)
+     * arrays inside arrays go on a stack instead of recursing, so nesting them a ton doesn't overflow anything
+     */
+    @Override
+    public String toString() {
+        StringBuilder ret = new StringBuilder().append('[');
+        Array[] open = {this};  // the arrays that are partway printed, innermost last
+        int[] next = {0};  // what's next in each one
+        int size = 1;
+        printing = true;
+        try {
+            while (size > 0) {
+                Array top = open[size - 1];
+                int i = next[size - 1]++;
+                if (i == top.length) {
+                    ret.append(']');
+                    top.printing = false;
+                    size--;
+                    continue;
+                }
+                if (i > 0) {
+                    ret.append(", ");
+                }
+                Object val = top.get(i);
+                if (!(val instanceof Array)) {
+                    ret.append(Values.str(val));
+                } else if (((Array) val).printing) {
+                    ret.append("[...]");  // it's inside itself
+                } else {
+                    if (size == open.length) {
+                        open = Arrays.copyOf(open, size * 2);
+                        next = Arrays.copyOf(next, size * 2);
+                    }
+                    open[size] = (Array) val;
+                    next[size] = 0;
+                    size++;
+                    ((Array) val).printing = true;
+                    ret.append('[');
+                }
+            }
+        } finally {
+            // only matters if it ran out of memory or something partway
+            for (int i = 0; i < size; i++) {
+                open[i].printing = false;
+            }
+        }
+        return ret.toString();
+    }
+}
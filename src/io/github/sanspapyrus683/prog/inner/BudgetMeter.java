@@ -0,0 +1,60 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.Budget;
+import io.github.sanspapyrus683.prog.errors.BudgetExceeded;
+
+/**
+ * how much of a Budget a run's used up so far, it throws BudgetExceeded once the run goes over
+ * every backend gets one of these when there's a budget & ticks it on every statement & every time a loop
+ * goes around (& tells it about every string it makes), runs w/o a budget don't get one at all
+ */
+public final class BudgetMeter {
+    /** looking at the clock isn't free, so it only happens once every this many ticks */
+    private static final int CLOCK_EVERY = 1024;
+
+    private final Budget budget;
+    private final long maxStatements;
+    private final long maxStringBytes;
+    private final long deadline;  /** in System.nanoTime, only if there's a time limit */
+    private long statements = 0;
+    private long stringBytes = 0;
+
+    public BudgetMeter(Budget budget) {
+        this.budget = budget;
+        maxStatements = budget.statements > 0 ? budget.statements : Long.MAX_VALUE;
+        maxStringBytes = budget.stringBytes > 0 ? budget.stringBytes : Long.MAX_VALUE;
+        deadline = budget.time != null ? System.nanoTime() + budget.time.toNanos() : 0;
+    }
+
+    /** a meter for the budget, or null if it doesn't limit anything */
+    public static BudgetMeter of(Budget budget) {
+        return budget.limited() ? new BudgetMeter(budget) : null;
+    }
+
+    /** a statement's about to run (or a loop went around) on this line */
+    public void tick(int line) {
+        if (++statements > maxStatements) {
+            throw new BudgetExceeded(BudgetExceeded.Limit.STATEMENTS, line,
+                    "went over the budget of " + budget.statements + " statements");
+        }
+        if (budget.time != null && statements % CLOCK_EVERY == 0 && System.nanoTime() - deadline > 0) {
+            throw new BudgetExceeded(BudgetExceeded.Limit.TIME, line,
+                    "went over the time budget of " + budget.time.toMillis() + " ms");
+        }
+    }
+
+    /** adds 2 strings like Values.concat, counting the bytes it made */
+    public CharSequence concat(Object left, Object right, int line) {
+        return made((CharSequence) left, Values.concat(left, right), line);
+    }
+
+    /** counts the bytes of a string that got made by adding something onto left */
+    public CharSequence made(CharSequence left, CharSequence made, int line) {
+        stringBytes += JoinedString.bytes(left, made);
+        if (stringBytes > maxStringBytes) {
+            throw new BudgetExceeded(BudgetExceeded.Limit.STRING_BYTES, line,
+                    "went over the budget of " + budget.stringBytes + " bytes of strings");
+        }
+        return made;
+    }
+}
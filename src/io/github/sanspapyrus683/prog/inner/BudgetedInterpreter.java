@@ -0,0 +1,49 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.Budget;
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.output.Output;
+
+/**
+ * the tree interpreter but it stops the run once it goes over a budget
+ * it checks on every statement & every time a loop goes around, & whenever strings get added
+ * like MeteredInterpreter it's its own class so runs w/o a budget don't pay anything for it
+ */
+public class BudgetedInterpreter extends Interpreter {
+    private final BudgetMeter meter;
+
+    public BudgetedInterpreter(int slots, Output out, ErrorReporter errors, Budget budget) {
+        this(slots, out, errors, new BudgetMeter(budget));
+    }
+
+    public BudgetedInterpreter(int slots, Output out, ErrorReporter errors, BudgetMeter meter) {
+        super(new Environment(slots), out, errors);
+        this.meter = meter;
+    }
+
+    @Override
+    protected void execute(Stmt stmt) {
+        meter.tick(stmt.line);
+        super.execute(stmt);
+    }
+
+    @Override
+    protected void loopedBack(Stmt.While loop) {
+        meter.tick(loop.line);
+    }
+
+    /**
+     * a counted loop doesn't tick its block or its increment, so it'd get through more of the budget
+     * than the other backends do (they don't count loops when there's a budget either)
+     */
+    @Override
+    protected boolean countsLoops() {
+        return false;
+    }
+
+    @Override
+    protected CharSequence concat(Token op, Object left, Object right) {
+        return meter.made((CharSequence) left, super.concat(op, left, right), op.line);
+    }
+}
@@ -0,0 +1,254 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.TokenType;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * a while loop that's really just counting, which is what every normal for loop turns into:
+ * while (i < n) { ...; i = i + step; }
+ * where n is a literal, a variable the loop never changes, or the length of one (arrays can't change length),
+ * & only the last statement changes i
+ *
+ * the interpreter can run these w/ i as a plain long (or double) instead of boxing it every time around,
+ * & it only puts i back in its slot if the body actually reads it (& when the loop's done)
+ */
+public final class CountedLoop {
+    /** finds every slot that gets read or written in a bunch of statements */
+    private static final class Uses implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+        private final BitSet reads = new BitSet();
+        private final BitSet writes = new BitSet();
+
+        // Walk goes into everything, these just look at the node itself
+
+        //region statements
+        @Override
+        public Void visitBlock(Stmt.Block stmt) {
+            return null;
+        }
+
+        @Override
+        public Void visitExpr(Stmt.Expression stmt) {
+            return null;
+        }
+
+        @Override
+        public Void visitIf(Stmt.If stmt) {
+            return null;
+        }
+
+        @Override
+        public Void visitImport(Stmt.Import stmt) {
+            return null;
+        }
+
+        @Override
+        public Void visitPrint(Stmt.Print stmt) {
+            return null;
+        }
+
+        @Override
+        public Void visitVar(Stmt.Var stmt) {
+            writes.set(stmt.slot);
+            return null;
+        }
+
+        @Override
+        public Void visitWhile(Stmt.While stmt) {
+            return null;
+        }
+        //endregion
+
+        //region expressions
+        @Override
+        public Void visitAssignmentExpr(Expr.Assignment expr) {
+            writes.set(expr.slot);
+            return null;
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitVarExpr(Expr.Var expr) {
+            reads.set(expr.slot);
+            return null;
+        }
+
+        // changing what's in an array doesn't change any slot (or the array's length)
+
+        @Override
+        public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitIndexExpr(Expr.Index expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitLengthExpr(Expr.Length expr) {
+            return null;
+        }
+        //endregion
+    }
+
+    public final Expr.Var counter;  /** the i in i < n */
+    public final TokenType compare;
+    public final Expr bound;  /** the n, either a number literal, a variable, or a variable's .length */
+    public final Object step;  /** what gets added to i every time, a Long or a Double (negative for i = i - 1) */
+    public final List<Stmt> body;  /** everything in the loop except the increment */
+    public final boolean bodyReads;  /** if the body ever looks at i */
+
+    private CountedLoop(Expr.Var counter, TokenType compare, Expr bound,
+                        Object step, List<Stmt> body, boolean bodyReads) {
+        this.counter = counter;
+        this.compare = compare;
+        this.bound = bound;
+        this.step = step;
+        this.body = body;
+        this.bodyReads = bodyReads;
+    }
+
+    /** if the loop keeps going for this i & n */
+    public boolean test(double i, double n) {
+        switch (compare) {
+            case LESS: return i < n;
+            case LESS_EQUAL: return i <= n;
+            case GREATER: return i > n;
+            default: return i >= n;
+        }
+    }
+
+    public boolean test(long i, long n) {
+        switch (compare) {
+            case LESS: return i < n;
+            case LESS_EQUAL: return i <= n;
+            case GREATER: return i > n;
+            default: return i >= n;
+        }
+    }
+
+    /** the counted loop this while loop is, or null if it isn't one (the slots have to be resolved already) */
+    public static CountedLoop match(Stmt.While loop) {
+        if (!(loop.condition instanceof Expr.Binary)) {
+            return null;
+        }
+        Expr.Binary cond = (Expr.Binary) loop.condition;
+        TokenType compare = cond.op.type;
+        boolean comparison = compare == TokenType.LESS || compare == TokenType.LESS_EQUAL
+                || compare == TokenType.GREATER || compare == TokenType.GREATER_EQUAL;
+        if (!comparison || !(cond.left instanceof Expr.Var) || !isNumber(cond.right) && boundVar(cond.right) == null) {
+            return null;
+        }
+        Expr.Var counter = (Expr.Var) cond.left;
+
+        // the increment's always the last thing in the body
+        List<Stmt> body;
+        Stmt last;
+        if (loop.toDo instanceof Stmt.Block) {
+            List<Stmt> content = ((Stmt.Block) loop.toDo).content;
+            if (content.isEmpty()) {
+                return null;
+            }
+            body = content.subList(0, content.size() - 1);
+            last = content.get(content.size() - 1);
+        } else {
+            body = List.of();
+            last = loop.toDo;
+        }
+        Object step = step(last, counter.slot);
+        if (step == null) {
+            return null;
+        }
+
+        // a huge body gets nothing out of this anyways, & it'd make nested loops quadratic
+        Uses uses = new Uses();
+        if (!Walk.after(body, uses, uses, 1000)) {
+            return null;
+        }
+        // the body can't touch i or n, otherwise the loop isn't just counting
+        if (uses.writes.get(counter.slot)) {
+            return null;
+        }
+        Expr.Var boundVar = boundVar(cond.right);
+        if (boundVar != null && (boundVar.slot == counter.slot || uses.writes.get(boundVar.slot))) {
+            return null;
+        }
+        return new CountedLoop(counter, compare, cond.right, step, List.copyOf(body), uses.reads.get(counter.slot));
+    }
+
+    /** how much the statement adds to the variable if it's i = i + c, i = c + i, or i = i - c */
+    private static Object step(Stmt stmt, int slot) {
+        if (!(stmt instanceof Stmt.Expression) || !(((Stmt.Expression) stmt).expr instanceof Expr.Assignment)) {
+            return null;
+        }
+        Expr.Assignment assign = (Expr.Assignment) ((Stmt.Expression) stmt).expr;
+        if (assign.slot != slot || !(assign.val instanceof Expr.Binary)) {
+            return null;
+        }
+        Expr.Binary add = (Expr.Binary) assign.val;
+        if (add.op.type == TokenType.PLUS) {
+            if (isVar(add.left, slot) && isNumber(add.right)) {
+                return ((Expr.Literal) add.right).val;
+            }
+            if (isNumber(add.left) && isVar(add.right, slot)) {
+                return ((Expr.Literal) add.left).val;
+            }
+        } else if (add.op.type == TokenType.MINUS && isVar(add.left, slot) && isNumber(add.right)) {
+            // i - c is exactly i + -c for doubles & longs, so this doesn't change any answers
+            // (except that the smallest long doesn't have a negative)
+            Object c = ((Expr.Literal) add.right).val;
+            if (c instanceof Long) {
+                return (long) c == Long.MIN_VALUE ? null : (Object) (-(long) c);
+            }
+            return -(double) c;
+        }
+        return null;
+    }
+
+    /** the variable n comes from if it's a variable or a variable's .length */
+    private static Expr.Var boundVar(Expr bound) {
+        if (bound instanceof Expr.Length) {
+            bound = ((Expr.Length) bound).array;
+        }
+        return bound instanceof Expr.Var ? (Expr.Var) bound : null;
+    }
+
+    private static boolean isVar(Expr expr, int slot) {
+        return expr instanceof Expr.Var && ((Expr.Var) expr).slot == slot;
+    }
+
+    private static boolean isNumber(Expr expr) {
+        return expr instanceof Expr.Literal && Values.isNumber(((Expr.Literal) expr).val);
+    }
+}
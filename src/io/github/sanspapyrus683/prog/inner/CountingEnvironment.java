@@ -0,0 +1,31 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.Token;
+
+/** an environment that counts every read & write, for detailed metrics */
+public class CountingEnvironment extends Environment {
+    long reads = 0;
+    long writes = 0;
+
+    public CountingEnvironment(int size) {
+        super(size);
+    }
+
+    @Override
+    public void define(int slot, Object val) {
+        writes++;
+        super.define(slot, val);
+    }
+
+    @Override
+    public void assign(Token var, int slot, Object val) {
+        writes++;
+        super.assign(var, slot, val);
+    }
+
+    @Override
+    public Object get(Token var, int slot) {
+        reads++;
+        return super.get(var, slot);
+    }
+}
@@ -3,31 +3,49 @@ package io.github.sanspapyrus683.prog.inner;
 import io.github.sanspapyrus683.prog.Token;
 import io.github.sanspapyrus683.prog.errors.RuntimeError;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * the class that contains the variables of the interpreter
- * at its core, it's just a glorified hashmap lol
+ * every variable gets a slot number from the resolver, so at its core
+ * it's just a glorified array lol
  */
 public class Environment {
-    private final HashMap<String, Object> vars = new HashMap<>();
-    public void define(Token var, Object val) {
-        vars.put(var.lexeme, val);
+    /** what a slot holds before its var statement actually runs */
+    private static final Object UNDEFINED = new Object();
+
+    private Object[] vars;
+
+    public Environment() {
+        this(16);
+    }
+
+    public Environment(int size) {
+        vars = new Object[Math.max(size, 1)];
+        Arrays.fill(vars, UNDEFINED);
+    }
+
+    public void define(int slot, Object val) {
+        if (slot >= vars.length) {
+            int old = vars.length;
+            vars = Arrays.copyOf(vars, Math.max(slot + 1, old * 2));
+            Arrays.fill(vars, old, vars.length, UNDEFINED);
+        }
+        vars[slot] = val;
     }
 
-    public void assign(Token var, Object val) {
-        String name = var.lexeme;
-        if (!vars.containsKey(name)) {
-            throw new RuntimeError(var, "variable '" + name + "' not initialized you moron");
+    public void assign(Token var, int slot, Object val) {
+        if (slot >= vars.length || vars[slot] == UNDEFINED) {
+            throw new RuntimeError(var, "variable '" + var.lexeme + "' not initialized you moron");
         }
-        vars.put(name, val);
+        vars[slot] = val;
     }
 
-    public Object get(Token var) {
-        String name = var.lexeme;
-        if (!vars.containsKey(name)) {
-            throw new RuntimeError(var, "variable '" + name + "' not found");
+    public Object get(Token var, int slot) {
+        Object val;
+        if (slot >= vars.length || (val = vars[slot]) == UNDEFINED) {
+            throw new RuntimeError(var, "variable '" + var.lexeme + "' not found");
         }
-        return vars.get(name);
+        return val;
     }
 }
@@ -2,6 +2,8 @@ package io.github.sanspapyrus683.prog.inner;
 
 import io.github.sanspapyrus683.prog.Token;
 
+import java.util.List;
+
 /**
  * expressions are kinda self-explanatory
  * they're the things like (1 + 1) * 2, or a + b
@@ -17,6 +19,10 @@ public abstract class Expr {
         T visitLogicalExpr(Expr.Logical expr);
         T visitUnaryExpr(Expr.Unary expr);
         T visitVarExpr(Expr.Var expr);
+        T visitArrayLiteralExpr(Expr.ArrayLiteral expr);
+        T visitIndexExpr(Expr.Index expr);
+        T visitIndexAssignmentExpr(Expr.IndexAssignment expr);
+        T visitLengthExpr(Expr.Length expr);
     }
 
     public abstract <T> T accept(Visitor<T> visitor);
@@ -24,6 +30,8 @@ public abstract class Expr {
     public static class Assignment extends Expr {
         public final Token assignTo;
         public final Expr val;
+        public int slot = -1;  /** where the variable lives, filled in by the resolver */
+        public Fused fused;  /** filled in by the optimizer if it's a var = var + n */
         public Assignment(Token assignTo, Expr val) {
             this.assignTo = assignTo;
             this.val = val;
@@ -39,6 +47,9 @@ public abstract class Expr {
         public final Expr left;
         public final Token op;
         public final Expr right;
+        public Fused fused;  /** filled in by the optimizer if it's one of the shapes in Fused */
+        public boolean numeric;  /** if Types proved both sides are always numbers */
+        public boolean doubles;  /** & if they're always Doubles (never Longs) */
         public Binary(Expr left, Token op, Expr right) {
             this.left = left;
             this.op = op;
@@ -94,6 +105,8 @@ public abstract class Expr {
     public static class Unary extends Expr {
         public final Token op;
         public final Expr right;
+        public boolean numeric;  /** if Types proved it's a - on something that's always a number */
+        public boolean doubles;  /** & if that's always a Double */
         public Unary(Token op, Expr right) {
             this.op = op;
             this.right = right;
@@ -107,6 +120,7 @@ public abstract class Expr {
 
     public static class Var extends Expr {
         public final Token name;
+        public int slot = -1;  /** where the variable lives, filled in by the resolver */
         public Var(Token name) {
             this.name = name;
         }
@@ -116,4 +130,70 @@ public abstract class Expr {
             return visitor.visitVarExpr(this);
         }
     }
+
+    /** [a, b, c], it makes a new array every time it runs */
+    public static class ArrayLiteral extends Expr {
+        public final Token bracket;  /** the [ at the start */
+        public final List<Expr> items;
+        public ArrayLiteral(Token bracket, List<Expr> items) {
+            this.bracket = bracket;
+            this.items = items;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitArrayLiteralExpr(this);
+        }
+    }
+
+    /** array[index] */
+    public static class Index extends Expr {
+        public final Expr array;
+        public final Token bracket;  /** the [, for errors */
+        public final Expr index;
+        public Index(Expr array, Token bracket, Expr index) {
+            this.array = array;
+            this.bracket = bracket;
+            this.index = index;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitIndexExpr(this);
+        }
+    }
+
+    /** array[index] = val, which gives back val like a normal assignment */
+    public static class IndexAssignment extends Expr {
+        public final Expr array;
+        public final Token bracket;
+        public final Expr index;
+        public final Expr val;
+        public IndexAssignment(Expr array, Token bracket, Expr index, Expr val) {
+            this.array = array;
+            this.bracket = bracket;
+            this.index = index;
+            this.val = val;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitIndexAssignmentExpr(this);
+        }
+    }
+
+    /** array.length */
+    public static class Length extends Expr {
+        public final Expr array;
+        public final Token name;  /** the length after the . */
+        public Length(Expr array, Token name) {
+            this.array = array;
+            this.name = name;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitLengthExpr(this);
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.TokenType;
+
+/**
+ * a few shapes that show up in basically every script, done all at once instead of a node at a time:
+ * - a variable & a number, like i < 10 or i * 2
+ * - a variable mod a number compared to a number, like i % 3 == 0 (hi fizzbuzz)
+ * - adding a number to a variable & putting it right back, like i = i + 1
+ * the optimizer hangs these off the node they came from, the node itself stays the same
+ *
+ * they only do anything if the variable's a number
+ * otherwise the backend just runs the node normally, so errors & strings & all that work exactly like before
+ */
+public final class Fused {
+    public enum Shape {
+        VAR_CONST,  /** var op n */
+        MOD_COMPARE,  /** var % n == compareTo (or !=) */
+        INCREMENT  /** var = var + n (or -), the answer goes back in the variable too */
+    }
+
+    public final Shape shape;
+    public final Expr.Var var;
+    public final TokenType op;  /** for MOD_COMPARE it's the == or != */
+    public final Object n;  /** a Long or a Double, like every number */
+    public final Object compareTo;  /** only for MOD_COMPARE */
+    private final boolean wholes;  /** if n (& compareTo) are Longs, so a Long variable never needs converting */
+    private final boolean doubles;  /** same thing but Doubles */
+
+    private Fused(Shape shape, Expr.Var var, TokenType op, Object n, Object compareTo) {
+        this.shape = shape;
+        this.var = var;
+        this.op = op;
+        this.n = n;
+        this.compareTo = compareTo;
+        this.wholes = n instanceof Long && (shape != Shape.MOD_COMPARE || compareTo instanceof Long);
+        this.doubles = n instanceof Double && (shape != Shape.MOD_COMPARE || compareTo instanceof Double);
+    }
+
+    /**
+     * what the whole thing comes out to (a number or a Boolean) when the variable's v,
+     * or null if v isn't a number (then the node has to run the normal way)
+     */
+    public Object apply(Object v) {
+        if (v instanceof Long && wholes) {
+            return apply((long) v);
+        }
+        // kept out of the way so the usual case is small enough to get inlined everywhere
+        return applySlow(v);
+    }
+
+    private Object applySlow(Object v) {
+        if (!Values.isNumber(v)) {
+            return null;
+        }
+        if (v instanceof Double && doubles) {
+            return apply((double) v);
+        }
+        // some mix of longs & doubles, which is rare enough to just do the normal way
+        if (shape == Shape.MOD_COMPARE) {
+            return Values.equal(Values.mod(v, n), compareTo) == (op == TokenType.EQUAL_EQUAL);
+        }
+        switch (op) {
+            case PLUS: return Values.add(v, n);
+            case MINUS: return Values.sub(v, n);
+            case STAR: return Values.mul(v, n);
+            case SLASH: return Values.div(v, n);
+            case MOD: return Values.mod(v, n);
+            case GREATER: return Values.greater(v, n);
+            case GREATER_EQUAL: return Values.greaterEqual(v, n);
+            case LESS: return Values.less(v, n);
+            case LESS_EQUAL: return Values.lessEqual(v, n);
+            case EQUAL_EQUAL: return Values.equal(v, n);
+            default: return !Values.equal(v, n);
+        }
+    }
+
+    /** if apply(long) works for this, which is when n (& compareTo) are Longs */
+    public boolean wholes() {
+        return wholes;
+    }
+
+    /** apply for a variable that's a long (only if wholes()), for backends that keep them unboxed */
+    public Object apply(long v) {
+        long n = (long) this.n;
+        if (shape == Shape.MOD_COMPARE) {
+            if (n == 0) {
+                return op != TokenType.EQUAL_EQUAL;  // it's NaN
+            }
+            long rem = v % n;
+            // a remainder of 0 from a negative v is -0, & that's never equal to a Long
+            boolean equal = rem == (long) compareTo && (rem != 0 || v >= 0);
+            return equal == (op == TokenType.EQUAL_EQUAL);
+        }
+        switch (op) {
+            case PLUS: return Values.add(v, n);
+            case MINUS: return Values.sub(v, n);
+            case STAR: return Values.mul(v, n);
+            case SLASH: return Values.div(v, n);
+            case MOD: return Values.mod(v, n);
+            case GREATER: return v > n;
+            case GREATER_EQUAL: return v >= n;
+            case LESS: return v < n;
+            case LESS_EQUAL: return v <= n;
+            case EQUAL_EQUAL: return v == n;
+            default: return v != n;
+        }
+    }
+
+    private Object apply(double v) {
+        double n = (double) this.n;
+        if (shape == Shape.MOD_COMPARE) {
+            return Values.same(Values.mod(v, n), (double) compareTo) == (op == TokenType.EQUAL_EQUAL);
+        }
+        switch (op) {
+            case PLUS: return v + n;
+            case MINUS: return v - n;
+            case STAR: return v * n;
+            case SLASH: return v / n;
+            case MOD: return Values.mod(v, n);
+            case GREATER: return v > n;
+            case GREATER_EQUAL: return v >= n;
+            case LESS: return v < n;
+            case LESS_EQUAL: return v <= n;
+            case EQUAL_EQUAL: return Values.same(v, n);
+            default: return !Values.same(v, n);
+        }
+    }
+
+    /** the fused version of this, or null if it isn't one of the shapes (the slots have to be resolved already) */
+    public static Fused match(Expr.Binary expr) {
+        TokenType op = expr.op.type;
+        if (!isNumber(expr.right)) {
+            return null;
+        }
+        Object n = ((Expr.Literal) expr.right).val;
+        if (expr.left instanceof Expr.Var) {
+            return new Fused(Shape.VAR_CONST, (Expr.Var) expr.left, op, n, null);
+        }
+        if ((op == TokenType.EQUAL_EQUAL || op == TokenType.BANG_EQUAL) && expr.left instanceof Expr.Binary) {
+            Expr.Binary mod = (Expr.Binary) expr.left;
+            if (mod.op.type == TokenType.MOD && mod.left instanceof Expr.Var && isNumber(mod.right)) {
+                return new Fused(Shape.MOD_COMPARE, (Expr.Var) mod.left, op,
+                        ((Expr.Literal) mod.right).val, n);
+            }
+        }
+        return null;
+    }
+
+    public static Fused match(Expr.Assignment expr) {
+        if (!(expr.val instanceof Expr.Binary)) {
+            return null;
+        }
+        Expr.Binary add = (Expr.Binary) expr.val;
+        TokenType op = add.op.type;
+        if ((op == TokenType.PLUS || op == TokenType.MINUS) && add.left instanceof Expr.Var
+                && ((Expr.Var) add.left).slot == expr.slot && isNumber(add.right)) {
+            return new Fused(Shape.INCREMENT, (Expr.Var) add.left, op, ((Expr.Literal) add.right).val, null);
+        }
+        return null;
+    }
+
+    private static boolean isNumber(Expr expr) {
+        return expr instanceof Expr.Literal && Values.isNumber(((Expr.Literal) expr).val);
+    }
+}
@@ -1,14 +1,51 @@
 package io.github.sanspapyrus683.prog.inner;
 
-import io.github.sanspapyrus683.prog.ActualLang;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
 import io.github.sanspapyrus683.prog.errors.RuntimeError;
 import io.github.sanspapyrus683.prog.Token;
 import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.output.Output;
+import io.github.sanspapyrus683.prog.output.StreamOutput;
 
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * walks the tree & runs it
+ * the statements have to go through the resolver first so the variables have slots
+ *
+ * it recurses like normal, except for statements the optimizer marked as deep (nested too much for
+ * the java stack), those get run w/ an explicit stack instead (see executeDeep)
+ */
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void>  {
-    private final Environment environment = new Environment();
+    private final Environment environment;
+    private final Output out;
+    private final ErrorReporter errors;
+    //region the stacks for executeDeep
+    private Object[] nodes;  /** what's waiting on the stuff inside it */
+    private int[] steps;  /** how far into each one of those it's gotten */
+    private int nodeCount;
+    private Object[] vals;  /** the values of the expressions that are done but not used yet */
+    private int valCount;
+    //endregion
+
+    public Interpreter() {
+        this(new Environment());
+    }
+
+    public Interpreter(Environment environment) {
+        this(environment, new StreamOutput(System.out));
+    }
+
+    public Interpreter(Environment environment, Output out) {
+        this(environment, out, ErrorReporter.STDERR);
+    }
+
+    public Interpreter(Environment environment, Output out, ErrorReporter errors) {
+        this.environment = environment;
+        this.out = out;
+        this.errors = errors;
+    }
 
     public void interpret(List<Stmt> statements) {
         try {
@@ -16,12 +53,17 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void>  {
                 execute(s);
             }
         } catch (RuntimeError error) {
-            ActualLang.runtimeError(error);
+            errors.runtimeError(error);
         }
     }
 
     //region statements
-    private void execute(Stmt stmt) {
+    /** every statement runs through here (ProfilingInterpreter hooks into it) */
+    protected void execute(Stmt stmt) {
+        if (stmt.deep) {
+            executeDeep(stmt);
+            return;
+        }
         stmt.accept(this);
     }
 
@@ -49,25 +91,115 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void>  {
         return null;
     }
 
+    @Override
+    public Void visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
     @Override
     public Void visitPrint(Stmt.Print expr) {
-        System.out.println(evaluate(expr.expr));
+        out.println(evaluate(expr.expr));
         return null;
     }
 
     @Override
     public Void visitVar(Stmt.Var expr) {
-        environment.define(expr.name, evaluate(expr.init));
+        environment.define(expr.slot, evaluate(expr.init));
         return null;
     }
 
     @Override
     public Void visitWhile(Stmt.While stmt) {
+        // the optimizer leaves stuff like for (;;) w/ a literal that's always true
+        if (stmt.condition instanceof Expr.Literal && bool(((Expr.Literal) stmt.condition).val)) {
+            for (;;) {
+                execute(stmt.toDo);
+                loopedBack(stmt);
+            }
+        }
+        if (stmt.counted != null && countsLoops() && countedLoop(stmt)) {
+            return null;
+        }
         while (bool(evaluate(stmt.condition))) {
             execute(stmt.toDo);
+            loopedBack(stmt);
         }
         return null;
     }
+
+    /** gets called every time a loop goes around (BudgetedInterpreter hooks into it) */
+    protected void loopedBack(Stmt.While loop) { }
+
+    /** if counted loops get to skip executing their block & increment like normal statements */
+    protected boolean countsLoops() {
+        return true;
+    }
+
+    /**
+     * runs a counted loop w/ i as a plain long or double
+     * returns false if i, the bound, & the step aren't all longs or all doubles, so the normal loop can do it
+     * (& error if it has to), that's also what happens if i overflows partway through
+     */
+    private boolean countedLoop(Stmt.While stmt) {
+        CountedLoop loop = stmt.counted;
+        Object start = evaluate(loop.counter);
+        Object bound = evaluate(loop.bound);
+        int slot = loop.counter.slot;
+        if (start instanceof Long && bound instanceof Long && loop.step instanceof Long) {
+            long i = (long) start;
+            long n = (long) bound;
+            long step = (long) loop.step;
+            boolean overflowed = false;
+            try {
+                while (loop.test(i, n)) {
+                    if (loop.bodyReads) {
+                        environment.define(slot, i);
+                    }
+                    for (Stmt s : loop.body) {
+                        execute(s);
+                    }
+                    Object next = Values.add(i, step);
+                    if (!(next instanceof Long)) {
+                        // i's a double from here on, so the normal loop can take it from here
+                        overflowed = true;
+                        environment.define(slot, next);
+                        loopedBack(stmt);
+                        return false;
+                    }
+                    i = (long) next;
+                    loopedBack(stmt);
+                }
+            } finally {
+                // i has to be right afterwards even if the body errored
+                if (!overflowed) {
+                    environment.define(slot, i);
+                }
+            }
+            return true;
+        }
+        if (!(start instanceof Double && bound instanceof Double && loop.step instanceof Double)) {
+            return false;
+        }
+        double i = (double) start;
+        double n = (double) bound;
+        double step = (double) loop.step;
+        try {
+            while (loop.test(i, n)) {
+                if (loop.bodyReads) {
+                    environment.define(slot, i);
+                }
+                for (Stmt s : loop.body) {
+                    execute(s);
+                }
+                i += step;
+                loopedBack(stmt);
+            }
+        } finally {
+            // i has to be right afterwards even if the body errored
+            environment.define(slot, i);
+        }
+        return true;
+    }
     //endregion
 
     //region math expression stuff
@@ -77,54 +209,147 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void>  {
 
     @Override
     public Object visitAssignmentExpr(Expr.Assignment expr) {
+        if (expr.fused != null) {
+            Object val = fused(expr.fused);
+            if (val != null) {
+                environment.assign(expr.assignTo, expr.slot, val);
+                return val;
+            }
+        }
         Object val = evaluate(expr.val);
-        environment.assign(expr.assignTo, val);
+        environment.assign(expr.assignTo, expr.slot, val);
         return val;
     }
 
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
+        if (expr.fused != null) {
+            Object val = fused(expr.fused);
+            if (val != null) {
+                return val;
+            }
+        }
+        if (expr.numeric) {
+            return numeric(expr);
+        }
         Object left = evaluate(expr.left);
-        Object right = evaluate(expr.right);
+        return binary(expr, left, evaluate(expr.right));
+    }
+
+    /** math or a comparison that Types proved only ever gets numbers, so there's nothing to check */
+    private Object numeric(Expr.Binary expr) {
+        if (expr.doubles) {
+            double left = number(expr.left);
+            double right = number(expr.right);
+            switch (expr.op.type) {
+                case PLUS: return left + right;
+                case MINUS: return left - right;
+                case STAR: return left * right;
+                case SLASH: return left / right;
+                case MOD: return Values.mod(left, right);
+                case GREATER: return left > right;
+                case GREATER_EQUAL: return left >= right;
+                case LESS: return left < right;
+                case LESS_EQUAL: return left <= right;
+                case EQUAL_EQUAL: return Values.same(left, right);
+                default: return !Values.same(left, right);
+            }
+        }
+        Object left = evaluate(expr.left);
+        return math(expr.op.type, left, evaluate(expr.right));
+    }
+
+    /**
+     * an expression that's always a Double (or errors), w/ any math in it done on plain doubles
+     * so only the answer at the very top ever gets boxed
+     */
+    private double number(Expr expr) {
+        if (expr instanceof Expr.Binary) {
+            Expr.Binary math = (Expr.Binary) expr;
+            if (math.doubles) {
+                switch (math.op.type) {
+                    case PLUS: return number(math.left) + number(math.right);
+                    case MINUS: return number(math.left) - number(math.right);
+                    case STAR: return number(math.left) * number(math.right);
+                    case SLASH: return number(math.left) / number(math.right);
+                    case MOD: {
+                        double left = number(math.left);
+                        return Values.mod(left, number(math.right));
+                    }
+                }
+            }
+        } else if (expr instanceof Expr.Unary && ((Expr.Unary) expr).doubles) {
+            return -number(((Expr.Unary) expr).right);
+        }
+        return (double) evaluate(expr);
+    }
+
+    /**
+     * does a fused node all at once, or gives null if its variable isn't a number
+     * (then it gets evaluated the normal way, reading a variable twice doesn't change anything)
+     */
+    private Object fused(Fused fused) {
+        return fused.apply(environment.get(fused.var.name, fused.var.slot));
+    }
+
+    /** adding 2 strings (BudgetedInterpreter hooks into it) */
+    protected CharSequence concat(Token op, Object left, Object right) {
+        return Values.concat(left, right);
+    }
+
+    private Object binary(Expr.Binary expr, Object left, Object right) {
         switch (expr.op.type) {
             case PLUS:
-                if (left instanceof String && right instanceof String) {
-                    return left + (String) right;
+                if (left instanceof CharSequence && right instanceof CharSequence) {
+                    return concat(expr.op, left, right);
                 }
-                if (left instanceof Double && right instanceof Double) {
-                    return (double) left + (double) right;
+                if (Values.isNumber(left) && Values.isNumber(right)) {
+                    return Values.add(left, right);
                 }
                 throw new RuntimeError(expr.op, "operands need to be the same");
-            case MINUS:
-                checkBothNums(expr.op, left, right);
-                return (double) left - (double) right;
-            case SLASH:
-                checkBothNums(expr.op, left, right);
-                return (double) left / (double) right;
-            case STAR:
-                checkBothNums(expr.op, left, right);
-                return (double) left * (double) right;
-            case MOD:
-                checkBothNums(expr.op, left, right);
-                return (double) left % (double) right;
-            case GREATER:
-                checkBothNums(expr.op, left, right);
-                return (double) left > (double) right;
-            case GREATER_EQUAL:
-                checkBothNums(expr.op, left, right);
-                return (double) left >= (double) right;
-            case LESS:
-                checkBothNums(expr.op, left, right);
-                return (double) left < (double) right;
-            case LESS_EQUAL:
-                checkBothNums(expr.op, left, right);
-                return (double) left <= (double) right;
             case EQUAL_EQUAL:
                 return equal(left, right);
             case BANG_EQUAL:
                 return !equal(left, right);
+            default:
+                checkBothNums(expr.op, left, right);
+                return math(expr.op.type, left, right);
+        }
+    }
+
+    /** an operator (other than == & !=) on two things that are for sure numbers */
+    private static Object math(TokenType op, Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            // the fast path for whole numbers, they don't need any converting
+            long l = (long) left;
+            long r = (long) right;
+            switch (op) {
+                case PLUS: return Values.add(l, r);
+                case MINUS: return Values.sub(l, r);
+                case STAR: return Values.mul(l, r);
+                case SLASH: return Values.div(l, r);
+                case MOD: return Values.mod(l, r);
+                case GREATER: return l > r;
+                case GREATER_EQUAL: return l >= r;
+                case LESS: return l < r;
+                case LESS_EQUAL: return l <= r;
+                case EQUAL_EQUAL: return l == r;
+                default: return l != r;
+            }
+        }
+        switch (op) {
+            case PLUS: return Values.add(left, right);
+            case MINUS: return Values.sub(left, right);
+            case STAR: return Values.mul(left, right);
+            case SLASH: return Values.div(left, right);
+            case MOD: return Values.mod(left, right);
+            case GREATER: return Values.greater(left, right);
+            case GREATER_EQUAL: return Values.greaterEqual(left, right);
+            case LESS: return Values.less(left, right);
+            case LESS_EQUAL: return Values.lessEqual(left, right);
+            case EQUAL_EQUAL: return Values.equal(left, right);
+            default: return !Values.equal(left, right);
         }
-        return null;  // what
     }
 
     @Override
@@ -150,10 +375,16 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void>  {
 
     @Override
     public Object visitUnaryExpr(Expr.Unary expr) {
-        Object val = evaluate(expr.right);
+        return unary(expr, evaluate(expr.right));
+    }
+
+    private Object unary(Expr.Unary expr, Object val) {
+        if (expr.numeric) {
+            return Values.negate(val);
+        }
         if (expr.op.type == TokenType.MINUS) {
             checkNum(expr.op, val);
-            return -(double) val;
+            return Values.negate(val);
         } else if (expr.op.type == TokenType.BANG) {
             return !bool(val);
         }
@@ -162,13 +393,284 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void>  {
 
     @Override
     public Object visitVarExpr(Expr.Var expr) {
-        return environment.get(expr.name);
+        return environment.get(expr.name, expr.slot);
+    }
+    //endregion
+
+    //region arrays
+    @Override
+    public Object visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        Object[] items = new Object[expr.items.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = evaluate(expr.items.get(i));
+        }
+        return Array.of(items);
+    }
+
+    @Override
+    public Object visitIndexExpr(Expr.Index expr) {
+        Object array = evaluate(expr.array);
+        return index(expr.bracket, array, evaluate(expr.index));
+    }
+
+    @Override
+    public Object visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        Object array = evaluate(expr.array);
+        Object index = evaluate(expr.index);
+        Object val = evaluate(expr.val);
+        setIndex(expr.bracket, array, index, val);
+        return val;
+    }
+
+    @Override
+    public Object visitLengthExpr(Expr.Length expr) {
+        return length(expr.name, evaluate(expr.array));
+    }
+
+    private static Object index(Token bracket, Object array, Object index) {
+        try {
+            return Array.index(array, index);
+        } catch (Array.BadAccess e) {
+            throw e.at(bracket);
+        }
+    }
+
+    private static void setIndex(Token bracket, Object array, Object index, Object val) {
+        try {
+            Array.setIndex(array, index, val);
+        } catch (Array.BadAccess e) {
+            throw e.at(bracket);
+        }
+    }
+
+    private static Object length(Token name, Object array) {
+        try {
+            return Array.lengthOf(array);
+        } catch (Array.BadAccess e) {
+            throw e.at(name);
+        }
     }
     //endregion
 
-    /** checks if toCheck is a Double object- if it isn't, throws an error */
+    //region running stuff that's nested too deep to recurse
+    /*
+     * this does the exact same thing as the visitors, but everything that's waiting on
+     * something inside it goes on nodes (w/ how far into it we are in steps) instead of the java stack
+     * values go on their own stack, so something like a + b pushes a, then b, then pops both for the answer
+     * the statements in here don't go through execute, so the profiler only sees the outermost one
+     */
+    private void executeDeep(Stmt root) {
+        nodes = new Object[64];
+        steps = new int[64];
+        vals = new Object[64];
+        nodeCount = 0;
+        valCount = 0;
+        pushNode(root);
+        try {
+            while (nodeCount > 0) {
+                stepDeep(nodes[nodeCount - 1], steps[nodeCount - 1]++);
+            }
+        } finally {
+            // don't hang onto any of it
+            nodes = null;
+            vals = null;
+        }
+    }
+
+    /** does the next bit of whatever node's on top */
+    private void stepDeep(Object node, int step) {
+        if (node instanceof Expr) {
+            if (node instanceof Expr.Literal) {
+                pushVal(((Expr.Literal) node).val);
+                nodeCount--;
+            } else if (node instanceof Expr.Var) {
+                Expr.Var expr = (Expr.Var) node;
+                pushVal(environment.get(expr.name, expr.slot));
+                nodeCount--;
+            } else if (node instanceof Expr.Binary) {
+                Expr.Binary expr = (Expr.Binary) node;
+                if (step == 0) {
+                    pushNode(expr.left);
+                } else if (step == 1) {
+                    pushNode(expr.right);
+                } else {
+                    Object right = popVal();
+                    vals[valCount - 1] = binary(expr, vals[valCount - 1], right);
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.Logical) {
+                Expr.Logical expr = (Expr.Logical) node;
+                if (step == 0) {
+                    pushNode(expr.left);
+                } else if (step == 1) {
+                    // the left side's the answer if it decides it, otherwise it's whatever the right side is
+                    boolean truthy = bool(vals[valCount - 1]);
+                    if (truthy == (expr.op.type == TokenType.OR)) {
+                        nodeCount--;
+                    } else {
+                        popVal();
+                        pushNode(expr.right);
+                    }
+                } else {
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.Unary) {
+                Expr.Unary expr = (Expr.Unary) node;
+                if (step == 0) {
+                    pushNode(expr.right);
+                } else {
+                    vals[valCount - 1] = unary(expr, vals[valCount - 1]);
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.Grouping) {
+                if (step == 0) {
+                    pushNode(((Expr.Grouping) node).group);
+                } else {
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.Assignment) {
+                Expr.Assignment expr = (Expr.Assignment) node;
+                if (step == 0) {
+                    pushNode(expr.val);
+                } else {
+                    environment.assign(expr.assignTo, expr.slot, vals[valCount - 1]);
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.ArrayLiteral) {
+                List<Expr> items = ((Expr.ArrayLiteral) node).items;
+                if (step < items.size()) {
+                    pushNode(items.get(step));
+                } else {
+                    Object[] made = new Object[items.size()];
+                    for (int i = made.length - 1; i >= 0; i--) {
+                        made[i] = popVal();
+                    }
+                    pushVal(Array.of(made));
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.Index) {
+                Expr.Index expr = (Expr.Index) node;
+                if (step == 0) {
+                    pushNode(expr.array);
+                } else if (step == 1) {
+                    pushNode(expr.index);
+                } else {
+                    Object index = popVal();
+                    vals[valCount - 1] = index(expr.bracket, vals[valCount - 1], index);
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.IndexAssignment) {
+                Expr.IndexAssignment expr = (Expr.IndexAssignment) node;
+                if (step == 0) {
+                    pushNode(expr.array);
+                } else if (step == 1) {
+                    pushNode(expr.index);
+                } else if (step == 2) {
+                    pushNode(expr.val);
+                } else {
+                    Object val = popVal();
+                    Object index = popVal();
+                    setIndex(expr.bracket, vals[valCount - 1], index, val);
+                    vals[valCount - 1] = val;
+                    nodeCount--;
+                }
+            } else if (node instanceof Expr.Length) {
+                Expr.Length expr = (Expr.Length) node;
+                if (step == 0) {
+                    pushNode(expr.array);
+                } else {
+                    vals[valCount - 1] = length(expr.name, vals[valCount - 1]);
+                    nodeCount--;
+                }
+            }
+            return;
+        }
+
+        if (node instanceof Stmt.Block) {
+            List<Stmt> content = ((Stmt.Block) node).content;
+            if (step < content.size()) {
+                pushNode(content.get(step));
+            } else {
+                nodeCount--;
+            }
+        } else if (node instanceof Stmt.Expression) {
+            if (step == 0) {
+                pushNode(((Stmt.Expression) node).expr);
+            } else {
+                popVal();
+                nodeCount--;
+            }
+        } else if (node instanceof Stmt.Print) {
+            if (step == 0) {
+                pushNode(((Stmt.Print) node).expr);
+            } else {
+                out.println(popVal());
+                nodeCount--;
+            }
+        } else if (node instanceof Stmt.Var) {
+            Stmt.Var stmt = (Stmt.Var) node;
+            if (step == 0) {
+                pushNode(stmt.init);
+            } else {
+                environment.define(stmt.slot, popVal());
+                nodeCount--;
+            }
+        } else if (node instanceof Stmt.If) {
+            Stmt.If stmt = (Stmt.If) node;
+            if (step == 0) {
+                pushNode(stmt.condition);
+            } else if (step == 1) {
+                if (bool(popVal())) {
+                    pushNode(stmt.thenDo);
+                } else if (stmt.elseDo != null) {
+                    pushNode(stmt.elseDo);
+                } else {
+                    nodeCount--;
+                }
+            } else {
+                nodeCount--;
+            }
+        } else if (node instanceof Stmt.While) {
+            Stmt.While stmt = (Stmt.While) node;
+            if (step == 0) {
+                pushNode(stmt.condition);
+            } else if (bool(popVal())) {
+                loopedBack(stmt);
+                steps[nodeCount - 1] = 0;  // check the condition again after this
+                pushNode(stmt.toDo);
+            } else {
+                nodeCount--;
+            }
+        }
+    }
+
+    private void pushNode(Object node) {
+        if (nodeCount == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodeCount * 2);
+            steps = Arrays.copyOf(steps, nodeCount * 2);
+        }
+        nodes[nodeCount] = node;
+        steps[nodeCount] = 0;
+        nodeCount++;
+    }
+
+    private void pushVal(Object val) {
+        if (valCount == vals.length) {
+            vals = Arrays.copyOf(vals, valCount * 2);
+        }
+        vals[valCount++] = val;
+    }
+
+    private Object popVal() {
+        Object val = vals[--valCount];
+        vals[valCount] = null;
+        return val;
+    }
+    //endregion
+
+    /** checks if toCheck is a number (a Long or a Double)- if it isn't, throws an error */
     private void checkNum(Token operand, Object toCheck) {
-        if (toCheck instanceof Double) {
+        if (Values.isNumber(toCheck)) {
             return;
         }
         throw new RuntimeError(operand, "operand must be a number");
@@ -176,29 +678,16 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void>  {
 
     /** does the same thing except for two numbers */
     private void checkBothNums(Token operand, Object left, Object right) {
-        if (!(left instanceof Double && right instanceof Double)) {
+        if (!(Values.isNumber(left) && Values.isNumber(right))) {
             throw new RuntimeError(operand, "operands must both be numbers");
         }
     }
 
     private boolean bool(Object obj) {
-        if (obj == null) {
-            return false;
-        }
-        if (obj instanceof String) {
-            return ((String) obj).length() > 0;
-        } else if (obj instanceof Double) {
-            return ((double) obj) != 0;
-        } else if (obj instanceof Boolean) {
-            return (boolean) obj;
-        }
-        return true;  // what
+        return Values.bool(obj);
     }
 
     private boolean equal(Object o1, Object o2) {
-        if (o1 == null || o2 == null) {
-            return o1 == o2;
-        }
-        return o1.equals(o2);
+        return Values.equal(o1, o2);
     }
 }
@@ -0,0 +1,84 @@
+package io.github.sanspapyrus683.prog.inner;
+
+/**
+ * a string that was made by adding strings together
+ * without this, s = s + "..." in a loop copies all of s every time (so it's n^2)
+ *
+ * every one of these is the first length chars of a StringBuilder that only ever gets added to,
+ * so adding onto the newest string made from a builder just appends to it & shares it w/ the old ones
+ * adding onto any other one (or a normal String) copies it into a new builder first
+ *
+ * it only gets turned into an actual String when something needs the whole thing,
+ * like printing it or checking if it's equal to something
+ * not thread safe, but a run's values never leave the run anyways
+ */
+public final class JoinedString implements CharSequence {
+    /** anything shorter than this is cheaper as a normal String */
+    static final int MIN_LENGTH = 64;
+
+    private final StringBuilder chars;  /** shared w/ every other string that got added onto this one */
+    private final int length;
+    private String flat;  /** the actual String, once something's asked for it */
+
+    private JoinedString(StringBuilder chars, int length) {
+        this.chars = chars;
+        this.length = length;
+    }
+
+    /** left + right, as a String or a JoinedString depending on how long it is */
+    static CharSequence join(CharSequence left, CharSequence right) {
+        int len = left.length() + right.length();
+        if (len < MIN_LENGTH) {
+            return left.toString().concat(right.toString());
+        }
+        // flattening the right side first means a string can get added to itself safely
+        String add = right.toString();
+        StringBuilder chars;
+        if (left instanceof JoinedString) {
+            JoinedString l = (JoinedString) left;
+            if (l.chars.length() == l.length) {
+                l.chars.append(add);
+                return new JoinedString(l.chars, len);
+            }
+            chars = new StringBuilder(len).append(l.chars, 0, l.length);
+        } else {
+            chars = new StringBuilder(len).append((String) left);
+        }
+        chars.append(add);
+        return new JoinedString(chars, len);
+    }
+
+    /** about how many bytes of chars making made out of left + something took (for budgets) */
+    static long bytes(CharSequence left, CharSequence made) {
+        // if it got added onto the end of left's builder, only the new part is new
+        boolean shared = left instanceof JoinedString && made instanceof JoinedString
+                && ((JoinedString) left).chars == ((JoinedString) made).chars;
+        return 2L * (shared ? made.length() - left.length() : made.length());
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return chars.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null) {
+            flat = chars.substring(0, length);
+        }
+        return flat;
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.metrics.MeteredRun;
+import io.github.sanspapyrus683.prog.output.Output;
+
+/**
+ * the tree interpreter but it counts statements, variable accesses, & boxed numbers as it goes
+ * like ProfilingInterpreter it's its own class so normal runs don't pay for the counting
+ */
+public class MeteredInterpreter extends Interpreter implements MeteredRun {
+    private final CountingEnvironment environment;
+    private long statements = 0;
+    private long boxed = 0;
+
+    public MeteredInterpreter(int slots, Output out, ErrorReporter errors) {
+        this(new CountingEnvironment(slots), out, errors);
+    }
+
+    private MeteredInterpreter(CountingEnvironment environment, Output out, ErrorReporter errors) {
+        super(environment, out, errors);
+        this.environment = environment;
+    }
+
+    @Override
+    protected void execute(Stmt stmt) {
+        statements++;
+        super.execute(stmt);
+    }
+
+    @Override
+    public Object visitBinaryExpr(Expr.Binary expr) {
+        return counted(super.visitBinaryExpr(expr));
+    }
+
+    @Override
+    public Object visitUnaryExpr(Expr.Unary expr) {
+        return counted(super.visitUnaryExpr(expr));
+    }
+
+    /**
+     * every number that comes out of math is a brand new Long or Double (booleans are always the same 2 objects,
+     * & really small longs are too, but those get counted anyways)
+     */
+    private Object counted(Object val) {
+        if (val instanceof Double || val instanceof Long) {
+            boxed++;
+        }
+        return val;
+    }
+
+    @Override
+    public long statements() {
+        return statements;
+    }
+
+    @Override
+    public long reads() {
+        return environment.reads;
+    }
+
+    @Override
+    public long writes() {
+        return environment.writes;
+    }
+
+    @Override
+    public long boxed() {
+        return boxed;
+    }
+}
@@ -0,0 +1,245 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * cleans up the tree before it gets run
+ * - math & logic on literals gets done ahead of time
+ * - parentheses are gone (the tree already has the order baked in)
+ * - ifs & whiles w/ a constant condition lose the branch that can't run
+ * - blocks get flattened, since they don't make a new scope anyways
+ *   (so for loops become init, while, w/ the body & increment in one block)
+ * - whiles that are just counting get marked so the interpreter can use a plain long or double (see CountedLoop)
+ * - math on a variable & a number gets marked so it can skip the nodes inside it (see Fused)
+ * it runs after the resolver, so every variable node keeps its slot
+ *
+ * it doesn't recurse (see Walk), each node's already-optimized children are on a stack when it gets visited
+ * top level statements that are nested too deep to run w/ recursion get marked as deep on the way out
+ */
+public class Optimizer implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    /** does the actual folding, so the results are exactly what running it would give */
+    private final Interpreter folder = new Interpreter();
+    /** what everything that's been visited turned into (statements can turn into null) */
+    private final List<Object> done = new ArrayList<>();
+
+    public List<Stmt> optimize(List<Stmt> statements) {
+        List<Stmt> ret = new ArrayList<>();
+        for (Stmt s : statements) {
+            Walk.after(s, this, this);
+            add(ret, (Stmt) pop());
+        }
+        for (Stmt s : ret) {
+            s.deep = Walk.height(s) > Walk.MAX_RECURSION;
+        }
+        return ret;
+    }
+
+    private Object pop() {
+        return done.remove(done.size() - 1);
+    }
+
+    private Expr popExpr() {
+        return (Expr) pop();
+    }
+
+    private Stmt popStmt() {
+        return (Stmt) pop();
+    }
+
+    /** puts an optimized statement in the list, splicing it in if it's a block */
+    private static void add(List<Stmt> to, Stmt opt) {
+        if (opt instanceof Stmt.Block) {
+            to.addAll(((Stmt.Block) opt).content);
+        } else if (opt != null) {
+            to.add(opt);
+        }
+    }
+
+    /**
+     * for a statement that has to exist, like the body of an if
+     * an empty block it makes instead is on the same line as the statement it's in (so errors from it aren't on line 0)
+     */
+    private static Stmt required(Stmt opt, Stmt in) {
+        return opt == null ? sameLine(new Stmt.Block(new ArrayList<>()), in) : opt;
+    }
+
+    //region statements
+    // these all give null if the statement doesn't need to run at all
+
+    @Override
+    public Stmt visitBlock(Stmt.Block stmt) {
+        List<Object> inside = done.subList(done.size() - stmt.content.size(), done.size());
+        List<Stmt> content = new ArrayList<>();
+        for (Object s : inside) {
+            add(content, (Stmt) s);
+        }
+        inside.clear();
+        if (content.isEmpty()) {
+            return push(null);
+        }
+        return push(content.size() == 1 ? content.get(0) : sameLine(new Stmt.Block(content), stmt));
+    }
+
+    @Override
+    public Stmt visitExpr(Stmt.Expression stmt) {
+        Expr expr = popExpr();
+        // a literal on its own doesn't do anything
+        return push(expr instanceof Expr.Literal ? null : sameLine(new Stmt.Expression(expr), stmt));
+    }
+
+    @Override
+    public Stmt visitIf(Stmt.If stmt) {
+        Stmt elseDo = stmt.elseDo == null ? null : popStmt();
+        Stmt thenDo = popStmt();
+        Expr condition = popExpr();
+        if (condition instanceof Expr.Literal) {
+            return push(Values.bool(((Expr.Literal) condition).val) ? thenDo : elseDo);
+        }
+        return push(sameLine(new Stmt.If(condition, required(thenDo, stmt), elseDo), stmt));
+    }
+
+    @Override
+    public Stmt visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
+    @Override
+    public Stmt visitPrint(Stmt.Print stmt) {
+        return push(sameLine(new Stmt.Print(popExpr()), stmt));
+    }
+
+    @Override
+    public Stmt visitVar(Stmt.Var stmt) {
+        Stmt.Var ret = new Stmt.Var(stmt.name, popExpr());
+        ret.slot = stmt.slot;
+        return push(sameLine(ret, stmt));
+    }
+
+    @Override
+    public Stmt visitWhile(Stmt.While stmt) {
+        Stmt toDo = popStmt();
+        Expr condition = popExpr();
+        if (condition instanceof Expr.Literal && !Values.bool(((Expr.Literal) condition).val)) {
+            return push(null);
+        }
+        Stmt.While ret = new Stmt.While(condition, required(toDo, stmt));
+        ret.counted = CountedLoop.match(ret);
+        return push(sameLine(ret, stmt));
+    }
+
+    private static Stmt sameLine(Stmt made, Stmt from) {
+        made.line = from.line;
+        return made;
+    }
+    //endregion
+
+    //region expressions
+    @Override
+    public Expr visitAssignmentExpr(Expr.Assignment expr) {
+        Expr.Assignment ret = new Expr.Assignment(expr.assignTo, popExpr());
+        ret.slot = expr.slot;
+        ret.fused = Fused.match(ret);
+        return push(ret);
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr right = popExpr();
+        Expr left = popExpr();
+        Expr.Binary ret = new Expr.Binary(left, expr.op, right);
+        if (left instanceof Expr.Literal && right instanceof Expr.Literal) {
+            return push(fold(ret));
+        }
+        ret.fused = Fused.match(ret);
+        return push(ret);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return push(expr);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return push(popExpr());  // the group's already on there, it just stays
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr right = popExpr();
+        Expr left = popExpr();
+        if (left instanceof Expr.Literal) {
+            // the left side decides whether it's the answer or the right side is
+            boolean truthy = Values.bool(((Expr.Literal) left).val);
+            boolean isOr = expr.op.type == TokenType.OR;
+            return push(truthy == isOr ? left : right);
+        }
+        return push(new Expr.Logical(left, expr.op, right));
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr.Unary ret = new Expr.Unary(expr.op, popExpr());
+        return push(ret.right instanceof Expr.Literal ? fold(ret) : ret);
+    }
+
+    @Override
+    public Expr visitVarExpr(Expr.Var expr) {
+        return push(expr);
+    }
+
+    // arrays can be changed, so none of these ever get folded into a literal
+
+    @Override
+    public Expr visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        List<Object> inside = done.subList(done.size() - expr.items.size(), done.size());
+        List<Expr> items = new ArrayList<>();
+        for (Object item : inside) {
+            items.add((Expr) item);
+        }
+        inside.clear();
+        return push(new Expr.ArrayLiteral(expr.bracket, items));
+    }
+
+    @Override
+    public Expr visitIndexExpr(Expr.Index expr) {
+        Expr index = popExpr();
+        return push(new Expr.Index(popExpr(), expr.bracket, index));
+    }
+
+    @Override
+    public Expr visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        Expr val = popExpr();
+        Expr index = popExpr();
+        return push(new Expr.IndexAssignment(popExpr(), expr.bracket, index, val));
+    }
+
+    @Override
+    public Expr visitLengthExpr(Expr.Length expr) {
+        return push(new Expr.Length(popExpr(), expr.name));
+    }
+    //endregion
+
+    private <T> T push(T result) {
+        done.add(result);
+        return result;
+    }
+
+    /**
+     * works out an expression that only has literals in it
+     * if it errors, it gets left alone so the error still happens when it runs
+     */
+    private Expr fold(Expr expr) {
+        try {
+            Object val = expr.accept(folder);
+            // literals are always plain Strings, the backends put them right into their constants
+            return new Expr.Literal(val instanceof JoinedString ? val.toString() : val);
+        } catch (RuntimeError error) {
+            return expr;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * keeps track of how many times each line ran & how long it took
+ * "self" time is just the statement itself, "total" also counts the statements inside it
+ * (so a while loop's total is the whole loop, but its self time is just checking the condition)
+ *
+ * it also remembers which statements were inside which, so it can write out
+ * collapsed stacks that flame graph tools can read
+ */
+public class Profiler {
+    /** the stats for one line of the script */
+    public static class LineStats {
+        public final int line;
+        public long count = 0;  /** how many statements on this line ran */
+        public long selfNanos = 0;
+        public long totalNanos = 0;
+        private final TreeSet<String> kinds = new TreeSet<>();  /** what kind of statements are on the line */
+        private int active = 0;  /** how many times it's on the stack right now, so loops on 1 line aren't counted twice */
+
+        private LineStats(int line) {
+            this.line = line;
+        }
+    }
+
+    /** a statement at a specific spot in the stack (one of these for every different path to it) */
+    private static class Frame {
+        private final Frame parent;
+        private final String name;
+        private final LineStats stats;
+        private final Map<Stmt, Frame> children = new IdentityHashMap<>();
+        private long selfNanos = 0;
+        private long start;
+        private long childNanos;  /** how much of the current run was spent in the children */
+
+        private Frame(Frame parent, String name, LineStats stats) {
+            this.parent = parent;
+            this.name = name;
+            this.stats = stats;
+        }
+    }
+
+    private final Map<Integer, LineStats> lines = new HashMap<>();
+    private final Frame root;
+    private Frame current;
+
+    /** the name's what goes at the bottom of the flame graph (like the script's file name) */
+    public Profiler(String name) {
+        root = new Frame(null, name, null);
+        current = root;
+    }
+
+    void enter(Stmt stmt) {
+        Frame frame = current.children.get(stmt);
+        if (frame == null) {
+            String kind = kind(stmt);
+            LineStats stats = lines.computeIfAbsent(stmt.line, LineStats::new);
+            stats.kinds.add(kind);
+            frame = new Frame(current, stmt.line + ":" + kind, stats);
+            current.children.put(stmt, frame);
+        }
+        frame.stats.count++;
+        frame.stats.active++;
+        frame.childNanos = 0;
+        current = frame;
+        frame.start = System.nanoTime();
+    }
+
+    void exit() {
+        long elapsed = System.nanoTime() - current.start;
+        long self = elapsed - current.childNanos;
+        current.selfNanos += self;
+        current.stats.selfNanos += self;
+        if (--current.stats.active == 0) {
+            current.stats.totalNanos += elapsed;
+        }
+        current = current.parent;
+        current.childNanos += elapsed;
+    }
+
+    /** everything so far, the lines that took the most time by themselves first */
+    public List<LineStats> lines() {
+        List<LineStats> ret = new ArrayList<>(lines.values());
+        ret.sort(Comparator.comparingLong((LineStats s) -> s.selfNanos).reversed()
+                .thenComparingInt(s -> s.line));
+        return ret;
+    }
+
+    public void report(PrintStream out) {
+        out.printf("%6s %12s %12s %12s  %s%n", "line", "count", "self ms", "total ms", "what");
+        for (LineStats s : lines()) {
+            out.printf("%6d %12d %12.3f %12.3f  %s%n", s.line, s.count,
+                    s.selfNanos / 1e6, s.totalNanos / 1e6, String.join(", ", s.kinds));
+        }
+    }
+
+    /**
+     * writes "root;outer;inner microseconds" lines, one for each different stack,
+     * which is what flamegraph.pl & speedscope & all those want
+     */
+    public void writeCollapsed(Writer out) throws IOException {
+        Map<String, Long> stacks = new LinkedHashMap<>();
+        collapse(root, root.name, stacks);
+        for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+            long micros = stack.getValue() / 1000;
+            if (micros > 0) {
+                out.write(stack.getKey() + " " + micros + "\n");
+            }
+        }
+    }
+
+    private static void collapse(Frame frame, String path, Map<String, Long> stacks) {
+        for (Frame child : frame.children.values()) {
+            String childPath = path + ";" + child.name;
+            stacks.merge(childPath, child.selfNanos, Long::sum);
+            collapse(child, childPath, stacks);
+        }
+    }
+
+    private static String kind(Stmt stmt) {
+        if (stmt instanceof Stmt.Print) {
+            return "print";
+        } else if (stmt instanceof Stmt.Var) {
+            return "var";
+        } else if (stmt instanceof Stmt.If) {
+            return "if";
+        } else if (stmt instanceof Stmt.While) {
+            return "while";
+        } else if (stmt instanceof Stmt.Block) {
+            return "block";
+        }
+        return "expr";
+    }
+}
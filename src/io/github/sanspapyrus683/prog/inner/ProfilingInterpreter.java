@@ -0,0 +1,33 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.output.Output;
+
+/**
+ * the tree interpreter but it times every statement it runs
+ * it's its own class so the normal interpreter doesn't have to check if it's profiling or not
+ * (as long as this never gets loaded, the jit doesn't even know it exists)
+ */
+public class ProfilingInterpreter extends Interpreter {
+    private final Profiler profiler;
+
+    public ProfilingInterpreter(Environment environment, Output out, ErrorReporter errors, Profiler profiler) {
+        super(environment, out, errors);
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void execute(Stmt stmt) {
+        // blocks are just there to hold other statements, they'd only clutter up the stacks
+        if (stmt instanceof Stmt.Block) {
+            super.execute(stmt);
+            return;
+        }
+        profiler.enter(stmt);
+        try {
+            super.execute(stmt);
+        } finally {
+            profiler.exit();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * goes over the code before it runs & gives every variable a slot number
+ * so the interpreter can just index into an array instead of hashing names
+ * all variables are global, so it's one slot per distinct name
+ *
+ * it also catches variables that aren't declared anywhere in the program,
+ * since those are gonna error no matter what if they ever get used
+ */
+public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Set<String> declared = new HashSet<>();
+    private final List<Token> reads = new ArrayList<>();
+    private final List<Token> writes = new ArrayList<>();
+    private final ErrorReporter errors;
+
+    public Resolver(ErrorReporter errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * resolves the statements, reporting an error for every use of a variable
+     * that never gets declared (the same resolver can be reused for more code later)
+     */
+    public void resolve(List<Stmt> statements) {
+        Walk.after(statements, this, this);
+        for (Token t : reads) {
+            if (!declared.contains(t.lexeme)) {
+                errors.error(t, "variable '" + t.lexeme + "' not found");
+            }
+        }
+        for (Token t : writes) {
+            if (!declared.contains(t.lexeme)) {
+                errors.error(t, "variable '" + t.lexeme + "' not initialized you moron");
+            }
+        }
+        reads.clear();
+        writes.clear();
+    }
+
+    /** how many slots the environment needs to hold everything so far */
+    public int slotCount() {
+        return slots.size();
+    }
+
+    //region statements
+    // these don't go into what's inside them, Walk already did that before calling them
+
+    @Override
+    public Void visitBlock(Stmt.Block stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Stmt.Expression stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitIf(Stmt.If stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
+    @Override
+    public Void visitPrint(Stmt.Print stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitVar(Stmt.Var stmt) {
+        declared.add(stmt.name.lexeme);
+        stmt.slot = slot(stmt.name);
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(Stmt.While stmt) {
+        return null;
+    }
+    //endregion
+
+    //region expressions
+    @Override
+    public Void visitAssignmentExpr(Expr.Assignment expr) {
+        writes.add(expr.assignTo);
+        expr.slot = slot(expr.assignTo);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitVarExpr(Expr.Var expr) {
+        reads.add(expr.name);
+        expr.slot = slot(expr.name);
+        return null;
+    }
+
+    @Override
+    public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitLengthExpr(Expr.Length expr) {
+        return null;
+    }
+    //endregion
+
+    private int slot(Token name) {
+        return slots.computeIfAbsent(name.lexeme, n -> slots.size());
+    }
+}
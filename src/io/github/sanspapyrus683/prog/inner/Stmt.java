@@ -14,11 +14,15 @@ public abstract class Stmt {
         T visitBlock(Block stmt);
         T visitExpr(Expression stmt);
         T visitIf(If stmt);
+        T visitImport(Import stmt);
         T visitPrint(Print stmt);
         T visitVar(Var stmt);
         T visitWhile(While stmt);
     }
 
+    public int line;  /** the line the statement starts on, filled in by the parser */
+    public boolean deep;  /** if it's nested too deep for recursion, the optimizer sets this on top level statements */
+
     public abstract <T> T accept(Visitor<T> visitor);
 
     public static class Block extends Stmt {
@@ -61,6 +65,19 @@ public abstract class Stmt {
         }
     }
 
+    /** only ever at the top level, they all get swapped out for the module's statements before resolving */
+    public static class Import extends Stmt {
+        public final Token path;  /** the string token w/ the file in it */
+        public Import(Token path) {
+            this.path = path;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visitImport(this);
+        }
+    }
+
     public static class Print extends Stmt {
         public final Expr expr;
         public Print(Expr expr) {
@@ -76,6 +93,7 @@ public abstract class Stmt {
     public static class Var extends Stmt {
         public final Token name;
         public final Expr init;
+        public int slot = -1;  /** where the variable lives, filled in by the resolver */
         public Var(Token name, Expr init) {
             this.name = name;
             this.init = init;
@@ -90,6 +108,7 @@ public abstract class Stmt {
     public static class While extends Stmt {
         public final Expr condition;
         public final Stmt toDo;
+        public CountedLoop counted;  /** filled in by the optimizer if this is just counting up or down */
         public While(Expr condition, Stmt toDo) {
             this.condition = condition;
             this.toDo = toDo;
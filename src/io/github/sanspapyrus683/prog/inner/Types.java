@@ -0,0 +1,218 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import io.github.sanspapyrus683.prog.TokenType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * works out what types each variable & expression can be, & marks the math that only ever sees numbers
+ * so the interpreter can skip checking them (see Expr.Binary.numeric),
+ * & do it all on plain doubles if they're never Longs (see Expr.Binary.doubles)
+ *
+ * every variable's global, so a variable's type is just every type that ever gets stored in it anywhere,
+ * & it keeps going over the script until none of those change anymore
+ * a type here is a set of the bits below (0 means it never gets a value, like something that always errors)
+ *
+ * this only works for a whole script that starts w/ no variables (like a CompiledScript),
+ * something like the repl can have variables from before that this never saw
+ */
+public final class Types implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    //region the types
+    static final int LONG = 1;
+    static final int STRING = 2;
+    static final int BOOL = 4;
+    static final int NULL = 8;
+    static final int DOUBLE = 16;
+    static final int ARRAY = 32;
+    static final int NUMBER = LONG | DOUBLE;
+    static final int ANY = NUMBER | STRING | BOOL | NULL | ARRAY;  /** what's in an array, those aren't tracked */
+    //endregion
+
+    private int[] vars;  /** every type each slot's had stored in it so far */
+    private boolean changed;
+    private int[] done = new int[32];  /** the types of the expressions that are done but not used yet */
+    private int size = 0;
+
+    private Types(int slots) {
+        vars = new int[slots];
+    }
+
+    /** marks the statements (after the optimizer's done w/ them) */
+    public static void infer(List<Stmt> statements, int slots) {
+        Types types = new Types(slots);
+        // the marks from the last time around are the right ones, since nothing changed during it
+        do {
+            types.changed = false;
+            Walk.after(statements, types, types);
+        } while (types.changed);
+    }
+
+    //region statements
+    @Override
+    public Void visitBlock(Stmt.Block stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Stmt.Expression stmt) {
+        pop();
+        return null;
+    }
+
+    @Override
+    public Void visitIf(Stmt.If stmt) {
+        pop();
+        return null;
+    }
+
+    @Override
+    public Void visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
+    @Override
+    public Void visitPrint(Stmt.Print stmt) {
+        pop();
+        return null;
+    }
+
+    @Override
+    public Void visitVar(Stmt.Var stmt) {
+        store(stmt.slot, pop());
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(Stmt.While stmt) {
+        pop();
+        return null;
+    }
+    //endregion
+
+    //region expressions
+    @Override
+    public Void visitAssignmentExpr(Expr.Assignment expr) {
+        int val = pop();
+        store(expr.slot, val);
+        return push(val);
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        int right = pop();
+        int left = pop();
+        expr.numeric = (left & ~NUMBER) == 0 && (right & ~NUMBER) == 0;
+        expr.doubles = (left & ~DOUBLE) == 0 && (right & ~DOUBLE) == 0;
+        switch (expr.op.type) {
+            case PLUS:
+                // it's only a number if both can be, & only a string if both can be, anything else errors
+                return push(math(left, right) | (left & right & STRING));
+            case MINUS:
+            case STAR:
+            case SLASH:
+            case MOD:
+                return push(math(left, right));
+            default:
+                return push(BOOL);  // comparisons (& == & != work on anything)
+        }
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        Object val = expr.val;
+        if (val == null) {
+            return push(NULL);
+        }
+        return push(val instanceof Long ? LONG : val instanceof Double ? DOUBLE : val instanceof Boolean ? BOOL : STRING);
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        return null;  // it's the same as what's inside, which is already on there
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        // it's whichever side decided it
+        int right = pop();
+        return push(pop() | right);
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        int val = pop();
+        if (expr.op.type == TokenType.MINUS) {
+            expr.numeric = (val & ~NUMBER) == 0;
+            expr.doubles = (val & ~DOUBLE) == 0;
+            // -0 is a double
+            return push((val & LONG) != 0 ? NUMBER : val & DOUBLE);
+        }
+        return push(BOOL);
+    }
+
+    @Override
+    public Void visitVarExpr(Expr.Var expr) {
+        return push(vars[expr.slot]);
+    }
+
+    @Override
+    public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        size -= expr.items.size();
+        return push(ARRAY);
+    }
+
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        pop();
+        return push(array(pop(), ANY));
+    }
+
+    @Override
+    public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        int val = pop();
+        pop();
+        return push(array(pop(), val));
+    }
+
+    @Override
+    public Void visitLengthExpr(Expr.Length expr) {
+        return push(array(pop(), LONG));
+    }
+    //endregion
+
+    /** what number types some math on these two could give back (0 if it can only error) */
+    private static int math(int left, int right) {
+        if ((left & NUMBER) == 0 || (right & NUMBER) == 0) {
+            return 0;
+        }
+        // 2 longs can still give a double if it overflows or doesn't divide evenly,
+        // & a double on either side always makes it a double
+        int ret = (left & right & LONG) != 0 ? NUMBER : 0;
+        return ((left | right) & DOUBLE) | ret;
+    }
+
+    /** the type something on an array gives back, if it can even be an array (otherwise it always errors) */
+    private static int array(int array, int type) {
+        return (array & ARRAY) != 0 ? type : 0;
+    }
+
+    private void store(int slot, int type) {
+        if ((vars[slot] | type) != vars[slot]) {
+            vars[slot] |= type;
+            changed = true;
+        }
+    }
+
+    private Void push(int type) {
+        if (size == done.length) {
+            done = Arrays.copyOf(done, size * 2);
+        }
+        done[size++] = type;
+        return null;
+    }
+
+    private int pop() {
+        return done[--size];
+    }
+}
@@ -0,0 +1,231 @@
+package io.github.sanspapyrus683.prog.inner;
+
+/**
+ * the truthiness, equality, & math rules of the language
+ * these are shared so every way of running a script agrees on them
+ *
+ * a number's either a Long (whole numbers, like every literal w/o a decimal point) or a Double
+ * longs stay longs as long as the answer's a whole number that fits, otherwise it turns into a double,
+ * & anything w/ a double in it is done on doubles
+ * so up to 2^53 (where doubles stop being exact) the two give back the exact same answers & print the same way,
+ * even -0 (a long can't be -0, so stuff like 0 * -1 just gives the double)
+ */
+public final class Values {
+    private Values() { }
+
+    public static boolean bool(Object obj) {
+        // conditions are almost always comparisons, so booleans go first
+        if (obj instanceof Boolean) {
+            return (boolean) obj;
+        } else if (obj == null) {
+            return false;
+        } else if (obj instanceof Long) {
+            return ((long) obj) != 0;
+        } else if (obj instanceof Double) {
+            return ((double) obj) != 0;
+        } else if (obj instanceof CharSequence) {
+            return ((CharSequence) obj).length() > 0;
+        }
+        return true;  // what
+    }
+
+    public static boolean equal(Object o1, Object o2) {
+        if (o1 == null || o2 == null) {
+            return o1 == o2;
+        }
+        if (o1 instanceof JoinedString || o2 instanceof JoinedString) {
+            return o1 instanceof CharSequence && o2 instanceof CharSequence
+                    && o1.toString().equals(o2.toString());
+        }
+        if (o1 instanceof Long && o2 instanceof Double || o1 instanceof Double && o2 instanceof Long) {
+            return same(toDouble(o1), toDouble(o2));
+        }
+        return o1.equals(o2);
+    }
+
+    /** equal() on two numbers, which goes by Double.equals (so NaN == NaN & 0 != -0) */
+    public static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+    //region numbers
+    public static boolean isNumber(Object obj) {
+        return obj instanceof Long || obj instanceof Double;
+    }
+
+    /** a number (either kind) as a double */
+    public static double toDouble(Object num) {
+        return num instanceof Long ? (long) num : (double) num;
+    }
+
+    // these all take two numbers (the backends check that first) & give back a Long or a Double
+
+    public static Object add(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return add((long) a, (long) b);
+        }
+        return toDouble(a) + toDouble(b);
+    }
+
+    public static Object sub(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return sub((long) a, (long) b);
+        }
+        return toDouble(a) - toDouble(b);
+    }
+
+    public static Object mul(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return mul((long) a, (long) b);
+        }
+        return toDouble(a) * toDouble(b);
+    }
+
+    public static Object div(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return div((long) a, (long) b);
+        }
+        return toDouble(a) / toDouble(b);
+    }
+
+    public static Object mod(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return mod((long) a, (long) b);
+        }
+        return mod(toDouble(a), toDouble(b));
+    }
+
+    public static Object negate(Object val) {
+        return val instanceof Long ? negate((long) val) : -(double) val;
+    }
+
+    public static boolean less(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (long) a < (long) b;
+        }
+        return toDouble(a) < toDouble(b);
+    }
+
+    public static boolean lessEqual(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (long) a <= (long) b;
+        }
+        return toDouble(a) <= toDouble(b);
+    }
+
+    public static boolean greater(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (long) a > (long) b;
+        }
+        return toDouble(a) > toDouble(b);
+    }
+
+    public static boolean greaterEqual(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (long) a >= (long) b;
+        }
+        return toDouble(a) >= toDouble(b);
+    }
+
+    // & the same things for when both are already known to be longs
+
+    public static Object add(long a, long b) {
+        long res = a + b;
+        // it overflowed if the answer's sign isn't either of theirs
+        if (((a ^ res) & (b ^ res)) < 0) {
+            return (double) a + (double) b;
+        }
+        return res;
+    }
+
+    public static Object sub(long a, long b) {
+        long res = a - b;
+        if (((a ^ b) & (a ^ res)) < 0) {
+            return (double) a - (double) b;
+        }
+        return res;
+    }
+
+    public static Object mul(long a, long b) {
+        long res = a * b;
+        if (Math.multiplyHigh(a, b) != res >> 63) {
+            return (double) a * (double) b;
+        }
+        if (res == 0 && (a ^ b) < 0) {
+            return -0.0;  // 0 times a negative number
+        }
+        return res;
+    }
+
+    /** only a long if it divides evenly */
+    public static Object div(long a, long b) {
+        if (b != 0 && a % b == 0 && !(a == Long.MIN_VALUE && b == -1)) {
+            return a == 0 && b < 0 ? -0.0 : (Object) (a / b);
+        }
+        return (double) a / (double) b;
+    }
+
+    /** % by 0 is NaN like it is for doubles, & a 0 left over keeps the sign of a (so -0 again) */
+    public static Object mod(long a, long b) {
+        if (b == 0) {
+            return Double.NaN;
+        }
+        long res = a % b;
+        return res == 0 && a < 0 ? -0.0 : (Object) res;
+    }
+
+    public static Object negate(long val) {
+        return val == 0 || val == Long.MIN_VALUE ? -(double) val : (Object) (-val);
+    }
+
+    /**
+     * the same thing as a % b, but whole numbers skip the slow floating point remainder
+     * (the result keeps the sign of a, including for -0, just like % does)
+     */
+    public static double mod(double a, double b) {
+        if (Math.abs(a) < 0x1p53 && Math.abs(b) < 0x1p53 && b != 0
+                && a == (long) a && b == (long) b) {
+            long res = (long) a % (long) b;
+            return res == 0 ? Math.copySign(0.0, a) : res;
+        }
+        return a % b;
+    }
+
+    /**
+     * how a whole number gets printed, which is the same as the double would've been
+     * (so 3 is 3.0 & 12345678 is 1.2345678E7), past 2^53 it's the same format but w/ every digit
+     */
+    public static String str(long val) {
+        if (-(1L << 53) <= val && val <= 1L << 53) {
+            return Double.toString(val);
+        }
+        String digits = Long.toString(val);
+        int start = val < 0 ? 1 : 0;
+        int end = digits.length();
+        while (digits.charAt(end - 1) == '0') {
+            end--;
+        }
+        StringBuilder ret = new StringBuilder(digits.length() + 6);
+        ret.append(digits, 0, start + 1).append('.');
+        if (end > start + 1) {
+            ret.append(digits, start + 1, end);
+        } else {
+            ret.append('0');
+        }
+        return ret.append('E').append(digits.length() - start - 1).toString();
+    }
+
+    /** what print shows for a value */
+    public static String str(Object val) {
+        return val instanceof Long ? str((long) val) : String.valueOf(val);
+    }
+    //endregion
+
+    /**
+     * adds two strings together (strings are either a String or a JoinedString,
+     * so check for CharSequence instead of String)
+     */
+    public static CharSequence concat(Object left, Object right) {
+        return JoinedString.join((CharSequence) left, (CharSequence) right);
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.sanspapyrus683.prog.inner;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * goes over a tree w/o recursing, so it doesn't matter how deeply nested the script is
+ * the stuff that's still being gone through is on an array instead of the java stack
+ *
+ * every node gets visited right after everything inside it (in the order they'd run),
+ * which is the same order a recursive visitor that goes through the children first would finish them in
+ * so a visitor that does its own thing after that (like the resolver) can just not recurse & use this
+ */
+public final class Walk {
+    /** anything nested deeper than this is too much for the visitors that recurse, they'd overflow the stack */
+    public static final int MAX_RECURSION = 500;
+
+    private Object[] nodes = new Object[32];
+    private int[] next = new int[32];  /** which child of each node is up next */
+    private int[] heights = new int[32];  /** how tall the tallest child of each node that's done so far is */
+    private int size = 0;
+    private int budget = Integer.MAX_VALUE;  /** how many more nodes it'll go through before giving up */
+
+    private Walk() { }
+
+    /** visits every node in the statement (& the statement itself last) */
+    public static void after(Stmt root, Stmt.Visitor<?> stmts, Expr.Visitor<?> exprs) {
+        new Walk().go(root, stmts, exprs);
+    }
+
+    public static void after(List<Stmt> roots, Stmt.Visitor<?> stmts, Expr.Visitor<?> exprs) {
+        Walk walk = new Walk();
+        for (Stmt s : roots) {
+            walk.go(s, stmts, exprs);
+        }
+    }
+
+    /** the same thing, but it stops & gives false if there's more than most nodes */
+    public static boolean after(List<Stmt> roots, Stmt.Visitor<?> stmts, Expr.Visitor<?> exprs, int most) {
+        Walk walk = new Walk();
+        walk.budget = most;
+        for (Stmt s : roots) {
+            if (walk.go(s, stmts, exprs) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** how many nodes deep the statement goes (a statement w/ nothing inside it is 1) */
+    public static int height(Stmt root) {
+        return new Walk().go(root, null, null);
+    }
+
+    /** goes through it all, returns the height (or -1 if it ran out of budget) */
+    private int go(Stmt root, Stmt.Visitor<?> stmts, Expr.Visitor<?> exprs) {
+        push(root);
+        int height = 0;
+        while (size > 0) {
+            int top = size - 1;
+            Object child = child(nodes[top], next[top]++);
+            if (child != null) {
+                if (--budget < 0) {
+                    return -1;
+                }
+                push(child);
+                continue;
+            }
+            // everything inside it's done, so now it's done
+            Object done = nodes[top];
+            height = heights[top] + 1;
+            nodes[top] = null;
+            size--;
+            if (size > 0) {
+                heights[size - 1] = Math.max(heights[size - 1], height);
+            }
+            if (done instanceof Stmt) {
+                if (stmts != null) {
+                    ((Stmt) done).accept(stmts);
+                }
+            } else if (exprs != null) {
+                ((Expr) done).accept(exprs);
+            }
+        }
+        return height;
+    }
+
+    private void push(Object node) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            next = Arrays.copyOf(next, size * 2);
+            heights = Arrays.copyOf(heights, size * 2);
+        }
+        nodes[size] = node;
+        next[size] = 0;
+        heights[size] = 0;
+        size++;
+    }
+
+    /** the ith thing inside a node, or null if there isn't one (an if w/o an else just has 2) */
+    private static Object child(Object node, int i) {
+        if (node instanceof Expr) {
+            if (node instanceof Expr.Binary) {
+                Expr.Binary expr = (Expr.Binary) node;
+                return i == 0 ? expr.left : i == 1 ? expr.right : null;
+            } else if (node instanceof Expr.Logical) {
+                Expr.Logical expr = (Expr.Logical) node;
+                return i == 0 ? expr.left : i == 1 ? expr.right : null;
+            } else if (node instanceof Expr.Unary) {
+                return i == 0 ? ((Expr.Unary) node).right : null;
+            } else if (node instanceof Expr.Grouping) {
+                return i == 0 ? ((Expr.Grouping) node).group : null;
+            } else if (node instanceof Expr.Assignment) {
+                return i == 0 ? ((Expr.Assignment) node).val : null;
+            } else if (node instanceof Expr.ArrayLiteral) {
+                List<Expr> items = ((Expr.ArrayLiteral) node).items;
+                return i < items.size() ? items.get(i) : null;
+            } else if (node instanceof Expr.Index) {
+                Expr.Index expr = (Expr.Index) node;
+                return i == 0 ? expr.array : i == 1 ? expr.index : null;
+            } else if (node instanceof Expr.IndexAssignment) {
+                Expr.IndexAssignment expr = (Expr.IndexAssignment) node;
+                return i == 0 ? expr.array : i == 1 ? expr.index : i == 2 ? expr.val : null;
+            } else if (node instanceof Expr.Length) {
+                return i == 0 ? ((Expr.Length) node).array : null;
+            }
+            return null;  // literals & variables
+        }
+        if (node instanceof Stmt.Block) {
+            List<Stmt> content = ((Stmt.Block) node).content;
+            return i < content.size() ? content.get(i) : null;
+        } else if (node instanceof Stmt.If) {
+            Stmt.If stmt = (Stmt.If) node;
+            return i == 0 ? stmt.condition : i == 1 ? stmt.thenDo : i == 2 ? stmt.elseDo : null;
+        } else if (node instanceof Stmt.While) {
+            Stmt.While stmt = (Stmt.While) node;
+            return i == 0 ? stmt.condition : i == 1 ? stmt.toDo : null;
+        } else if (node instanceof Stmt.Expression) {
+            return i == 0 ? ((Stmt.Expression) node).expr : null;
+        } else if (node instanceof Stmt.Print) {
+            return i == 0 ? ((Stmt.Print) node).expr : null;
+        } else if (node instanceof Stmt.Var) {
+            return i == 0 ? ((Stmt.Var) node).init : null;
+        }
+        return null;
+    }
+}
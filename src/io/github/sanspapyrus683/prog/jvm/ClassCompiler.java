@@ -0,0 +1,1319 @@
+package io.github.sanspapyrus683.prog.jvm;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.inner.Expr;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.inner.Values;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.sanspapyrus683.prog.jvm.Opcodes.*;
+
+/**
+ * turns resolved statements into a jvm class w/ a static method, run(Object[], Output, BudgetMeter),
+ * that runs a bunch of other methods (parts) that each have a chunk of the top level statements
+ * every variable becomes a local in those, variables that only ever
+ * hold Doubles get stored as raw doubles, & ones that only ever get whole number math stored in them
+ * get a raw long (& a box for when that math turns into a double, see tryLong)
+ * the array that gets passed in has the tokens the error messages need (& the boxes for long literals)
+ * the meter's only used by budgeted classes (which tick it before every statement & every time a loop goes around),
+ * the normal ones just get a null that they never touch
+ */
+class ClassCompiler implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+    static final String CLASS_NAME = "io/github/sanspapyrus683/prog/jvm/Script";
+    static final String METHOD_DESC = "([Ljava/lang/Object;Lio/github/sanspapyrus683/prog/output/Output;"
+            + "Lio/github/sanspapyrus683/prog/inner/BudgetMeter;)V";
+    /** what the parts take, the same as run plus every variable's value (in whichever array it fits in) */
+    private static final String PART_DESC = "([Ljava/lang/Object;Lio/github/sanspapyrus683/prog/output/Output;"
+            + "Lio/github/sanspapyrus683/prog/inner/BudgetMeter;[Ljava/lang/Object;[J[D[I)V";
+    // the locals of a part those are in
+    private static final int METER = 2;
+    private static final int OBJECTS = 3;
+    private static final int LONGS = 4;
+    private static final int DOUBLES = 5;
+    private static final int FLAGS = 6;
+
+    /** hotspot won't jit a method w/ more bytecode than this (unless it's run w/ -XX:-DontCompileHugeMethods) */
+    static final int HUGE = 8000;
+    private static final int PART_SIZE = 4000;  /** about how much code each part gets before the next one starts */
+
+    private static final String OPS = "io/github/sanspapyrus683/prog/jvm/Ops";
+    private static final String VALUES = "io/github/sanspapyrus683/prog/inner/Values";
+    private static final String TOKEN = "io/github/sanspapyrus683/prog/Token";
+    private static final String OBJ = "Ljava/lang/Object;";
+    private static final String LONG = "java/lang/Long";
+    private static final String TOK = "L" + TOKEN + ";";
+    private static final String OUT = "Lio/github/sanspapyrus683/prog/output/Output;";
+    private static final String BUDGET_METER = "io/github/sanspapyrus683/prog/inner/BudgetMeter";
+
+    /**
+     * what we know about the value of an expression before it runs
+     * (LONG means it's whole number math, which is a Long unless it overflowed or something & turned into a Double)
+     */
+    private enum Type { DOUBLE, LONG, BOOL, OBJECT }
+
+    private final ClassWriter cw = new ClassWriter();
+    private ClassWriter.Code code;  /** the method that's being compiled right now */
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new IdentityHashMap<>();
+    private final Map<Expr, Object[]> literalArrays = new IdentityHashMap<>();  /** the items of array literals that are all literals */
+
+    private Type[] kinds;  /** DOUBLE or LONG for the slots that get a raw local, OBJECT for the rest */
+    private int[] locals;  /** the jvm local each slot lives in */
+    private int[] flags;  /** for DOUBLE slots, an int local that says if it's been defined yet, for LONG ones, if the long's the value */
+    private int[] boxes;  /** for LONG slots, the local w/ the value when it isn't a long (or UNDEFINED) */
+    private BitSet defined = new BitSet();  /** slots that are for sure defined at this point */
+    private int maxLocals;  /** how many locals every part has */
+    private final boolean budgeted;  /** if it should tick the meter */
+    private int partCount = 0;
+    private final Map<Stmt, Integer> sizes = new IdentityHashMap<>();  /** how big each statement that's been measured is */
+    private boolean measuring = false;  /** if the code's just getting compiled to see how big it is */
+
+    ClassCompiler() {
+        this(false);
+    }
+
+    ClassCompiler(boolean budgeted) {
+        this.budgeted = budgeted;
+    }
+
+    byte[] compile(List<Stmt> statements, int slots) {
+        inferTypes(statements, slots);
+
+        // locals 0 to 6 are the arguments of a part, the variables go after those
+        locals = new int[slots];
+        flags = new int[slots];
+        boxes = new int[slots];
+        int next = 7;
+        for (int s = 0; s < slots; s++) {
+            locals[s] = next;
+            if (kinds[s] == Type.DOUBLE) {
+                flags[s] = next + 2;
+                next += 3;
+            } else if (kinds[s] == Type.LONG) {
+                boxes[s] = next + 2;
+                flags[s] = next + 3;
+                next += 4;
+            } else {
+                next++;
+            }
+        }
+        if (next > 0xffff || slots > Short.MAX_VALUE) {
+            throw new ClassWriter.TooBig("too many variables");
+        }
+        maxLocals = next;
+
+        List<String> parts = new ArrayList<>();
+        for (List<Stmt> part : split(statements)) {
+            parts.addAll(part(part));
+        }
+
+        // run just makes the variables & runs each part
+        code = new ClassWriter.Code();
+        code.opShort(SIPUSH, slots, 1);
+        code.opShort(ANEWARRAY, cw.classRef("java/lang/Object"), 0);
+        code.op(DUP, 1);
+        code.opShort(GETSTATIC, cw.fieldRef(OPS, "UNDEFINED", OBJ), 1);
+        invokeStatic("java/util/Arrays", "fill", "([" + OBJ + OBJ + ")V");
+        code.local(ASTORE, OBJECTS, -1);
+        code.opShort(SIPUSH, slots, 1);
+        code.opByte(NEWARRAY, 11, 0);  // long
+        code.local(ASTORE, LONGS, -1);
+        code.opShort(SIPUSH, slots, 1);
+        code.opByte(NEWARRAY, 7, 0);  // double
+        code.local(ASTORE, DOUBLES, -1);
+        code.opShort(SIPUSH, slots, 1);
+        code.opByte(NEWARRAY, 10, 0);  // int
+        code.local(ASTORE, FLAGS, -1);
+        for (String part : parts) {
+            callPart(part);
+        }
+        code.op(RETURN, 0);
+        code.useLocals(7);
+        cw.method("run", METHOD_DESC, code);
+        return cw.toBytes(CLASS_NAME);
+    }
+
+    //region parts
+    /**
+     * splits the statements up into parts that each go in their own method,
+     * since hotspot won't compile a method w/ more than HUGE bytes of code (so a big script would never get jitted)
+     */
+    private List<List<Stmt>> split(List<Stmt> statements) {
+        List<List<Stmt>> parts = new ArrayList<>();
+        List<Stmt> part = new ArrayList<>();
+        int size = 0;
+        for (Stmt s : statements) {
+            int stmtSize = size(s);
+            if (size + stmtSize > PART_SIZE && !part.isEmpty()) {
+                parts.add(part);
+                part = new ArrayList<>();
+                size = 0;
+            }
+            part.add(s);
+            size += stmtSize;
+        }
+        if (!part.isEmpty()) {
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    /**
+     * about how much code a statement turns into, it figures that out by just compiling it & throwing that away
+     * (w/o making any of the parts its bodies would go in)
+     */
+    private int size(Stmt s) {
+        Integer known = sizes.get(s);
+        if (known != null) {
+            return known;
+        }
+        ClassWriter.Code before = code;
+        BitSet definedBefore = (BitSet) defined.clone();
+        boolean wasMeasuring = measuring;
+        code = new ClassWriter.Code();
+        measuring = true;
+        statement(s);
+        int size = code.size();
+        code = before;
+        defined = definedBefore;
+        measuring = wasMeasuring;
+        sizes.put(s, size);
+        return size;
+    }
+
+    /**
+     * compiles the statements into a method (or more than one, if it ends up too big anyways)
+     * & gives back the names of them in the order they go in
+     * the variables it uses get loaded from the arrays at the start & the ones it changes get put back at the end
+     */
+    private List<String> part(List<Stmt> part) {
+        BitSet before = (BitSet) defined.clone();
+        ClassWriter.Code outside = code;
+        Stores finder = stores(part);
+
+        code = new ClassWriter.Code();
+        code.useLocals(maxLocals);
+        for (int slot = finder.used.nextSetBit(0); slot >= 0; slot = finder.used.nextSetBit(slot + 1)) {
+            frame(slot, true);
+        }
+        for (Stmt s : part) {
+            statement(s);
+        }
+        BitSet written = written(finder);
+        for (int slot = written.nextSetBit(0); slot >= 0; slot = written.nextSetBit(slot + 1)) {
+            frame(slot, false);
+        }
+        code.op(RETURN, 0);
+        ClassWriter.Code compiled = code;
+        code = outside;
+
+        if (compiled.size() > HUGE) {
+            if (part.size() == 1) {
+                throw new ClassWriter.TooBig("a statement's too big for the jit");
+            }
+            // all the loading & storing pushed it over, so it has to be 2 parts instead
+            defined = before;
+            List<String> names = new ArrayList<>(part(part.subList(0, part.size() / 2)));
+            names.addAll(part(part.subList(part.size() / 2, part.size())));
+            return names;
+        }
+        String name = "part" + partCount++;
+        cw.method(name, PART_DESC, compiled);
+        return List.of(name);
+    }
+
+    /**
+     * compiles the body of an if or a loop, & if it's too big it goes in parts of its own instead
+     * (so a loop w/ a ton of stuff in it still gets jitted), which means storing the variables it uses
+     * into the arrays before calling them & loading the ones they change back after
+     */
+    private void body(Stmt body) {
+        if (size(body) <= PART_SIZE / 2) {
+            statement(body);
+            return;
+        }
+        if (budgeted) {
+            tick(body.line);
+        }
+        BitSet before = (BitSet) defined.clone();
+        List<Stmt> content = body instanceof Stmt.Block ? ((Stmt.Block) body).content : List.of(body);
+        for (List<Stmt> part : split(content)) {
+            Stores finder = stores(part);
+            for (int slot = finder.used.nextSetBit(0); slot >= 0; slot = finder.used.nextSetBit(slot + 1)) {
+                frame(slot, false);
+            }
+            // while it's just measuring, the calls only have to be the right size
+            for (String name : measuring ? List.of("part") : part(part)) {
+                callPart(name);
+            }
+            BitSet written = written(finder);
+            for (int slot = written.nextSetBit(0); slot >= 0; slot = written.nextSetBit(slot + 1)) {
+                frame(slot, true);
+            }
+        }
+        // it doesn't know what the parts defined, so it just goes w/ what was for sure defined before
+        defined = before;
+    }
+
+    /** calls a part w/ the same arguments this method got */
+    private void callPart(String name) {
+        for (int arg = 0; arg < 7; arg++) {
+            code.local(ALOAD, arg, 1);
+        }
+        invokeStatic(CLASS_NAME, name, PART_DESC);
+    }
+
+    private static Stores stores(List<Stmt> statements) {
+        Stores finder = new Stores(new ArrayList<>(), new ArrayList<>());
+        for (Stmt s : statements) {
+            s.accept(finder);
+        }
+        return finder;
+    }
+
+    /** every slot that gets stored into */
+    private static BitSet written(Stores finder) {
+        BitSet written = new BitSet();
+        for (int slot : finder.slots) {
+            written.set(slot);
+        }
+        return written;
+    }
+
+    /** loads a variable's locals from the arrays (or stores them back) */
+    private void frame(int slot, boolean load) {
+        if (kinds[slot] == Type.DOUBLE) {
+            frameLocal(DOUBLES, slot, load ? DALOAD : DASTORE, load ? DSTORE : DLOAD, locals[slot], 2);
+            frameLocal(FLAGS, slot, load ? IALOAD : IASTORE, load ? ISTORE : ILOAD, flags[slot], 1);
+        } else if (kinds[slot] == Type.LONG) {
+            frameLocal(LONGS, slot, load ? LALOAD : LASTORE, load ? LSTORE : LLOAD, locals[slot], 2);
+            frameLocal(OBJECTS, slot, load ? AALOAD : AASTORE, load ? ASTORE : ALOAD, boxes[slot], 1);
+            frameLocal(FLAGS, slot, load ? IALOAD : IASTORE, load ? ISTORE : ILOAD, flags[slot], 1);
+        } else {
+            frameLocal(OBJECTS, slot, load ? AALOAD : AASTORE, load ? ASTORE : ALOAD, locals[slot], 1);
+        }
+    }
+
+    /** array[slot] into a local, or the other way around (words is how big the value is) */
+    private void frameLocal(int array, int slot, int arrayOp, int localOp, int local, int words) {
+        code.local(ALOAD, array, 1);
+        code.opShort(SIPUSH, slot, 1);
+        if (arrayOp == IALOAD || arrayOp == LALOAD || arrayOp == DALOAD || arrayOp == AALOAD) {
+            code.op(arrayOp, words - 2);
+            code.local(localOp, local, -words);
+        } else {
+            code.local(localOp, local, words);
+            code.op(arrayOp, -2 - words);
+        }
+    }
+    //endregion
+
+    /** the stuff the generated code expects to get passed in */
+    Object[] constants() {
+        return constants.toArray();
+    }
+
+    //region type inference
+    /**
+     * figures out which variables are always Doubles (or always whole number math)
+     * it starts by assuming they're all Doubles, then keeps moving the ones that get
+     * something else stored in them down to LONG (if it's whole number math) or OBJECT until nothing changes
+     */
+    private void inferTypes(List<Stmt> statements, int slots) {
+        List<Integer> storedSlots = new ArrayList<>();
+        List<Expr> storedVals = new ArrayList<>();
+        Stores finder = new Stores(storedSlots, storedVals);
+        for (Stmt s : statements) {
+            s.accept(finder);
+        }
+
+        kinds = new Type[slots];
+        Arrays.fill(kinds, Type.DOUBLE);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < storedSlots.size(); i++) {
+                int slot = storedSlots.get(i);
+                Type type = typeOf(storedVals.get(i));
+                if (kinds[slot] != Type.OBJECT && type != kinds[slot]) {
+                    kinds[slot] = kinds[slot] == Type.DOUBLE && type == Type.LONG ? Type.LONG : Type.OBJECT;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private Type typeOf(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            Object val = ((Expr.Literal) expr).val;
+            return val instanceof Double ? Type.DOUBLE : val instanceof Long ? Type.LONG
+                    : val instanceof Boolean ? Type.BOOL : Type.OBJECT;
+        } else if (expr instanceof Expr.Var) {
+            return kinds[((Expr.Var) expr).slot];
+        } else if (expr instanceof Expr.Assignment) {
+            return typeOf(((Expr.Assignment) expr).val);
+        } else if (expr instanceof Expr.Grouping) {
+            return typeOf(((Expr.Grouping) expr).group);
+        } else if (expr instanceof Expr.Binary) {
+            Expr.Binary bin = (Expr.Binary) expr;
+            switch (bin.op.type) {
+                // these either give back a number or error out (or a string for +, but not w/ a double),
+                // & a double on either side makes the answer a double too
+                case PLUS: case MINUS: case STAR: case MOD:
+                    if (bothLongs(bin)) {
+                        return Type.LONG;
+                    }
+                    // fall through
+                case SLASH:
+                    return eitherDouble(bin) ? Type.DOUBLE : Type.OBJECT;
+                case GREATER: case GREATER_EQUAL: case LESS: case LESS_EQUAL:
+                case EQUAL_EQUAL: case BANG_EQUAL:
+                    return Type.BOOL;
+                default:
+                    return Type.OBJECT;
+            }
+        } else if (expr instanceof Expr.Unary) {
+            Expr.Unary unary = (Expr.Unary) expr;
+            if (unary.op.type == TokenType.MINUS) {
+                Type right = typeOf(unary.right);
+                return right == Type.DOUBLE || right == Type.LONG ? right : Type.OBJECT;
+            }
+            return unary.op.type == TokenType.BANG ? Type.BOOL : Type.OBJECT;
+        } else if (expr instanceof Expr.Logical) {
+            // and/or give back one of the sides, so it's only known if they match
+            Type left = typeOf(((Expr.Logical) expr).left);
+            return left == typeOf(((Expr.Logical) expr).right) ? left : Type.OBJECT;
+        }
+        return Type.OBJECT;
+    }
+
+    private boolean bothDoubles(Expr.Binary expr) {
+        return typeOf(expr.left) == Type.DOUBLE && typeOf(expr.right) == Type.DOUBLE;
+    }
+
+    private boolean eitherDouble(Expr.Binary expr) {
+        return typeOf(expr.left) == Type.DOUBLE || typeOf(expr.right) == Type.DOUBLE;
+    }
+
+    private boolean bothLongs(Expr.Binary expr) {
+        return typeOf(expr.left) == Type.LONG && typeOf(expr.right) == Type.LONG;
+    }
+
+    /** if it's whole number math that genLong can do (so no assignments or anything else that can't run twice) */
+    private boolean pureLong(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            return ((Expr.Literal) expr).val instanceof Long;
+        } else if (expr instanceof Expr.Var) {
+            return kinds[((Expr.Var) expr).slot] == Type.LONG;
+        } else if (expr instanceof Expr.Grouping) {
+            return pureLong(((Expr.Grouping) expr).group);
+        } else if (expr instanceof Expr.Binary) {
+            Expr.Binary bin = (Expr.Binary) expr;
+            switch (bin.op.type) {
+                case PLUS: case MINUS: case STAR: case MOD:
+                    return pureLong(bin.left) && pureLong(bin.right);
+                default:
+                    return false;
+            }
+        } else if (expr instanceof Expr.Unary) {
+            return ((Expr.Unary) expr).op.type == TokenType.MINUS && pureLong(((Expr.Unary) expr).right);
+        }
+        return false;
+    }
+    //endregion
+
+    //region statements
+    private void statement(Stmt s) {
+        if (budgeted) {
+            tick(s.line);
+        }
+        s.accept(this);
+    }
+
+    /** meter.tick(line) */
+    private void tick(int line) {
+        code.local(ALOAD, METER, 1);
+        if (line <= Short.MAX_VALUE) {
+            code.opShort(SIPUSH, line, 1);
+        } else {
+            code.opShort(LDC_W, cw.intConst(line), 1);
+        }
+        code.opShort(INVOKEVIRTUAL, cw.methodRef(BUDGET_METER, "tick", "(I)V"), -2);
+    }
+
+    @Override
+    public Void visitBlock(Stmt.Block stmt) {
+        for (Stmt s : stmt.content) {
+            statement(s);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Stmt.Expression stmt) {
+        if (stmt.expr instanceof Expr.Assignment) {
+            Expr.Assignment assign = (Expr.Assignment) stmt.expr;
+            if (kinds[assign.slot] == Type.LONG && pureLong(assign.val)) {
+                tryLong(() -> {
+                    genLong(assign.val);
+                    if (!defined.get(assign.slot)) {
+                        // it could still be undefined, the slow way has the error for that
+                        throwIfNotLong(assign.slot);
+                    }
+                    storeLong(assign.slot);
+                }, () -> {
+                    genObject(assign.val);
+                    storeObject(assign);
+                });
+                return null;
+            }
+        }
+        switch (typeOf(stmt.expr)) {
+            case DOUBLE:
+                genDouble(stmt.expr);
+                code.op(POP2, -2);
+                break;
+            case BOOL:
+                genBool(stmt.expr);
+                code.op(POP, -1);
+                break;
+            default:
+                genObject(stmt.expr);
+                code.op(POP, -1);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIf(Stmt.If stmt) {
+        ClassWriter.Label elseDo = code.newLabel();
+        jumpIfFalse(stmt.condition, elseDo);
+        BitSet before = (BitSet) defined.clone();
+        body(stmt.thenDo);
+        if (stmt.elseDo == null) {
+            code.place(elseDo);
+            defined = before;
+        } else {
+            ClassWriter.Label end = code.newLabel();
+            code.jump(GOTO, end, 0);
+            BitSet afterThen = defined;
+            defined = before;
+            code.place(elseDo);
+            body(stmt.elseDo);
+            // only the stuff both branches define is for sure defined after
+            defined.and(afterThen);
+            code.place(end);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
+    @Override
+    public Void visitPrint(Stmt.Print stmt) {
+        code.local(ALOAD, 1, 1);
+        switch (typeOf(stmt.expr)) {
+            case DOUBLE:
+                genDouble(stmt.expr);
+                invokeStatic(OPS, "print", "(" + OUT + "D)V");
+                break;
+            case BOOL:
+                genBool(stmt.expr);
+                invokeStatic(OPS, "print", "(" + OUT + "Z)V");
+                break;
+            default:
+                genObject(stmt.expr);
+                invokeStatic(OPS, "print", "(" + OUT + OBJ + ")V");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVar(Stmt.Var stmt) {
+        if (kinds[stmt.slot] == Type.DOUBLE) {
+            genDouble(stmt.init);
+            code.local(DSTORE, locals[stmt.slot], -2);
+            code.op(ICONST_1, 1);
+            code.local(ISTORE, flags[stmt.slot], -1);
+        } else if (kinds[stmt.slot] == Type.LONG && pureLong(stmt.init)) {
+            tryLong(() -> {
+                genLong(stmt.init);
+                storeLong(stmt.slot);
+            }, () -> {
+                genObject(stmt.init);
+                storeInLong(stmt.slot);
+            });
+        } else if (kinds[stmt.slot] == Type.LONG) {
+            genObject(stmt.init);
+            storeInLong(stmt.slot);
+        } else {
+            genObject(stmt.init);
+            code.local(ASTORE, locals[stmt.slot], -1);
+        }
+        defined.set(stmt.slot);
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(Stmt.While stmt) {
+        ClassWriter.Label start = code.newLabel();
+        ClassWriter.Label end = code.newLabel();
+        code.place(start);
+        // a condition that's just a truthy literal doesn't need to be checked
+        if (!(stmt.condition instanceof Expr.Literal && Values.bool(((Expr.Literal) stmt.condition).val))) {
+            jumpIfFalse(stmt.condition, end);
+        }
+        // the body might not run at all, so whatever it defines doesn't count
+        BitSet before = (BitSet) defined.clone();
+        body(stmt.toDo);
+        defined = before;
+        if (budgeted) {
+            tick(stmt.line);
+        }
+        code.jump(GOTO, start, 0);
+        code.place(end);
+        return null;
+    }
+    //endregion
+
+    //region number & boolean expressions
+    /** pushes the value of an expression that's known to be a number as a raw double */
+    private void genDouble(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            double val = (double) ((Expr.Literal) expr).val;
+            if (Double.doubleToRawLongBits(val) == 0) {
+                code.op(DCONST_0, 2);
+            } else if (val == 1) {
+                code.op(DCONST_1, 2);
+            } else {
+                code.opShort(LDC2_W, cw.doubleConst(val), 2);
+            }
+        } else if (expr instanceof Expr.Var) {
+            Expr.Var var = (Expr.Var) expr;
+            checkDoubleDefined(var.name, var.slot, "notFound");
+            code.local(DLOAD, locals[var.slot], 2);
+        } else if (expr instanceof Expr.Grouping) {
+            genDouble(((Expr.Grouping) expr).group);
+        } else if (expr instanceof Expr.Assignment) {
+            Expr.Assignment assign = (Expr.Assignment) expr;
+            genDouble(assign.val);
+            code.op(DUP2, 2);
+            if (kinds[assign.slot] == Type.DOUBLE) {
+                storeDouble(assign);
+            } else {
+                box(Type.DOUBLE);
+                storeObject(assign);
+            }
+        } else if (expr instanceof Expr.Binary) {
+            genArithmetic((Expr.Binary) expr);
+        } else if (expr instanceof Expr.Unary) {
+            Expr.Unary unary = (Expr.Unary) expr;
+            // it's only a double if what it's negating is
+            genDouble(unary.right);
+            code.op(DNEG, 0);
+        } else if (expr instanceof Expr.Logical) {
+            // both sides are numbers, so whichever one wins is too
+            Expr.Logical logical = (Expr.Logical) expr;
+            ClassWriter.Label end = code.newLabel();
+            genDouble(logical.left);
+            code.op(DUP2, 2);
+            code.op(DCONST_0, 2);
+            code.op(DCMPL, -3);
+            code.jump(logical.op.type == TokenType.OR ? IFNE : IFEQ, end, -1);
+            code.op(POP2, -2);
+            genDouble(logical.right);
+            code.place(end);
+        } else {
+            throw new IllegalStateException("not a number: " + expr);
+        }
+    }
+
+    private void genArithmetic(Expr.Binary expr) {
+        if (bothDoubles(expr)) {
+            genDouble(expr.left);
+            genDouble(expr.right);
+            switch (expr.op.type) {
+                case PLUS: code.op(DADD, -2); break;
+                case MINUS: code.op(DSUB, -2); break;
+                case STAR: code.op(DMUL, -2); break;
+                case SLASH: code.op(DDIV, -2); break;
+                case MOD: invokeStatic(VALUES, "mod", "(DD)D"); break;
+                default: throw new IllegalStateException("not arithmetic: " + expr.op);
+            }
+            return;
+        }
+        // one side's a double but the other one might not even be a number
+        genObjectArithmetic(expr);
+        invokeStatic(OPS, "unbox", "(" + OBJ + ")D");
+    }
+
+    /** does the math w/ boxed numbers (longs, or something that might not be a number at all) */
+    private void genObjectArithmetic(Expr.Binary expr) {
+        String name;
+        switch (expr.op.type) {
+            case PLUS: name = "add"; break;
+            case MINUS: name = "sub"; break;
+            case STAR: name = "mul"; break;
+            case SLASH: name = "div"; break;
+            case MOD: name = "mod"; break;
+            default: throw new IllegalStateException("not arithmetic: " + expr.op);
+        }
+        genObject(expr.left);
+        genObject(expr.right);
+        loadToken(expr.op);
+        if (budgeted && expr.op.type == TokenType.PLUS) {
+            // the strings it makes count for the budget
+            code.local(ALOAD, METER, 1);
+            invokeStatic(OPS, name, "(" + OBJ + OBJ + TOK + "L" + BUDGET_METER + ";)" + OBJ);
+            return;
+        }
+        invokeStatic(OPS, name, "(" + OBJ + OBJ + TOK + ")" + OBJ);
+    }
+
+    /** pushes the value of an expression that's known to be a boolean as an int */
+    private void genBool(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            code.op((boolean) ((Expr.Literal) expr).val ? ICONST_1 : ICONST_0, 1);
+        } else if (expr instanceof Expr.Grouping) {
+            genBool(((Expr.Grouping) expr).group);
+        } else if (expr instanceof Expr.Assignment) {
+            Expr.Assignment assign = (Expr.Assignment) expr;
+            genBool(assign.val);
+            code.op(DUP, 1);
+            box(Type.BOOL);
+            storeObject(assign);
+        } else if (expr instanceof Expr.Binary) {
+            genComparison((Expr.Binary) expr);
+        } else if (expr instanceof Expr.Unary) {
+            genTruthiness(((Expr.Unary) expr).right);
+            code.op(ICONST_1, 1);
+            code.op(IXOR, -1);
+        } else if (expr instanceof Expr.Logical) {
+            Expr.Logical logical = (Expr.Logical) expr;
+            ClassWriter.Label end = code.newLabel();
+            genBool(logical.left);
+            code.op(DUP, 1);
+            code.jump(logical.op.type == TokenType.OR ? IFNE : IFEQ, end, -1);
+            code.op(POP, -1);
+            genBool(logical.right);
+            code.place(end);
+        } else {
+            throw new IllegalStateException("not a boolean: " + expr);
+        }
+    }
+
+    private void genComparison(Expr.Binary expr) {
+        TokenType op = expr.op.type;
+        boolean equality = op == TokenType.EQUAL_EQUAL || op == TokenType.BANG_EQUAL;
+        if (bothDoubles(expr)) {
+            genDouble(expr.left);
+            genDouble(expr.right);
+            if (equality) {
+                invokeStatic(OPS, "same", "(DD)Z");
+            } else {
+                // dcmpg/dcmpl decide which way NaN goes, it has to make the comparison false
+                boolean less = op == TokenType.LESS || op == TokenType.LESS_EQUAL;
+                code.op(less ? DCMPG : DCMPL, -3);
+                ClassWriter.Label isFalse = code.newLabel();
+                ClassWriter.Label end = code.newLabel();
+                code.jump(falseIf(op), isFalse, -1);
+                code.op(ICONST_1, 1);
+                code.jump(GOTO, end, 0);
+                code.place(isFalse);
+                code.op(ICONST_0, 1);
+                code.place(end);
+            }
+        } else {
+            genObject(expr.left);
+            genObject(expr.right);
+            if (equality) {
+                invokeStatic(VALUES, "equal", "(" + OBJ + OBJ + ")Z");
+            } else {
+                String name;
+                switch (op) {
+                    case LESS: name = "less"; break;
+                    case LESS_EQUAL: name = "lessEqual"; break;
+                    case GREATER: name = "greater"; break;
+                    default: name = "greaterEqual"; break;
+                }
+                loadToken(expr.op);
+                invokeStatic(OPS, name, "(" + OBJ + OBJ + TOK + ")Z");
+            }
+        }
+        if (op == TokenType.BANG_EQUAL) {
+            code.op(ICONST_1, 1);
+            code.op(IXOR, -1);
+        }
+    }
+
+    /** the jump that goes if a comparison's false, after a dcmp or lcmp */
+    private static int falseIf(TokenType op) {
+        switch (op) {
+            case LESS: return IFGE;
+            case LESS_EQUAL: return IFGT;
+            case GREATER: return IFLE;
+            case GREATER_EQUAL: return IFLT;
+            case EQUAL_EQUAL: return IFNE;
+            default: return IFEQ;
+        }
+    }
+
+    /** pushes 1 if the expression is truthy, 0 if it isn't */
+    private void genTruthiness(Expr expr) {
+        switch (typeOf(expr)) {
+            case BOOL:
+                genBool(expr);
+                break;
+            case DOUBLE: {
+                ClassWriter.Label isFalse = code.newLabel();
+                ClassWriter.Label end = code.newLabel();
+                genDouble(expr);
+                code.op(DCONST_0, 2);
+                code.op(DCMPL, -3);
+                code.jump(IFEQ, isFalse, -1);
+                code.op(ICONST_1, 1);
+                code.jump(GOTO, end, 0);
+                code.place(isFalse);
+                code.op(ICONST_0, 1);
+                code.place(end);
+                break;
+            }
+            default:
+                genObject(expr);
+                invokeStatic(VALUES, "bool", "(" + OBJ + ")Z");
+        }
+    }
+
+    /**
+     * jumps to the label if the condition isn't truthy
+     * (this is only ever at the start of a statement, so the stack's empty & it can tryLong)
+     */
+    private void jumpIfFalse(Expr condition, ClassWriter.Label to) {
+        while (condition instanceof Expr.Grouping) {
+            condition = ((Expr.Grouping) condition).group;
+        }
+        if (condition instanceof Expr.Logical) {
+            // it only matters if it's truthy, not which side it was, so each side can just jump
+            Expr.Logical logical = (Expr.Logical) condition;
+            if (logical.op.type == TokenType.AND) {
+                jumpIfFalse(logical.left, to);
+                jumpIfFalse(logical.right, to);
+            } else {
+                ClassWriter.Label isTrue = code.newLabel();
+                ClassWriter.Label right = code.newLabel();
+                jumpIfFalse(logical.left, right);
+                code.jump(GOTO, isTrue, 0);
+                code.place(right);
+                jumpIfFalse(logical.right, to);
+                code.place(isTrue);
+            }
+            return;
+        }
+        if (condition instanceof Expr.Binary && typeOf(condition) == Type.BOOL) {
+            Expr.Binary bin = (Expr.Binary) condition;
+            if (pureLong(bin.left) && pureLong(bin.right)) {
+                tryLong(() -> {
+                    genLong(bin.left);
+                    genLong(bin.right);
+                    code.op(LCMP, -3);
+                    code.jump(falseIf(bin.op.type), to, -1);
+                }, () -> {
+                    genComparison(bin);
+                    code.jump(IFEQ, to, -1);
+                });
+                return;
+            }
+        }
+        if (typeOf(condition) == Type.DOUBLE) {
+            genDouble(condition);
+            code.op(DCONST_0, 2);
+            code.op(DCMPL, -3);
+        } else {
+            genTruthiness(condition);
+        }
+        code.jump(IFEQ, to, -1);
+    }
+    //endregion
+
+    //region raw longs
+    /**
+     * does the fast code, which does its math on raw longs, & if any of that can't be a long
+     * (it overflowed, or a variable's a double right now) it throws & the slow code does the whole thing instead
+     * the fast code can't do anything that'd be a problem to do twice, & catching something clears the stack,
+     * so this only works at the start of a statement
+     */
+    private void tryLong(Runnable fast, Runnable slow) {
+        ClassWriter.Label start = code.newLabel();
+        ClassWriter.Label end = code.newLabel();
+        ClassWriter.Label handler = code.newLabel();
+        ClassWriter.Label done = code.newLabel();
+        code.place(start);
+        fast.run();
+        code.place(end);
+        code.jump(GOTO, done, 0);
+        code.tryCatch(start, end, handler, cw.classRef("java/lang/ArithmeticException"));
+        code.catchAt(handler);
+        code.op(POP, -1);
+        slow.run();
+        code.place(done);
+    }
+
+    /** pushes the value of something pureLong as a raw long (see tryLong) */
+    private void genLong(Expr expr) {
+        if (expr instanceof Expr.Literal) {
+            long val = (long) ((Expr.Literal) expr).val;
+            if (val == 0) {
+                code.op(LCONST_0, 2);
+            } else if (val == 1) {
+                code.op(LCONST_1, 2);
+            } else {
+                code.opShort(LDC2_W, cw.longConst(val), 2);
+            }
+        } else if (expr instanceof Expr.Var) {
+            int slot = ((Expr.Var) expr).slot;
+            throwIfNotLong(slot);
+            code.local(LLOAD, locals[slot], 2);
+        } else if (expr instanceof Expr.Grouping) {
+            genLong(((Expr.Grouping) expr).group);
+        } else if (expr instanceof Expr.Binary) {
+            Expr.Binary bin = (Expr.Binary) expr;
+            genLong(bin.left);
+            genLong(bin.right);
+            switch (bin.op.type) {
+                case PLUS: invokeStatic("java/lang/Math", "addExact", "(JJ)J"); break;
+                case MINUS: invokeStatic("java/lang/Math", "subtractExact", "(JJ)J"); break;
+                case STAR: invokeStatic(OPS, "mul", "(JJ)J"); break;
+                case MOD: invokeStatic(OPS, "mod", "(JJ)J"); break;
+                default: throw new IllegalStateException("not long math: " + bin.op);
+            }
+        } else if (expr instanceof Expr.Unary) {
+            genLong(((Expr.Unary) expr).right);
+            invokeStatic(OPS, "negate", "(J)J");
+        } else {
+            throw new IllegalStateException("not long math: " + expr);
+        }
+    }
+
+    /** throws if a LONG slot doesn't have a long in it (so it's undefined or a double) */
+    private void throwIfNotLong(int slot) {
+        ClassWriter.Label ok = code.newLabel();
+        code.local(ILOAD, flags[slot], 1);
+        code.jump(IFNE, ok, -1);
+        invokeStatic(OPS, "notLong", "()Ljava/lang/ArithmeticException;");
+        code.op(ATHROW, -1);
+        code.place(ok);
+    }
+
+    /** stores the raw long on top of the stack in a LONG slot */
+    private void storeLong(int slot) {
+        code.local(LSTORE, locals[slot], -2);
+        code.op(ICONST_1, 1);
+        code.local(ISTORE, flags[slot], -1);
+    }
+
+    /** stores the object on top of the stack in a LONG slot, as a raw long if it's a Long */
+    private void storeInLong(int slot) {
+        ClassWriter.Label notLong = code.newLabel();
+        ClassWriter.Label end = code.newLabel();
+        code.op(DUP, 1);
+        code.opShort(INSTANCEOF, cw.classRef(LONG), 0);
+        code.jump(IFEQ, notLong, -1);
+        code.opShort(CHECKCAST, cw.classRef(LONG), 0);
+        code.opShort(INVOKEVIRTUAL, cw.methodRef(LONG, "longValue", "()J"), 1);
+        storeLong(slot);
+        code.jump(GOTO, end, 0);
+        code.place(notLong);
+        code.local(ASTORE, boxes[slot], -1);
+        code.op(ICONST_0, 1);
+        code.local(ISTORE, flags[slot], -1);
+        code.place(end);
+    }
+    //endregion
+
+    //region everything else
+    /** pushes the value of any expression as an object */
+    private void genObject(Expr expr) {
+        Type type = typeOf(expr);
+        if (type == Type.DOUBLE) {
+            genDouble(expr);
+            box(type);
+        } else if (type == Type.BOOL) {
+            genBool(expr);
+            box(type);
+        } else {
+            expr.accept(this);
+        }
+    }
+
+    @Override
+    public Void visitAssignmentExpr(Expr.Assignment expr) {
+        genObject(expr.val);
+        code.op(DUP, 1);
+        storeObject(expr);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        // comparisons are always booleans, so it's math on longs or on stuff that isn't known
+        genObjectArithmetic(expr);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        if (expr.val == null) {
+            code.op(ACONST_NULL, 1);
+        } else if (expr.val instanceof Long) {
+            // the same box every time, instead of Long.valueOf making a new one
+            loadConstant(expr.val);
+        } else {
+            code.opShort(LDC_W, cw.string((String) expr.val), 1);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        genObject(expr.group);
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        ClassWriter.Label end = code.newLabel();
+        genObject(expr.left);
+        code.op(DUP, 1);
+        invokeStatic(VALUES, "bool", "(" + OBJ + ")Z");
+        code.jump(expr.op.type == TokenType.OR ? IFNE : IFEQ, end, -1);
+        code.op(POP, -1);
+        genObject(expr.right);
+        code.place(end);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        // a - on a long or something that isn't known (! is always a boolean)
+        genObject(expr.right);
+        loadToken(expr.op);
+        invokeStatic(OPS, "negate", "(" + OBJ + TOK + ")" + OBJ);
+        return null;
+    }
+
+    @Override
+    public Void visitVarExpr(Expr.Var expr) {
+        if (kinds[expr.slot] == Type.LONG) {
+            // the raw long if it's there, otherwise whatever's in the box
+            ClassWriter.Label inBox = code.newLabel();
+            ClassWriter.Label end = code.newLabel();
+            code.local(ILOAD, flags[expr.slot], 1);
+            code.jump(IFEQ, inBox, -1);
+            code.local(LLOAD, locals[expr.slot], 2);
+            invokeStatic(LONG, "valueOf", "(J)Ljava/lang/Long;");
+            code.jump(GOTO, end, 0);
+            code.place(inBox);
+            code.local(ALOAD, boxes[expr.slot], 1);
+            if (!defined.get(expr.slot)) {
+                loadToken(expr.name);
+                invokeStatic(OPS, "read", "(" + OBJ + TOK + ")" + OBJ);
+            }
+            code.place(end);
+            return null;
+        }
+        code.local(ALOAD, locals[expr.slot], 1);
+        if (!defined.get(expr.slot)) {
+            loadToken(expr.name);
+            invokeStatic(OPS, "read", "(" + OBJ + TOK + ")" + OBJ);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        int count = expr.items.size();
+        if (count > Short.MAX_VALUE) {
+            throw new ClassWriter.TooBig("array literal's too big");
+        }
+        if (expr.items.stream().allMatch(item -> item instanceof Expr.Literal)) {
+            // all the items are already known, so it just copies them from the constants
+            // (which also keeps a big one from being too big for the jit)
+            Object[] items = literalArrays.computeIfAbsent(expr, e -> expr.items.stream()
+                    .map(item -> ((Expr.Literal) item).val).toArray());
+            loadConstant(items);
+            code.opShort(CHECKCAST, cw.classRef("[" + OBJ), 0);
+            invokeStatic(OPS, "copy", "([" + OBJ + ")" + OBJ);
+            return null;
+        }
+        // the items go into an Object[] that the array gets made from
+        code.opShort(SIPUSH, count, 1);
+        code.opShort(ANEWARRAY, cw.classRef("java/lang/Object"), 0);
+        for (int i = 0; i < count; i++) {
+            code.op(DUP, 1);
+            code.opShort(SIPUSH, i, 1);
+            genObject(expr.items.get(i));
+            code.op(AASTORE, -3);
+        }
+        invokeStatic(OPS, "array", "([" + OBJ + ")" + OBJ);
+        return null;
+    }
+
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        genObject(expr.array);
+        genObject(expr.index);
+        loadToken(expr.bracket);
+        invokeStatic(OPS, "index", "(" + OBJ + OBJ + TOK + ")" + OBJ);
+        return null;
+    }
+
+    @Override
+    public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        genObject(expr.array);
+        genObject(expr.index);
+        genObject(expr.val);
+        loadToken(expr.bracket);
+        invokeStatic(OPS, "setIndex", "(" + OBJ + OBJ + OBJ + TOK + ")" + OBJ);
+        return null;
+    }
+
+    @Override
+    public Void visitLengthExpr(Expr.Length expr) {
+        genObject(expr.array);
+        loadToken(expr.name);
+        invokeStatic(OPS, "length", "(" + OBJ + TOK + ")" + OBJ);
+        return null;
+    }
+
+    /** errors if a number variable might not be defined yet & actually isn't */
+    private void checkDoubleDefined(Token name, int slot, String error) {
+        if (defined.get(slot)) {
+            return;
+        }
+        ClassWriter.Label ok = code.newLabel();
+        code.local(ILOAD, flags[slot], 1);
+        code.jump(IFNE, ok, -1);
+        loadToken(name);
+        invokeStatic(OPS, error, "(" + TOK + ")Lio/github/sanspapyrus683/prog/errors/RuntimeError;");
+        code.op(ATHROW, -1);
+        code.place(ok);
+    }
+
+    /** stores the double on top of the stack in a number variable */
+    private void storeDouble(Expr.Assignment assign) {
+        checkDoubleDefined(assign.assignTo, assign.slot, "notInitialized");
+        code.local(DSTORE, locals[assign.slot], -2);
+    }
+
+    /** stores the object on top of the stack in a variable */
+    private void storeObject(Expr.Assignment assign) {
+        if (kinds[assign.slot] == Type.LONG) {
+            if (!defined.get(assign.slot)) {
+                // it's defined if there's a long in it, otherwise the box says
+                ClassWriter.Label ok = code.newLabel();
+                code.local(ILOAD, flags[assign.slot], 1);
+                code.jump(IFNE, ok, -1);
+                code.local(ALOAD, boxes[assign.slot], 1);
+                loadToken(assign.assignTo);
+                invokeStatic(OPS, "checkAssign", "(" + OBJ + TOK + ")V");
+                code.place(ok);
+            }
+            storeInLong(assign.slot);
+            return;
+        }
+        if (!defined.get(assign.slot)) {
+            code.local(ALOAD, locals[assign.slot], 1);
+            loadToken(assign.assignTo);
+            invokeStatic(OPS, "checkAssign", "(" + OBJ + TOK + ")V");
+        }
+        code.local(ASTORE, locals[assign.slot], -1);
+    }
+
+    private void box(Type type) {
+        if (type == Type.DOUBLE) {
+            invokeStatic("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+        } else {
+            invokeStatic("java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;");
+        }
+    }
+
+    /** pushes a token from the constant array (they're only needed for errors) */
+    private void loadToken(Token token) {
+        loadConstant(token);
+        code.opShort(CHECKCAST, cw.classRef(TOKEN), 0);
+    }
+
+    /** pushes something from the constant array (as a plain Object) */
+    private void loadConstant(Object val) {
+        Integer idx = constantIndices.get(val);
+        if (idx == null) {
+            idx = constants.size();
+            if (idx > Short.MAX_VALUE) {
+                throw new ClassWriter.TooBig("too many constants");
+            }
+            constants.add(val);
+            constantIndices.put(val, idx);
+        }
+        code.local(ALOAD, 0, 1);
+        code.opShort(SIPUSH, idx, 1);
+        code.op(AALOAD, -1);
+    }
+
+    private void invokeStatic(String owner, String name, String desc) {
+        code.opShort(INVOKESTATIC, cw.methodRef(owner, name, desc), stackChange(desc));
+    }
+
+    /** how much calling a static method w/ the given descriptor changes the stack */
+    private static int stackChange(String desc) {
+        int change = 0;
+        int i = 1;
+        while (desc.charAt(i) != ')') {
+            char c = desc.charAt(i);
+            change -= c == 'D' || c == 'J' ? 2 : 1;
+            // an array's just one reference, whatever it's an array of
+            while (desc.charAt(i) == '[') {
+                i++;
+            }
+            if (desc.charAt(i) == 'L') {
+                i = desc.indexOf(';', i);
+            }
+            i++;
+        }
+        char ret = desc.charAt(i + 1);
+        change += ret == 'V' ? 0 : ret == 'D' || ret == 'J' ? 2 : 1;
+        return change;
+    }
+    //endregion
+
+    /** collects every (slot, value) pair that gets stored into a variable anywhere */
+    private static class Stores implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+        private final List<Integer> slots;
+        private final List<Expr> vals;
+        private final BitSet used = new BitSet();  /** every slot that gets read or stored into */
+        Stores(List<Integer> slots, List<Expr> vals) {
+            this.slots = slots;
+            this.vals = vals;
+        }
+
+        @Override
+        public Void visitBlock(Stmt.Block stmt) {
+            for (Stmt s : stmt.content) {
+                s.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitExpr(Stmt.Expression stmt) {
+            return stmt.expr.accept(this);
+        }
+
+        @Override
+        public Void visitIf(Stmt.If stmt) {
+            stmt.condition.accept(this);
+            stmt.thenDo.accept(this);
+            return stmt.elseDo == null ? null : stmt.elseDo.accept(this);
+        }
+
+        @Override
+        public Void visitImport(Stmt.Import stmt) {
+            return null;
+        }
+
+        @Override
+        public Void visitPrint(Stmt.Print stmt) {
+            return stmt.expr.accept(this);
+        }
+
+        @Override
+        public Void visitVar(Stmt.Var stmt) {
+            used.set(stmt.slot);
+            slots.add(stmt.slot);
+            vals.add(stmt.init);
+            return stmt.init.accept(this);
+        }
+
+        @Override
+        public Void visitWhile(Stmt.While stmt) {
+            stmt.condition.accept(this);
+            return stmt.toDo.accept(this);
+        }
+
+        @Override
+        public Void visitAssignmentExpr(Expr.Assignment expr) {
+            used.set(expr.slot);
+            slots.add(expr.slot);
+            vals.add(expr.val);
+            return expr.val.accept(this);
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            expr.left.accept(this);
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            return expr.group.accept(this);
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            expr.left.accept(this);
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public Void visitVarExpr(Expr.Var expr) {
+            used.set(expr.slot);
+            return null;
+        }
+
+        @Override
+        public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+            for (Expr item : expr.items) {
+                item.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitIndexExpr(Expr.Index expr) {
+            expr.array.accept(this);
+            return expr.index.accept(this);
+        }
+
+        @Override
+        public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+            expr.array.accept(this);
+            expr.index.accept(this);
+            return expr.val.accept(this);
+        }
+
+        @Override
+        public Void visitLengthExpr(Expr.Length expr) {
+            return expr.array.accept(this);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package io.github.sanspapyrus683.prog.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the bare minimum needed to write out a class file w/ some static methods
+ * it makes version 49 (java 5) classes on purpose: those don't need stack map
+ * frames, so the verifier just figures out the types of everything by itself
+ */
+class ClassWriter {
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolIndices = new HashMap<>();
+    private int poolSize = 1;  // index 0 isn't a valid constant pool index
+    private final List<String> methodNames = new ArrayList<>();
+    private final List<String> methodDescs = new ArrayList<>();
+    private final List<Code> methods = new ArrayList<>();
+
+    //region constant pool
+    int utf8(String s) {
+        return entry("U" + s, 1, out -> out.writeUTF(s));
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, 7, out -> out.writeShort(name));
+    }
+
+    int string(String s) {
+        int val = utf8(s);
+        return entry("S" + s, 8, out -> out.writeShort(val));
+    }
+
+    int doubleConst(double d) {
+        return entry("D" + Double.doubleToRawLongBits(d), 6, out -> out.writeDouble(d));
+    }
+
+    int intConst(int i) {
+        return entry("I" + i, 3, out -> out.writeInt(i));
+    }
+
+    int longConst(long l) {
+        return entry("J" + l, 5, out -> out.writeLong(l));
+    }
+
+    int methodRef(String owner, String name, String desc) {
+        int cls = classRef(owner);
+        int nat = nameAndType(name, desc);
+        return entry("M" + owner + "." + name + desc, 10, out -> {
+            out.writeShort(cls);
+            out.writeShort(nat);
+        });
+    }
+
+    int fieldRef(String owner, String name, String desc) {
+        int cls = classRef(owner);
+        int nat = nameAndType(name, desc);
+        return entry("F" + owner + "." + name + desc, 9, out -> {
+            out.writeShort(cls);
+            out.writeShort(nat);
+        });
+    }
+
+    private int nameAndType(String name, String desc) {
+        int n = utf8(name);
+        int d = utf8(desc);
+        return entry("N" + name + desc, 12, out -> {
+            out.writeShort(n);
+            out.writeShort(d);
+        });
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int entry(String key, int tag, EntryWriter writer) {
+        Integer existing = poolIndices.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            poolOut.writeByte(tag);
+            writer.write(poolOut);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // can't happen w/ a byte array
+        }
+        int idx = poolSize;
+        poolSize += tag == 5 || tag == 6 ? 2 : 1;  // longs & doubles take up two slots for whatever reason
+        if (poolSize > 0xffff) {
+            throw new TooBig("too many constants");
+        }
+        poolIndices.put(key, idx);
+        return idx;
+    }
+    //endregion
+
+    /** adds a public static method (the code has to be finished by the time toBytes gets called) */
+    void method(String name, String desc, Code code) {
+        methodNames.add(name);
+        methodDescs.add(desc);
+        methods.add(code);
+    }
+
+    /** puts together the whole class w/ all the methods */
+    byte[] toBytes(String className) {
+        int thisClass = classRef(className);
+        int superClass = classRef("java/lang/Object");
+        int codeAttr = utf8("Code");
+        int[] names = new int[methods.size()];
+        int[] descs = new int[methods.size()];
+        for (int m = 0; m < methods.size(); m++) {
+            names[m] = utf8(methodNames.get(m));
+            descs[m] = utf8(methodDescs.get(m));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);  // minor version
+            out.writeShort(49);  // major version
+            out.writeShort(poolSize);
+            pool.writeTo(out);
+            out.writeShort(0x0001 | 0x0010 | 0x0020);  // public final super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);  // interfaces
+            out.writeShort(0);  // fields
+
+            out.writeShort(methods.size());
+            for (int m = 0; m < methods.size(); m++) {
+                Code code = methods.get(m);
+                out.writeShort(0x0001 | 0x0008);  // public static
+                out.writeShort(names[m]);
+                out.writeShort(descs[m]);
+                out.writeShort(1);  // just the code attribute
+                out.writeShort(codeAttr);
+                byte[] body = code.bytes();
+                out.writeInt(2 + 2 + 4 + body.length + 2 + 8 * code.handlers.size() + 2);
+                out.writeShort(code.maxStack());
+                out.writeShort(code.maxLocals());
+                out.writeInt(body.length);
+                out.write(body);
+                out.writeShort(code.handlers.size());
+                for (Handler h : code.handlers) {
+                    out.writeShort(h.start.at);
+                    out.writeShort(h.end.at);
+                    out.writeShort(h.handler.at);
+                    out.writeShort(h.type);
+                }
+                out.writeShort(0);  // code attributes
+            }
+
+            out.writeShort(0);  // class attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** thrown when the script just doesn't fit into the limits of a single method */
+    static class TooBig extends RuntimeException {
+        TooBig(String msg) {
+            super(msg);
+        }
+    }
+
+    /** somewhere in the code that jumps can go to, the position gets filled in once it's placed */
+    static class Label {
+        private int at = -1;
+        private int stack = 0;  /** the stack size whenever something jumps here */
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    /** a part of the code where if something of the given class gets thrown, it jumps to the handler */
+    private static class Handler {
+        private final Label start;
+        private final Label end;
+        private final Label handler;
+        private final int type;  /** the class ref of what it catches */
+
+        private Handler(Label start, Label end, Label handler, int type) {
+            this.start = start;
+            this.end = end;
+            this.handler = handler;
+            this.type = type;
+        }
+    }
+
+    /**
+     * the bytecode of a method
+     * it keeps track of how big the stack gets along the way so max_stack is right
+     */
+    static class Code {
+        private byte[] code = new byte[256];
+        private int size = 0;
+        private int stack = 0;
+        private int maxStack = 0;
+        private int maxLocals = 0;
+        private boolean reachable = true;
+        private final List<Label> labels = new ArrayList<>();
+        private final List<Handler> handlers = new ArrayList<>();
+
+        void op(int opcode, int stackChange) {
+            put(opcode);
+            adjust(stackChange);
+            // nothing can fall through past these
+            if (opcode == Opcodes.GOTO || opcode == Opcodes.ATHROW || opcode == Opcodes.RETURN) {
+                reachable = false;
+            }
+        }
+
+        void opByte(int opcode, int operand, int stackChange) {
+            op(opcode, stackChange);
+            put(operand);
+        }
+
+        void opShort(int opcode, int operand, int stackChange) {
+            op(opcode, stackChange);
+            put(operand >> 8);
+            put(operand);
+        }
+
+        /** loads or stores a local (w/ the wide prefix for big indices) */
+        void local(int opcode, int index, int stackChange) {
+            if (index > 0xff) {
+                put(Opcodes.WIDE);
+                opShort(opcode, index, stackChange);
+            } else {
+                opByte(opcode, index, stackChange);
+            }
+        }
+
+        Label newLabel() {
+            Label ret = new Label();
+            labels.add(ret);
+            return ret;
+        }
+
+        void jump(int opcode, Label to, int stackChange) {
+            int from = size;
+            op(opcode, stackChange);
+            put(0);
+            put(0);
+            to.jumps.add(from);
+            to.stack = stack;
+        }
+
+        void place(Label label) {
+            label.at = size;
+            // after a goto the stack is whatever it was at the jumps coming here
+            if (!reachable) {
+                stack = label.stack;
+            }
+            reachable = true;
+        }
+
+        /** anything of the type thrown from start up to end goes to handler (which gets placed w/ catchAt) */
+        void tryCatch(Label start, Label end, Label handler, int type) {
+            handlers.add(new Handler(start, end, handler, type));
+        }
+
+        /** places a handler, the only thing on the stack there is whatever got thrown */
+        void catchAt(Label handler) {
+            handler.at = size;
+            stack = 0;
+            adjust(1);
+            reachable = true;
+        }
+
+        void useLocals(int amt) {
+            maxLocals = Math.max(maxLocals, amt);
+        }
+
+        int maxStack() {
+            return maxStack;
+        }
+
+        int maxLocals() {
+            return maxLocals;
+        }
+
+        /** how many bytes of code there are so far */
+        int size() {
+            return size;
+        }
+
+        /** fills in all the jump offsets (every label has to be placed by now) */
+        byte[] bytes() {
+            if (size > 0xffff) {
+                throw new TooBig("method too big");
+            }
+            for (Label l : labels) {
+                for (int from : l.jumps) {
+                    int offset = l.at - from;
+                    if (offset > Short.MAX_VALUE || offset < Short.MIN_VALUE) {
+                        throw new TooBig("jump too far");
+                    }
+                    code[from + 1] = (byte) (offset >> 8);
+                    code[from + 2] = (byte) offset;
+                }
+            }
+            return Arrays.copyOf(code, size);
+        }
+
+        private void adjust(int stackChange) {
+            stack += stackChange;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void put(int b) {
+            if (size == code.length) {
+                code = Arrays.copyOf(code, size * 2);
+            }
+            code[size++] = (byte) b;
+        }
+    }
+}
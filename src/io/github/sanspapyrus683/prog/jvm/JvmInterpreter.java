@@ -0,0 +1,115 @@
+package io.github.sanspapyrus683.prog.jvm;
+
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.BudgetMeter;
+import io.github.sanspapyrus683.prog.inner.BudgetedInterpreter;
+import io.github.sanspapyrus683.prog.inner.Environment;
+import io.github.sanspapyrus683.prog.inner.Interpreter;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.output.Output;
+import io.github.sanspapyrus683.prog.output.StreamOutput;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * compiles the code into an actual jvm class & runs that,
+ * so hotspot gets to optimize the script just like it would normal java
+ * the top level statements (& big loop or if bodies) get split up over a bunch of methods, but a script
+ * that still won't fit (see ClassCompiler.HUGE) just goes to the normal interpreter
+ */
+public class JvmInterpreter {
+    /**
+     * a script that's already been turned into a class (or the statements, if it was too big)
+     * nothing in here changes when it runs, so the same one can be run as many times as you want, even at once
+     */
+    public static class Compiled {
+        private final MethodHandle script;  /** null if it has to go through the normal interpreter */
+        private final Object[] constants;
+        private final List<Stmt> statements;
+        private final int slots;
+        private final String tooBig;  /** why it couldn't be turned into a class, null if it could */
+
+        private Compiled(MethodHandle script, Object[] constants, List<Stmt> statements, int slots, String tooBig) {
+            this.script = script;
+            this.constants = constants;
+            this.statements = statements;
+            this.slots = slots;
+            this.tooBig = tooBig;
+        }
+
+        /** null if it got turned into a class, otherwise why it runs on the normal interpreter instead */
+        public String tooBig() {
+            return tooBig;
+        }
+    }
+
+    private final Output out;
+    private final ErrorReporter errors;
+
+    public JvmInterpreter() {
+        this(new StreamOutput(System.out));
+    }
+
+    public JvmInterpreter(Output out) {
+        this(out, ErrorReporter.STDERR);
+    }
+
+    public JvmInterpreter(Output out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    /** compiles resolved statements that need the given amount of variable slots */
+    public static Compiled compile(List<Stmt> statements, int slots) {
+        return compile(statements, slots, false);
+    }
+
+    /** a budgeted script ticks a BudgetMeter as it goes, so it has to be run w/ one */
+    public static Compiled compile(List<Stmt> statements, int slots, boolean budgeted) {
+        try {
+            ClassCompiler compiler = new ClassCompiler(budgeted);
+            byte[] bytes = compiler.compile(statements, slots);
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle script = lookup.findStatic(lookup.lookupClass(), "run",
+                    MethodType.methodType(void.class, Object[].class, Output.class, BudgetMeter.class));
+            return new Compiled(script, compiler.constants(), statements, slots, null);
+        } catch (ClassWriter.TooBig tooBig) {
+            return new Compiled(null, null, statements, slots, tooBig.getMessage());
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException("couldn't load the compiled script", e);
+        }
+    }
+
+    /** runs resolved statements that need the given amount of variable slots */
+    public void interpret(List<Stmt> statements, int slots) {
+        run(compile(statements, slots));
+    }
+
+    public void run(Compiled compiled) {
+        run(compiled, null);
+    }
+
+    /** runs a script w/ a meter for its budget (it has to be a budgeted one if there's a meter) */
+    public void run(Compiled compiled, BudgetMeter meter) {
+        if (compiled.script == null) {
+            Interpreter fallback = meter == null
+                    ? new Interpreter(new Environment(compiled.slots), out, errors)
+                    : new BudgetedInterpreter(compiled.slots, out, errors, meter);
+            fallback.interpret(compiled.statements);
+            return;
+        }
+        try {
+            compiled.script.invokeExact(compiled.constants, out, meter);
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);  // the method doesn't throw anything checked
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.sanspapyrus683.prog.jvm;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.Array;
+import io.github.sanspapyrus683.prog.inner.BudgetMeter;
+import io.github.sanspapyrus683.prog.inner.Values;
+import io.github.sanspapyrus683.prog.output.Output;
+
+/**
+ * everything the generated classes call into when they can't just use
+ * a jvm instruction (the slow paths, basically)
+ * these do the exact same checks as the interpreter so the errors match up
+ */
+final class Ops {
+    private Ops() { }
+
+    /** what a variable that isn't a number holds before its var statement runs */
+    static final Object UNDEFINED = new Object();
+
+    //region variables
+    static Object read(Object val, Token var) {
+        if (val == UNDEFINED) {
+            throw notFound(var);
+        }
+        return val;
+    }
+
+    static void checkAssign(Object old, Token var) {
+        if (old == UNDEFINED) {
+            throw notInitialized(var);
+        }
+    }
+
+    static RuntimeError notFound(Token var) {
+        return new RuntimeError(var, "variable '" + var.lexeme + "' not found");
+    }
+
+    static RuntimeError notInitialized(Token var) {
+        return new RuntimeError(var, "variable '" + var.lexeme + "' not initialized you moron");
+    }
+    //endregion
+
+    //region operators
+    static Object add(Object left, Object right, Token op) {
+        if (left instanceof CharSequence && right instanceof CharSequence) {
+            return Values.concat(left, right);
+        }
+        if (Values.isNumber(left) && Values.isNumber(right)) {
+            return Values.add(left, right);
+        }
+        throw new RuntimeError(op, "operands need to be the same");
+    }
+
+    /** + for budgeted classes, so the strings it makes get counted */
+    static Object add(Object left, Object right, Token op, BudgetMeter meter) {
+        if (left instanceof CharSequence && right instanceof CharSequence) {
+            return meter.concat(left, right, op.line);
+        }
+        return add(left, right, op);
+    }
+
+    static Object sub(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.sub(left, right);
+    }
+
+    static Object mul(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.mul(left, right);
+    }
+
+    static Object div(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.div(left, right);
+    }
+
+    static Object mod(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.mod(left, right);
+    }
+
+    static boolean greater(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.greater(left, right);
+    }
+
+    static boolean greaterEqual(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.greaterEqual(left, right);
+    }
+
+    static boolean less(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.less(left, right);
+    }
+
+    static boolean lessEqual(Object left, Object right, Token op) {
+        checkBothNums(op, left, right);
+        return Values.lessEqual(left, right);
+    }
+
+    /** == for two numbers, same as Double.equals (so NaN == NaN & -0 != 0) */
+    static boolean same(double left, double right) {
+        return Double.doubleToLongBits(left) == Double.doubleToLongBits(right);
+    }
+
+    static Object negate(Object val, Token op) {
+        if (!Values.isNumber(val)) {
+            throw new RuntimeError(op, "operand must be a number");
+        }
+        return Values.negate(val);
+    }
+
+    /** unboxes something the compiler knows is a Double (like a long times a double) */
+    static double unbox(Object val) {
+        return (double) val;
+    }
+
+    private static void checkBothNums(Token op, Object left, Object right) {
+        if (!(Values.isNumber(left) && Values.isNumber(right))) {
+            throw new RuntimeError(op, "operands must both be numbers");
+        }
+    }
+    //endregion
+
+    //region raw longs
+    // the generated code does whole number math on raw longs (w/ Math.addExact & all that),
+    // & when the answer wouldn't be a Long these throw instead, so it goes & does it the slow way
+
+    private static final ArithmeticException NOT_LONG = new ArithmeticException("not a long");
+
+    /** for when a variable that's usually a raw long doesn't have one in it right now */
+    static ArithmeticException notLong() {
+        return NOT_LONG;
+    }
+
+    static long mul(long a, long b) {
+        long res = Math.multiplyExact(a, b);
+        if (res == 0 && (a ^ b) < 0) {
+            throw NOT_LONG;  // -0
+        }
+        return res;
+    }
+
+    static long mod(long a, long b) {
+        if (b == 0) {
+            throw NOT_LONG;  // NaN
+        }
+        long res = a % b;
+        if (res == 0 && a < 0) {
+            throw NOT_LONG;  // -0
+        }
+        return res;
+    }
+
+    static long negate(long val) {
+        if (val == 0) {
+            throw NOT_LONG;  // -0
+        }
+        return Math.negateExact(val);
+    }
+    //endregion
+
+    //region arrays
+    static Object array(Object[] items) {
+        return Array.of(items);
+    }
+
+    /** a new array w/ the same items as some array literal's (the items don't get changed) */
+    static Object copy(Object[] items) {
+        return Array.of(items.clone());
+    }
+
+    static Object index(Object array, Object index, Token bracket) {
+        try {
+            return Array.index(array, index);
+        } catch (Array.BadAccess e) {
+            throw e.at(bracket);
+        }
+    }
+
+    static Object setIndex(Object array, Object index, Object val, Token bracket) {
+        try {
+            return Array.setIndex(array, index, val);
+        } catch (Array.BadAccess e) {
+            throw e.at(bracket);
+        }
+    }
+
+    static Object length(Object array, Token name) {
+        try {
+            return Array.lengthOf(array);
+        } catch (Array.BadAccess e) {
+            throw e.at(name);
+        }
+    }
+    //endregion
+
+    //region printing
+    static void print(Output out, Object val) {
+        out.println(val);
+    }
+
+    static void print(Output out, double val) {
+        out.println(val);
+    }
+
+    static void print(Output out, boolean val) {
+        out.println((Boolean) val);
+    }
+    //endregion
+}
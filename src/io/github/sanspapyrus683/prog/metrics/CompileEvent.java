@@ -0,0 +1,29 @@
+package io.github.sanspapyrus683.prog.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** resolving, optimizing, & compiling for the backend (everything between parsing & running) */
+@Name("io.github.sanspapyrus683.prog.Compile")
+@Label("Compile")
+@Category("Language Crap")
+@Description("Resolving, optimizing, & compiling a parsed script for its backend")
+public class CompileEvent extends jdk.jfr.Event {
+    @Label("Script")
+    public String script;
+
+    @Label("Backend")
+    public String backend;
+
+    @Label("Requested Backend")
+    @Description("What the engine asked for, the backend's only different if the script had to fall back to the tree")
+    public String requestedBackend;
+
+    @Label("Variable Slots")
+    public int slots;
+
+    @Label("Errored")
+    public boolean errored;
+}
@@ -0,0 +1,26 @@
+package io.github.sanspapyrus683.prog.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** one run of a compiled script */
+@Name("io.github.sanspapyrus683.prog.Execute")
+@Label("Execute")
+@Category("Language Crap")
+@Description("Running a compiled script once")
+public class ExecuteEvent extends jdk.jfr.Event {
+    @Label("Script")
+    public String script;
+
+    @Label("Backend")
+    public String backend;
+
+    @Label("Statements Executed")
+    @Description("Only counted w/ detailed metrics on the tree interpreter, 0 otherwise")
+    public long statements;
+
+    @Label("Runtime Error")
+    public boolean runtimeError;
+}
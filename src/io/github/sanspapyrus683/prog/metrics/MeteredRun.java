@@ -0,0 +1,10 @@
+package io.github.sanspapyrus683.prog.metrics;
+
+/** what a run w/ detailed metrics counted */
+public interface MeteredRun {
+    long statements();
+    long reads();
+    long writes();
+    /** how many numbers got boxed into a new Long or Double */
+    long boxed();
+}
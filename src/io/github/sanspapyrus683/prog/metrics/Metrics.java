@@ -0,0 +1,150 @@
+package io.github.sanspapyrus683.prog.metrics;
+
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+
+import jdk.jfr.FlightRecorder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * counters for everything an Engine does, safe to read from any thread while scripts are running
+ * give the same one to an Engine & scrape snapshot() whenever
+ *
+ * the cheap stuff (scripts, tokens, errors) is always counted, but counting every statement,
+ * variable access, & boxed number only happens if detailed is on, & only on the tree interpreter
+ * (runs w/o it use the normal interpreter, so they don't pay for any of it)
+ */
+public class Metrics {
+    private final boolean detailed;
+
+    final LongAdder scriptsCompiled = new LongAdder();
+    final LongAdder scriptsRun = new LongAdder();
+    final LongAdder scriptsFellBack = new LongAdder();  /** compiled for the tree interpreter instead of the backend that was asked for */
+    final LongAdder tokensScanned = new LongAdder();
+    final LongAdder statementsParsed = new LongAdder();
+    final LongAdder compileErrors = new LongAdder();
+    final LongAdder runtimeErrors = new LongAdder();
+    final LongAdder statementsExecuted = new LongAdder();
+    final LongAdder variableReads = new LongAdder();
+    final LongAdder variableWrites = new LongAdder();
+    final LongAdder boxedValues = new LongAdder();
+
+    public Metrics() {
+        this(false);
+    }
+
+    public Metrics(boolean detailed) {
+        this.detailed = detailed;
+    }
+
+    public boolean detailed() {
+        return detailed;
+    }
+
+    /** everything counted so far, by name */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+        ret.put("scripts.compiled", scriptsCompiled.sum());
+        ret.put("scripts.run", scriptsRun.sum());
+        ret.put("scripts.fell_back", scriptsFellBack.sum());
+        ret.put("tokens.scanned", tokensScanned.sum());
+        ret.put("statements.parsed", statementsParsed.sum());
+        ret.put("errors.compile", compileErrors.sum());
+        ret.put("errors.runtime", runtimeErrors.sum());
+        if (detailed) {
+            ret.put("statements.executed", statementsExecuted.sum());
+            ret.put("variables.reads", variableReads.sum());
+            ret.put("variables.writes", variableWrites.sum());
+            ret.put("values.boxed", boxedValues.sum());
+        }
+        return ret;
+    }
+
+    /**
+     * if jfr's been started, so it's worth making the events at all
+     * just making one loads ~100 jfr classes, which is most of the startup for a small script
+     */
+    public static boolean jfrOn() {
+        return FlightRecorder.isInitialized();
+    }
+
+    //region recording (the engine calls these)
+    public void parsed(int tokens, int statements) {
+        tokensScanned.add(tokens);
+        statementsParsed.add(statements);
+    }
+
+    public void compiled(boolean errored) {
+        (errored ? compileErrors : scriptsCompiled).increment();
+    }
+
+    public void fellBack() {
+        scriptsFellBack.increment();
+    }
+
+    public void ran(MeteredRun run) {
+        scriptsRun.increment();
+        if (run != null) {
+            statementsExecuted.add(run.statements());
+            variableReads.add(run.reads());
+            variableWrites.add(run.writes());
+            boxedValues.add(run.boxed());
+        }
+    }
+
+    /** passes errors along to the other reporter, counting the runtime ones on the way */
+    public ErrorReporter counting(ErrorReporter errors) {
+        return new ErrorReporter() {
+            @Override
+            public void error(int line, String where, String msg) {
+                errors.error(line, where, msg);
+            }
+
+            @Override
+            public void runtimeError(RuntimeError error) {
+                runtimeErrors.increment();
+                errors.runtimeError(error);
+            }
+        };
+    }
+    //endregion
+
+    /** how many statements there are in total, including the ones inside other ones */
+    public static int countStatements(List<Stmt> statements) {
+        int ret = 0;
+        for (Stmt s : statements) {
+            ret += countStatements(s);
+        }
+        return ret;
+    }
+
+    /** goes through it w/ a stack instead of recursing, since scripts can be nested really deep */
+    private static int countStatements(Stmt stmt) {
+        int ret = 0;
+        Deque<Stmt> left = new ArrayDeque<>();
+        left.push(stmt);
+        while (!left.isEmpty()) {
+            Stmt s = left.pop();
+            ret++;
+            if (s instanceof Stmt.Block) {
+                ((Stmt.Block) s).content.forEach(left::push);
+            } else if (s instanceof Stmt.If) {
+                Stmt.If ifStmt = (Stmt.If) s;
+                left.push(ifStmt.thenDo);
+                if (ifStmt.elseDo != null) {
+                    left.push(ifStmt.elseDo);
+                }
+            } else if (s instanceof Stmt.While) {
+                left.push(((Stmt.While) s).toDo);
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.sanspapyrus683.prog.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * tokenizing & parsing a script
+ * they're one event since the parser pulls tokens out of the tokenizer as it goes
+ */
+@Name("io.github.sanspapyrus683.prog.Parse")
+@Label("Parse")
+@Category("Language Crap")
+@Description("Tokenizing & parsing a script")
+public class ParseEvent extends jdk.jfr.Event {
+    @Label("Script")
+    public String script;
+
+    @Label("Tokens")
+    public int tokens;
+
+    @Label("Statements")
+    public int statements;
+}
@@ -0,0 +1,629 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.Values;
+
+/**
+ * all the two-operand operators
+ * every one of these starts out uninitialized, looks at what it gets the first
+ * time it runs, & turns into a version made for those types
+ * if the types ever change on a specialized node it gives up & goes generic for good
+ */
+abstract class BinaryNode extends ExprNode {
+    final Token op;
+    ExprNode left;
+    ExprNode right;
+
+    BinaryNode(Token op, ExprNode left, ExprNode right) {
+        this.op = op;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    @Override
+    protected void replaceChild(Node oldChild, Node newChild) {
+        if (left == oldChild) {
+            left = (ExprNode) newChild;
+        } else {
+            right = (ExprNode) newChild;
+        }
+    }
+
+    /** turns this into the generic version & finishes off the operation w/ it */
+    final Object generalize(Frame frame, Object l, Object r) {
+        replace(new Generic(op, left, right));
+        return compute(frame, op, l, r);
+    }
+
+    /** same thing, but for when only the left side has been evaluated so far */
+    final Object generalize(Frame frame, Object l) {
+        replace(new Generic(op, left, right));
+        return compute(frame, op, l, right.execute(frame));
+    }
+
+    /** does the operation the slow way (the same exact way the interpreter does it) */
+    static Object compute(Frame frame, Token op, Object left, Object right) {
+        switch (op.type) {
+            case PLUS:
+                if (left instanceof CharSequence && right instanceof CharSequence) {
+                    return frame.concat(op, left, right);
+                }
+                if (Values.isNumber(left) && Values.isNumber(right)) {
+                    return Values.add(left, right);
+                }
+                throw new RuntimeError(op, "operands need to be the same");
+            case MINUS:
+                checkBothNums(op, left, right);
+                return Values.sub(left, right);
+            case SLASH:
+                checkBothNums(op, left, right);
+                return Values.div(left, right);
+            case STAR:
+                checkBothNums(op, left, right);
+                return Values.mul(left, right);
+            case MOD:
+                checkBothNums(op, left, right);
+                return Values.mod(left, right);
+            case GREATER:
+                checkBothNums(op, left, right);
+                return Values.greater(left, right);
+            case GREATER_EQUAL:
+                checkBothNums(op, left, right);
+                return Values.greaterEqual(left, right);
+            case LESS:
+                checkBothNums(op, left, right);
+                return Values.less(left, right);
+            case LESS_EQUAL:
+                checkBothNums(op, left, right);
+                return Values.lessEqual(left, right);
+            case EQUAL_EQUAL:
+                return Values.equal(left, right);
+            case BANG_EQUAL:
+                return !Values.equal(left, right);
+        }
+        return null;  // what
+    }
+
+    private static void checkBothNums(Token op, Object left, Object right) {
+        if (!(Values.isNumber(left) && Values.isNumber(right))) {
+            throw new RuntimeError(op, "operands must both be numbers");
+        }
+    }
+
+    /** makes the version of the operator for two numbers (if there is one) */
+    static BinaryNode forDoubles(Token op, ExprNode left, ExprNode right) {
+        switch (op.type) {
+            case PLUS: return new Add(op, left, right);
+            case MINUS: return new Sub(op, left, right);
+            case STAR: return new Mul(op, left, right);
+            case SLASH: return new Div(op, left, right);
+            case MOD: return new Mod(op, left, right);
+            case GREATER: return new Greater(op, left, right);
+            case GREATER_EQUAL: return new GreaterEqual(op, left, right);
+            case LESS: return new Less(op, left, right);
+            case LESS_EQUAL: return new LessEqual(op, left, right);
+            case EQUAL_EQUAL: return new Equal(op, left, right);
+            case BANG_EQUAL: return new NotEqual(op, left, right);
+            default: return new Generic(op, left, right);
+        }
+    }
+
+    /** the same thing for two longs */
+    static BinaryNode forLongs(Token op, ExprNode left, ExprNode right) {
+        switch (op.type) {
+            case PLUS: return new LongAdd(op, left, right);
+            case MINUS: return new LongSub(op, left, right);
+            case STAR: return new LongMul(op, left, right);
+            case SLASH: return new LongDiv(op, left, right);
+            case MOD: return new LongMod(op, left, right);
+            case GREATER: return new LongGreater(op, left, right);
+            case GREATER_EQUAL: return new LongGreaterEqual(op, left, right);
+            case LESS: return new LongLess(op, left, right);
+            case LESS_EQUAL: return new LongLessEqual(op, left, right);
+            case EQUAL_EQUAL: return new LongEqual(op, left, right);
+            case BANG_EQUAL: return new LongNotEqual(op, left, right);
+            default: return new Generic(op, left, right);
+        }
+    }
+
+    static final class Uninitialized extends BinaryNode {
+        Uninitialized(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object l = left.execute(frame);
+            Object r = right.execute(frame);
+            if (l instanceof Double && r instanceof Double) {
+                replace(forDoubles(op, left, right));
+            } else if (l instanceof Long && r instanceof Long) {
+                replace(forLongs(op, left, right));
+            } else if (l instanceof CharSequence && r instanceof CharSequence && op.type == TokenType.PLUS) {
+                replace(new StringAdd(op, left, right));
+            } else {
+                replace(new Generic(op, left, right));
+            }
+            return compute(frame, op, l, r);
+        }
+    }
+
+    static final class Generic extends BinaryNode {
+        Generic(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object l = left.execute(frame);
+            return compute(frame, op, l, right.execute(frame));
+        }
+    }
+
+    static final class StringAdd extends BinaryNode {
+        StringAdd(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object l = left.execute(frame);
+            Object r = right.execute(frame);
+            if (l instanceof CharSequence && r instanceof CharSequence) {
+                return frame.concat(op, l, r);
+            }
+            return generalize(frame, l, r);
+        }
+    }
+
+    //region number operators
+    /** an operator that takes two numbers & gives back another one */
+    abstract static class Arithmetic extends BinaryNode {
+        Arithmetic(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        abstract double apply(double l, double r);
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                return e.result;
+            }
+        }
+
+        @Override
+        double executeDouble(Frame frame) throws UnexpectedResult {
+            double l;
+            try {
+                l = left.executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                return asDouble(generalize(frame, e.result));
+            }
+            double r;
+            try {
+                r = right.executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                return asDouble(generalize(frame, l, e.result));
+            }
+            return apply(l, r);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            try {
+                return executeDouble(frame) != 0;
+            } catch (UnexpectedResult e) {
+                return Values.bool(e.result);
+            }
+        }
+
+        private static double asDouble(Object val) throws UnexpectedResult {
+            if (val instanceof Double) {
+                return (double) val;
+            }
+            throw new UnexpectedResult(val);
+        }
+    }
+
+    static final class Add extends Arithmetic {
+        Add(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        double apply(double l, double r) {
+            return l + r;
+        }
+    }
+
+    static final class Sub extends Arithmetic {
+        Sub(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        double apply(double l, double r) {
+            return l - r;
+        }
+    }
+
+    static final class Mul extends Arithmetic {
+        Mul(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        double apply(double l, double r) {
+            return l * r;
+        }
+    }
+
+    static final class Div extends Arithmetic {
+        Div(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        double apply(double l, double r) {
+            return l / r;
+        }
+    }
+
+    static final class Mod extends Arithmetic {
+        Mod(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        double apply(double l, double r) {
+            return Values.mod(l, r);
+        }
+    }
+
+    /** an operator that takes two numbers & gives back true or false */
+    abstract static class Comparison extends BinaryNode {
+        Comparison(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        abstract boolean test(double l, double r);
+
+        @Override
+        Object execute(Frame frame) {
+            return executeBoolean(frame);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            double l;
+            try {
+                l = left.executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                return (boolean) generalize(frame, e.result);
+            }
+            double r;
+            try {
+                r = right.executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                return (boolean) generalize(frame, l, e.result);
+            }
+            return test(l, r);
+        }
+    }
+
+    static final class Greater extends Comparison {
+        Greater(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(double l, double r) {
+            return l > r;
+        }
+    }
+
+    static final class GreaterEqual extends Comparison {
+        GreaterEqual(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(double l, double r) {
+            return l >= r;
+        }
+    }
+
+    static final class Less extends Comparison {
+        Less(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(double l, double r) {
+            return l < r;
+        }
+    }
+
+    static final class LessEqual extends Comparison {
+        LessEqual(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(double l, double r) {
+            return l <= r;
+        }
+    }
+
+    // these two compare the bits so NaN & -0 act the same as Double.equals does
+    static final class Equal extends Comparison {
+        Equal(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(double l, double r) {
+            return Double.doubleToLongBits(l) == Double.doubleToLongBits(r);
+        }
+    }
+
+    static final class NotEqual extends Comparison {
+        NotEqual(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(double l, double r) {
+            return Double.doubleToLongBits(l) != Double.doubleToLongBits(r);
+        }
+    }
+    //endregion
+
+    //region whole number operators
+    /**
+     * an operator that takes two longs & usually gives back another one
+     * when it doesn't (it overflowed, or it's -0, or it didn't divide evenly) it goes generic,
+     * since it'll probably keep happening
+     */
+    abstract static class LongArithmetic extends BinaryNode {
+        LongArithmetic(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        /** if the answer's a long */
+        abstract boolean fits(long l, long r);
+
+        abstract long apply(long l, long r);
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeLong(frame);
+            } catch (UnexpectedResult e) {
+                return e.result;
+            }
+        }
+
+        @Override
+        long executeLong(Frame frame) throws UnexpectedResult {
+            long l;
+            try {
+                l = left.executeLong(frame);
+            } catch (UnexpectedResult e) {
+                return asLong(generalize(frame, e.result));
+            }
+            long r;
+            try {
+                r = right.executeLong(frame);
+            } catch (UnexpectedResult e) {
+                return asLong(generalize(frame, l, e.result));
+            }
+            if (!fits(l, r)) {
+                throw new UnexpectedResult(generalize(frame, l, r));
+            }
+            return apply(l, r);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            try {
+                return executeLong(frame) != 0;
+            } catch (UnexpectedResult e) {
+                return Values.bool(e.result);
+            }
+        }
+
+        private static long asLong(Object val) throws UnexpectedResult {
+            if (val instanceof Long) {
+                return (long) val;
+            }
+            throw new UnexpectedResult(val);
+        }
+    }
+
+    static final class LongAdd extends LongArithmetic {
+        LongAdd(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean fits(long l, long r) {
+            long res = l + r;
+            return ((l ^ res) & (r ^ res)) >= 0;
+        }
+
+        @Override
+        long apply(long l, long r) {
+            return l + r;
+        }
+    }
+
+    static final class LongSub extends LongArithmetic {
+        LongSub(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean fits(long l, long r) {
+            long res = l - r;
+            return ((l ^ r) & (l ^ res)) >= 0;
+        }
+
+        @Override
+        long apply(long l, long r) {
+            return l - r;
+        }
+    }
+
+    static final class LongMul extends LongArithmetic {
+        LongMul(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean fits(long l, long r) {
+            long res = l * r;
+            return Math.multiplyHigh(l, r) == res >> 63 && (res != 0 || (l ^ r) >= 0);
+        }
+
+        @Override
+        long apply(long l, long r) {
+            return l * r;
+        }
+    }
+
+    static final class LongDiv extends LongArithmetic {
+        LongDiv(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean fits(long l, long r) {
+            return r != 0 && l % r == 0 && !(l == Long.MIN_VALUE && r == -1) && !(l == 0 && r < 0);
+        }
+
+        @Override
+        long apply(long l, long r) {
+            return l / r;
+        }
+    }
+
+    static final class LongMod extends LongArithmetic {
+        LongMod(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean fits(long l, long r) {
+            return r != 0 && (l >= 0 || l % r != 0);
+        }
+
+        @Override
+        long apply(long l, long r) {
+            return l % r;
+        }
+    }
+
+    /** an operator that takes two longs & gives back true or false */
+    abstract static class LongComparison extends BinaryNode {
+        LongComparison(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        abstract boolean test(long l, long r);
+
+        @Override
+        Object execute(Frame frame) {
+            return executeBoolean(frame);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            long l;
+            try {
+                l = left.executeLong(frame);
+            } catch (UnexpectedResult e) {
+                return (boolean) generalize(frame, e.result);
+            }
+            long r;
+            try {
+                r = right.executeLong(frame);
+            } catch (UnexpectedResult e) {
+                return (boolean) generalize(frame, l, e.result);
+            }
+            return test(l, r);
+        }
+    }
+
+    static final class LongGreater extends LongComparison {
+        LongGreater(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(long l, long r) {
+            return l > r;
+        }
+    }
+
+    static final class LongGreaterEqual extends LongComparison {
+        LongGreaterEqual(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(long l, long r) {
+            return l >= r;
+        }
+    }
+
+    static final class LongLess extends LongComparison {
+        LongLess(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(long l, long r) {
+            return l < r;
+        }
+    }
+
+    static final class LongLessEqual extends LongComparison {
+        LongLessEqual(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(long l, long r) {
+            return l <= r;
+        }
+    }
+
+    static final class LongEqual extends LongComparison {
+        LongEqual(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(long l, long r) {
+            return l == r;
+        }
+    }
+
+    static final class LongNotEqual extends LongComparison {
+        LongNotEqual(Token op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        boolean test(long l, long r) {
+            return l != r;
+        }
+    }
+    //endregion
+}
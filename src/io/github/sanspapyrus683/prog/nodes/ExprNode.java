@@ -0,0 +1,538 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.Array;
+import io.github.sanspapyrus683.prog.inner.Values;
+
+/**
+ * an expression in the executable tree
+ * execute() works for everything, but the executeDouble, executeLong, & executeBoolean
+ * versions let nodes that know they deal w/ numbers skip the boxing
+ */
+abstract class ExprNode extends Node {
+    abstract Object execute(Frame frame);
+
+    /** gets the value as a raw double, or throws w/ whatever it actually was */
+    double executeDouble(Frame frame) throws UnexpectedResult {
+        Object val = execute(frame);
+        if (val instanceof Double) {
+            return (double) val;
+        }
+        throw new UnexpectedResult(val);
+    }
+
+    /** gets the value as a raw long, or throws w/ whatever it actually was */
+    long executeLong(Frame frame) throws UnexpectedResult {
+        Object val = execute(frame);
+        if (val instanceof Long) {
+            return (long) val;
+        }
+        throw new UnexpectedResult(val);
+    }
+
+    /** gets how truthy the value is */
+    boolean executeBoolean(Frame frame) {
+        return Values.bool(execute(frame));
+    }
+
+    /** runs the thing when nobody cares about what it gives back */
+    void executeVoid(Frame frame) {
+        execute(frame);
+    }
+
+    //region literals
+    static final class DoubleLiteral extends ExprNode {
+        private final double val;
+        private final Double boxed;  /** so execute() doesn't make a new box every time */
+        DoubleLiteral(double val) {
+            this.val = val;
+            this.boxed = val;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return boxed;
+        }
+
+        @Override
+        double executeDouble(Frame frame) {
+            return val;
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            return val != 0;
+        }
+    }
+
+    static final class LongLiteral extends ExprNode {
+        private final long val;
+        private final Long boxed;
+        LongLiteral(long val) {
+            this.val = val;
+            this.boxed = val;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return boxed;
+        }
+
+        @Override
+        long executeLong(Frame frame) {
+            return val;
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            return val != 0;
+        }
+    }
+
+    static final class ObjectLiteral extends ExprNode {
+        private final Object val;
+        ObjectLiteral(Object val) {
+            this.val = val;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return val;
+        }
+    }
+    //endregion
+
+    //region variables
+    static final class ReadVar extends ExprNode {
+        private final Token name;
+        private final int slot;
+        ReadVar(Token name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return frame.get(name, slot);
+        }
+
+        @Override
+        double executeDouble(Frame frame) throws UnexpectedResult {
+            if (frame.tags[slot] == Frame.DOUBLE) {
+                return frame.doubles[slot];
+            }
+            throw new UnexpectedResult(frame.get(name, slot));
+        }
+
+        @Override
+        long executeLong(Frame frame) throws UnexpectedResult {
+            if (frame.tags[slot] == Frame.LONG) {
+                return frame.longs[slot];
+            }
+            throw new UnexpectedResult(frame.get(name, slot));
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            if (frame.tags[slot] == Frame.DOUBLE) {
+                return frame.doubles[slot] != 0;
+            }
+            if (frame.tags[slot] == Frame.LONG) {
+                return frame.longs[slot] != 0;
+            }
+            return Values.bool(frame.get(name, slot));
+        }
+    }
+
+    abstract static class Assign extends ExprNode {
+        final Token name;
+        final int slot;
+        ExprNode value;
+        Assign(Token name, int slot, ExprNode value) {
+            this.name = name;
+            this.slot = slot;
+            this.value = adopt(value);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            value = (ExprNode) newChild;
+        }
+    }
+
+    /** hasn't run yet, so it doesn't know what kind of values it'll be storing */
+    static final class UninitializedAssign extends Assign {
+        UninitializedAssign(Token name, int slot, ExprNode value) {
+            super(name, slot, value);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object val = value.execute(frame);
+            frame.assign(name, slot, val);
+            if (val instanceof Double) {
+                replace(new DoubleAssign(name, slot, value));
+            } else if (val instanceof Long) {
+                replace(new LongAssign(name, slot, value));
+            } else {
+                replace(new GenericAssign(name, slot, value));
+            }
+            return val;
+        }
+    }
+
+    static final class DoubleAssign extends Assign {
+        DoubleAssign(Token name, int slot, ExprNode value) {
+            super(name, slot, value);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                return e.result;
+            }
+        }
+
+        @Override
+        double executeDouble(Frame frame) throws UnexpectedResult {
+            double val;
+            try {
+                val = value.executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                // not a number this time, so stop assuming it is
+                replace(new GenericAssign(name, slot, value));
+                frame.assign(name, slot, e.result);
+                throw e;
+            }
+            frame.assignDouble(name, slot, val);
+            return val;
+        }
+
+        @Override
+        void executeVoid(Frame frame) {
+            try {
+                executeDouble(frame);
+            } catch (UnexpectedResult ignored) { }
+        }
+    }
+
+    static final class LongAssign extends Assign {
+        LongAssign(Token name, int slot, ExprNode value) {
+            super(name, slot, value);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeLong(frame);
+            } catch (UnexpectedResult e) {
+                return e.result;
+            }
+        }
+
+        @Override
+        long executeLong(Frame frame) throws UnexpectedResult {
+            long val;
+            try {
+                val = value.executeLong(frame);
+            } catch (UnexpectedResult e) {
+                replace(new GenericAssign(name, slot, value));
+                frame.assign(name, slot, e.result);
+                throw e;
+            }
+            frame.assignLong(name, slot, val);
+            return val;
+        }
+
+        @Override
+        void executeVoid(Frame frame) {
+            try {
+                executeLong(frame);
+            } catch (UnexpectedResult ignored) { }
+        }
+    }
+
+    static final class GenericAssign extends Assign {
+        GenericAssign(Token name, int slot, ExprNode value) {
+            super(name, slot, value);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object val = value.execute(frame);
+            frame.assign(name, slot, val);
+            return val;
+        }
+    }
+    //endregion
+
+    //region and/or
+    static final class And extends ExprNode {
+        private ExprNode left;
+        private ExprNode right;
+        And(ExprNode left, ExprNode right) {
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object l = left.execute(frame);
+            return !Values.bool(l) ? l : right.execute(frame);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            return left.executeBoolean(frame) && right.executeBoolean(frame);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            if (left == oldChild) {
+                left = (ExprNode) newChild;
+            } else {
+                right = (ExprNode) newChild;
+            }
+        }
+    }
+
+    static final class Or extends ExprNode {
+        private ExprNode left;
+        private ExprNode right;
+        Or(ExprNode left, ExprNode right) {
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object l = left.execute(frame);
+            return Values.bool(l) ? l : right.execute(frame);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            return left.executeBoolean(frame) || right.executeBoolean(frame);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            if (left == oldChild) {
+                left = (ExprNode) newChild;
+            } else {
+                right = (ExprNode) newChild;
+            }
+        }
+    }
+    //endregion
+
+    //region unary stuff
+    static final class Negate extends ExprNode {
+        private final Token op;
+        private ExprNode right;
+        Negate(Token op, ExprNode right) {
+            this.op = op;
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return negate(right.execute(frame));
+        }
+
+        @Override
+        double executeDouble(Frame frame) throws UnexpectedResult {
+            try {
+                return -right.executeDouble(frame);
+            } catch (UnexpectedResult e) {
+                throw new UnexpectedResult(negate(e.result));
+            }
+        }
+
+        @Override
+        long executeLong(Frame frame) throws UnexpectedResult {
+            long val;
+            try {
+                val = right.executeLong(frame);
+            } catch (UnexpectedResult e) {
+                throw new UnexpectedResult(negate(e.result));
+            }
+            // -0 is a double (& so is the negative of the smallest long)
+            if (val == 0 || val == Long.MIN_VALUE) {
+                throw new UnexpectedResult(Values.negate(val));
+            }
+            return -val;
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            return Values.bool(execute(frame));
+        }
+
+        /** anything other than a number is an error, so there's nothing to fall back to */
+        private Object negate(Object val) {
+            if (!Values.isNumber(val)) {
+                throw new RuntimeError(op, "operand must be a number");
+            }
+            return Values.negate(val);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            right = (ExprNode) newChild;
+        }
+    }
+
+    static final class Not extends ExprNode {
+        private ExprNode right;
+        Not(ExprNode right) {
+            this.right = adopt(right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return executeBoolean(frame);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            return !right.executeBoolean(frame);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            right = (ExprNode) newChild;
+        }
+    }
+    //endregion
+
+    //region arrays
+    static final class ArrayLiteral extends ExprNode {
+        private final ExprNode[] items;
+        ArrayLiteral(ExprNode[] items) {
+            this.items = items;
+            for (ExprNode item : items) {
+                adopt(item);
+            }
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object[] made = new Object[items.length];
+            for (int i = 0; i < made.length; i++) {
+                made[i] = items[i].execute(frame);
+            }
+            return Array.of(made);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == oldChild) {
+                    items[i] = (ExprNode) newChild;
+                    return;
+                }
+            }
+        }
+    }
+
+    static final class Index extends ExprNode {
+        private final Token bracket;
+        private ExprNode array;
+        private ExprNode index;
+        Index(Token bracket, ExprNode array, ExprNode index) {
+            this.bracket = bracket;
+            this.array = adopt(array);
+            this.index = adopt(index);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object arr = array.execute(frame);
+            Object i = index.execute(frame);
+            try {
+                return Array.index(arr, i);
+            } catch (Array.BadAccess e) {
+                throw e.at(bracket);
+            }
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            if (array == oldChild) {
+                array = (ExprNode) newChild;
+            } else {
+                index = (ExprNode) newChild;
+            }
+        }
+    }
+
+    static final class SetIndex extends ExprNode {
+        private final Token bracket;
+        private ExprNode array;
+        private ExprNode index;
+        private ExprNode value;
+        SetIndex(Token bracket, ExprNode array, ExprNode index, ExprNode value) {
+            this.bracket = bracket;
+            this.array = adopt(array);
+            this.index = adopt(index);
+            this.value = adopt(value);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object arr = array.execute(frame);
+            Object i = index.execute(frame);
+            Object val = value.execute(frame);
+            try {
+                return Array.setIndex(arr, i, val);
+            } catch (Array.BadAccess e) {
+                throw e.at(bracket);
+            }
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            if (array == oldChild) {
+                array = (ExprNode) newChild;
+            } else if (index == oldChild) {
+                index = (ExprNode) newChild;
+            } else {
+                value = (ExprNode) newChild;
+            }
+        }
+    }
+
+    static final class Length extends ExprNode {
+        private final Token name;
+        private ExprNode array;
+        Length(Token name, ExprNode array) {
+            this.name = name;
+            this.array = adopt(array);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return executeLong(frame);
+        }
+
+        @Override
+        long executeLong(Frame frame) {
+            Object arr = array.execute(frame);
+            try {
+                return Array.lengthOf(arr);
+            } catch (Array.BadAccess e) {
+                throw e.at(name);
+            }
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            array = (ExprNode) newChild;
+        }
+    }
+    //endregion
+}
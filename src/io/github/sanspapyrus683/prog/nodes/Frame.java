@@ -0,0 +1,93 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.BudgetMeter;
+import io.github.sanspapyrus683.prog.inner.Values;
+import io.github.sanspapyrus683.prog.output.Output;
+
+/**
+ * holds the variables (& everything else a run needs) for the node tree
+ * numbers get stored as raw longs & doubles on the side so they never have to be boxed,
+ * & the tag for each slot says which of the three arrays the value's actually in
+ */
+final class Frame {
+    static final byte UNDEFINED = 0;
+    static final byte OBJECT = 1;
+    static final byte DOUBLE = 2;
+    static final byte LONG = 3;
+
+    final byte[] tags;
+    final Object[] objects;
+    final double[] doubles;
+    final long[] longs;
+    final Output out;  /** where print statements go */
+    final BudgetMeter meter;  /** null unless the run has a budget */
+
+    Frame(int size, Output out, BudgetMeter meter) {
+        this.out = out;
+        this.meter = meter;
+        tags = new byte[size];
+        objects = new Object[size];
+        doubles = new double[size];
+        longs = new long[size];
+    }
+
+    Object get(Token var, int slot) {
+        switch (tags[slot]) {
+            case DOUBLE: return doubles[slot];
+            case LONG: return longs[slot];
+            case OBJECT: return objects[slot];
+            default: throw new RuntimeError(var, "variable '" + var.lexeme + "' not found");
+        }
+    }
+
+    void define(int slot, Object val) {
+        if (val instanceof Double) {
+            defineDouble(slot, (double) val);
+        } else if (val instanceof Long) {
+            defineLong(slot, (long) val);
+        } else {
+            tags[slot] = OBJECT;
+            objects[slot] = val;
+        }
+    }
+
+    void defineDouble(int slot, double val) {
+        tags[slot] = DOUBLE;
+        objects[slot] = null;  // don't hold onto whatever was there
+        doubles[slot] = val;
+    }
+
+    void defineLong(int slot, long val) {
+        tags[slot] = LONG;
+        objects[slot] = null;
+        longs[slot] = val;
+    }
+
+    void assign(Token var, int slot, Object val) {
+        checkDefined(var, slot);
+        define(slot, val);
+    }
+
+    void assignDouble(Token var, int slot, double val) {
+        checkDefined(var, slot);
+        defineDouble(slot, val);
+    }
+
+    void assignLong(Token var, int slot, long val) {
+        checkDefined(var, slot);
+        defineLong(slot, val);
+    }
+
+    /** adds 2 strings (counting them against the budget if there is one) */
+    CharSequence concat(Token op, Object left, Object right) {
+        return meter == null ? Values.concat(left, right) : meter.concat(left, right, op.line);
+    }
+
+    private void checkDefined(Token var, int slot) {
+        if (tags[slot] == UNDEFINED) {
+            throw new RuntimeError(var, "variable '" + var.lexeme + "' not initialized you moron");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+/**
+ * the base of the executable tree
+ * nodes can swap themselves out for a different node (usually a more or
+ * less specialized version of themselves) while the program is running,
+ * which is why they need to know who their parent is
+ */
+abstract class Node {
+    Node parent;
+
+    /** sets this node as the parent of the child & gives the child back */
+    protected final <T extends Node> T adopt(T child) {
+        if (child != null) {
+            child.parent = this;
+        }
+        return child;
+    }
+
+    /** puts the new node where this one was in the tree */
+    protected final <T extends Node> T replace(T newNode) {
+        parent.replaceChild(this, newNode);
+        newNode.parent = parent;
+        return newNode;
+    }
+
+    /** swaps out one of this node's children, only nodes w/ children need this */
+    protected void replaceChild(Node oldChild, Node newChild) {
+        throw new IllegalStateException(getClass().getSimpleName() + " doesn't have any children");
+    }
+}
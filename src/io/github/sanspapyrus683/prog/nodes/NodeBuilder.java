@@ -0,0 +1,157 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.inner.Expr;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+
+import java.util.List;
+
+/**
+ * turns the parser's tree into the executable tree
+ * (the statements have to be resolved first, the slots get copied over)
+ * a budgeted tree has every statement wrapped in a Ticked & BudgetedWhiles for the loops,
+ * so a tree w/o a budget doesn't have anything extra in it
+ */
+class NodeBuilder implements Expr.Visitor<ExprNode>, Stmt.Visitor<StmtNode> {
+    private final boolean budgeted;
+
+    NodeBuilder(boolean budgeted) {
+        this.budgeted = budgeted;
+    }
+
+    StmtNode.Block build(List<Stmt> statements) {
+        return new StmtNode.Block(buildAll(statements));
+    }
+
+    private StmtNode[] buildAll(List<Stmt> statements) {
+        StmtNode[] ret = new StmtNode[statements.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = statement(statements.get(i));
+        }
+        return ret;
+    }
+
+    private StmtNode statement(Stmt stmt) {
+        StmtNode ret = stmt.accept(this);
+        return budgeted ? new StmtNode.Ticked(stmt.line, ret) : ret;
+    }
+
+    //region statements
+    @Override
+    public StmtNode visitBlock(Stmt.Block stmt) {
+        return new StmtNode.Block(buildAll(stmt.content));
+    }
+
+    @Override
+    public StmtNode visitExpr(Stmt.Expression stmt) {
+        return new StmtNode.Expression(stmt.expr.accept(this));
+    }
+
+    @Override
+    public StmtNode visitIf(Stmt.If stmt) {
+        return new StmtNode.If(
+                stmt.condition.accept(this), statement(stmt.thenDo),
+                stmt.elseDo == null ? null : statement(stmt.elseDo)
+        );
+    }
+
+    @Override
+    public StmtNode visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
+    @Override
+    public StmtNode visitPrint(Stmt.Print stmt) {
+        return new StmtNode.Print(stmt.expr.accept(this));
+    }
+
+    @Override
+    public StmtNode visitVar(Stmt.Var stmt) {
+        return new StmtNode.UninitializedVar(stmt.slot, stmt.init.accept(this));
+    }
+
+    @Override
+    public StmtNode visitWhile(Stmt.While stmt) {
+        if (budgeted) {
+            return new StmtNode.BudgetedWhile(stmt.line, stmt.condition.accept(this), statement(stmt.toDo));
+        }
+        return new StmtNode.While(stmt.condition.accept(this), statement(stmt.toDo));
+    }
+    //endregion
+
+    //region expressions
+    @Override
+    public ExprNode visitAssignmentExpr(Expr.Assignment expr) {
+        return new ExprNode.UninitializedAssign(expr.assignTo, expr.slot, expr.val.accept(this));
+    }
+
+    @Override
+    public ExprNode visitBinaryExpr(Expr.Binary expr) {
+        return new BinaryNode.Uninitialized(expr.op, expr.left.accept(this), expr.right.accept(this));
+    }
+
+    @Override
+    public ExprNode visitLiteralExpr(Expr.Literal expr) {
+        if (expr.val instanceof Double) {
+            return new ExprNode.DoubleLiteral((double) expr.val);
+        }
+        if (expr.val instanceof Long) {
+            return new ExprNode.LongLiteral((long) expr.val);
+        }
+        return new ExprNode.ObjectLiteral(expr.val);
+    }
+
+    @Override
+    public ExprNode visitGroupingExpr(Expr.Grouping expr) {
+        return expr.group.accept(this);  // the tree already has the grouping baked in
+    }
+
+    @Override
+    public ExprNode visitLogicalExpr(Expr.Logical expr) {
+        ExprNode left = expr.left.accept(this);
+        ExprNode right = expr.right.accept(this);
+        return expr.op.type == TokenType.OR ? new ExprNode.Or(left, right) : new ExprNode.And(left, right);
+    }
+
+    @Override
+    public ExprNode visitUnaryExpr(Expr.Unary expr) {
+        ExprNode right = expr.right.accept(this);
+        switch (expr.op.type) {
+            case MINUS: return new ExprNode.Negate(expr.op, right);
+            case BANG: return new ExprNode.Not(right);
+            default: return new ExprNode.ObjectLiteral(null);  // what
+        }
+    }
+
+    @Override
+    public ExprNode visitVarExpr(Expr.Var expr) {
+        return new ExprNode.ReadVar(expr.name, expr.slot);
+    }
+
+    @Override
+    public ExprNode visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        ExprNode[] items = new ExprNode[expr.items.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = expr.items.get(i).accept(this);
+        }
+        return new ExprNode.ArrayLiteral(items);
+    }
+
+    @Override
+    public ExprNode visitIndexExpr(Expr.Index expr) {
+        return new ExprNode.Index(expr.bracket, expr.array.accept(this), expr.index.accept(this));
+    }
+
+    @Override
+    public ExprNode visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        return new ExprNode.SetIndex(
+                expr.bracket, expr.array.accept(this), expr.index.accept(this), expr.val.accept(this)
+        );
+    }
+
+    @Override
+    public ExprNode visitLengthExpr(Expr.Length expr) {
+        return new ExprNode.Length(expr.name, expr.array.accept(this));
+    }
+    //endregion
+}
@@ -0,0 +1,48 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.BudgetMeter;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.output.Output;
+import io.github.sanspapyrus683.prog.output.StreamOutput;
+
+import java.util.List;
+
+/**
+ * runs code on the self-specializing node tree instead of the plain AST
+ * the nodes figure out what types they're dealing w/ as they go, so
+ * number-heavy code ends up running on raw doubles w/o boxing anything
+ */
+public class NodeInterpreter {
+    private final Output out;
+    private final ErrorReporter errors;
+
+    public NodeInterpreter() {
+        this(new StreamOutput(System.out));
+    }
+
+    public NodeInterpreter(Output out) {
+        this(out, ErrorReporter.STDERR);
+    }
+
+    public NodeInterpreter(Output out, ErrorReporter errors) {
+        this.out = out;
+        this.errors = errors;
+    }
+
+    /** runs resolved statements that need the given amount of variable slots */
+    public void interpret(List<Stmt> statements, int slots) {
+        interpret(statements, slots, null);
+    }
+
+    /** the same, but w/ every statement & loop going around ticking the meter (if there is one) */
+    public void interpret(List<Stmt> statements, int slots, BudgetMeter meter) {
+        StmtNode.Block root = new NodeBuilder(meter != null).build(statements);
+        try {
+            root.execute(new Frame(slots, out, meter));
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+/**
+ * a statement in the executable tree
+ */
+abstract class StmtNode extends Node {
+    abstract void execute(Frame frame);
+
+    static final class Block extends StmtNode {
+        private final StmtNode[] content;
+        Block(StmtNode[] content) {
+            this.content = content;
+            for (StmtNode s : content) {
+                adopt(s);
+            }
+        }
+
+        @Override
+        void execute(Frame frame) {
+            for (StmtNode s : content) {
+                s.execute(frame);
+            }
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] == oldChild) {
+                    content[i] = (StmtNode) newChild;
+                    return;
+                }
+            }
+        }
+    }
+
+    static final class Expression extends StmtNode {
+        private ExprNode expr;
+        Expression(ExprNode expr) {
+            this.expr = adopt(expr);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            expr.executeVoid(frame);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            expr = (ExprNode) newChild;
+        }
+    }
+
+    static final class If extends StmtNode {
+        private ExprNode condition;
+        private StmtNode thenDo;
+        private StmtNode elseDo;
+        If(ExprNode condition, StmtNode thenDo, StmtNode elseDo) {
+            this.condition = adopt(condition);
+            this.thenDo = adopt(thenDo);
+            this.elseDo = adopt(elseDo);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            if (condition.executeBoolean(frame)) {
+                thenDo.execute(frame);
+            } else if (elseDo != null) {
+                elseDo.execute(frame);
+            }
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            if (condition == oldChild) {
+                condition = (ExprNode) newChild;
+            } else if (thenDo == oldChild) {
+                thenDo = (StmtNode) newChild;
+            } else {
+                elseDo = (StmtNode) newChild;
+            }
+        }
+    }
+
+    static final class Print extends StmtNode {
+        private ExprNode expr;
+        Print(ExprNode expr) {
+            this.expr = adopt(expr);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.out.println(expr.execute(frame));
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            expr = (ExprNode) newChild;
+        }
+    }
+
+    abstract static class Var extends StmtNode {
+        final int slot;
+        ExprNode init;
+        Var(int slot, ExprNode init) {
+            this.slot = slot;
+            this.init = adopt(init);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            init = (ExprNode) newChild;
+        }
+    }
+
+    static final class UninitializedVar extends Var {
+        UninitializedVar(int slot, ExprNode init) {
+            super(slot, init);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            Object val = init.execute(frame);
+            frame.define(slot, val);
+            if (val instanceof Double) {
+                replace(new DoubleVar(slot, init));
+            } else if (val instanceof Long) {
+                replace(new LongVar(slot, init));
+            } else {
+                replace(new GenericVar(slot, init));
+            }
+        }
+    }
+
+    static final class DoubleVar extends Var {
+        DoubleVar(int slot, ExprNode init) {
+            super(slot, init);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            // numbers go straight into the raw double slots w/o being boxed
+            try {
+                frame.defineDouble(slot, init.executeDouble(frame));
+            } catch (UnexpectedResult e) {
+                replace(new GenericVar(slot, init));
+                frame.define(slot, e.result);
+            }
+        }
+    }
+
+    static final class LongVar extends Var {
+        LongVar(int slot, ExprNode init) {
+            super(slot, init);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            try {
+                frame.defineLong(slot, init.executeLong(frame));
+            } catch (UnexpectedResult e) {
+                replace(new GenericVar(slot, init));
+                frame.define(slot, e.result);
+            }
+        }
+    }
+
+    static final class GenericVar extends Var {
+        GenericVar(int slot, ExprNode init) {
+            super(slot, init);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.define(slot, init.execute(frame));
+        }
+    }
+
+    /** a statement that ticks the budget before it runs (only a budgeted tree has these) */
+    static final class Ticked extends StmtNode {
+        private final int line;
+        private StmtNode stmt;
+        Ticked(int line, StmtNode stmt) {
+            this.line = line;
+            this.stmt = adopt(stmt);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.meter.tick(line);
+            stmt.execute(frame);
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            stmt = (StmtNode) newChild;
+        }
+    }
+
+    static final class While extends StmtNode {
+        private ExprNode condition;
+        private StmtNode toDo;
+        While(ExprNode condition, StmtNode toDo) {
+            this.condition = adopt(condition);
+            this.toDo = adopt(toDo);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            while (condition.executeBoolean(frame)) {
+                toDo.execute(frame);
+            }
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            if (condition == oldChild) {
+                condition = (ExprNode) newChild;
+            } else {
+                toDo = (StmtNode) newChild;
+            }
+        }
+    }
+
+    /** a While that ticks the budget every time it goes around */
+    static final class BudgetedWhile extends StmtNode {
+        private final int line;
+        private ExprNode condition;
+        private StmtNode toDo;
+        BudgetedWhile(int line, ExprNode condition, StmtNode toDo) {
+            this.line = line;
+            this.condition = adopt(condition);
+            this.toDo = adopt(toDo);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            while (condition.executeBoolean(frame)) {
+                toDo.execute(frame);
+                frame.meter.tick(line);
+            }
+        }
+
+        @Override
+        protected void replaceChild(Node oldChild, Node newChild) {
+            if (condition == oldChild) {
+                condition = (ExprNode) newChild;
+            } else {
+                toDo = (StmtNode) newChild;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.sanspapyrus683.prog.nodes;
+
+/**
+ * thrown when a node got asked for a specific type of value (like a double or a long)
+ * but what it actually came up with was something else
+ * the value it did get is in here so the caller can keep going w/ it
+ */
+final class UnexpectedResult extends Exception {
+    final Object result;
+
+    UnexpectedResult(Object result) {
+        // no stack trace, these get thrown whenever a guess about types is wrong
+        super(null, null, false, false);
+        this.result = result;
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.sanspapyrus683.prog.output;
+
+import io.github.sanspapyrus683.prog.inner.Values;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * collects the output in a big direct buffer & only writes it to the channel
+ * when the buffer fills up or someone calls flush
+ * so printing a line doesn't mean a whole system call anymore
+ *
+ * the bytes are the exact same ones System.out.println would've written,
+ * whole numbers just skip Double.toString to get there
+ */
+public class ChannelOutput implements Output {
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Double.toString only writes out all the digits below this */
+    private static final double PLAIN_LIMIT = 1e7;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Charset charset;
+    private final boolean asciiCompatible;  /** if ascii chars can just be written as is */
+    private final byte[] lineEnd;
+    private final byte[] digits = new byte[20];  /** scratch space for writing numbers */
+    private boolean broken = false;  /** the channel errored, so stop trying (like PrintStream does) */
+
+    public ChannelOutput(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.charset = charset;
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+        this.lineEnd = System.lineSeparator().getBytes(charset);
+    }
+
+    /** an output for the standard output of the process */
+    public static ChannelOutput stdout() {
+        FileOutputStream out = new FileOutputStream(FileDescriptor.out);
+        return new ChannelOutput(out.getChannel(), stdoutCharset());
+    }
+
+    /** the charset System.out uses */
+    private static Charset stdoutCharset() {
+        String name = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding"));
+        try {
+            return name == null ? Charset.defaultCharset() : Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    @Override
+    public void println(Object val) {
+        if (val instanceof Double) {
+            println((double) val);
+            return;
+        }
+        if (val instanceof Long) {
+            long whole = (long) val;
+            if (-PLAIN_LIMIT < whole && whole < PLAIN_LIMIT) {
+                writeWhole(whole);
+            } else {
+                writeString(Values.str(whole));
+            }
+            writeBytes(lineEnd);
+            return;
+        }
+        writeString(String.valueOf(val));
+        writeBytes(lineEnd);
+    }
+
+    @Override
+    public void println(double val) {
+        // -0.0 still has to print the minus sign, so that one goes the slow way
+        if (val == (long) val && Math.abs(val) < PLAIN_LIMIT
+                && (val != 0 || Double.doubleToRawLongBits(val) == 0)) {
+            writeWhole((long) val);
+        } else {
+            writeString(Double.toString(val));
+        }
+        writeBytes(lineEnd);
+    }
+
+    @Override
+    public void flush() {
+        drain();
+    }
+
+    /** writes a whole number the same way Double.toString would (w/ the .0 at the end) */
+    private void writeWhole(long val) {
+        int at = digits.length;
+        long left = Math.abs(val);
+        do {
+            digits[--at] = (byte) ('0' + left % 10);
+            left /= 10;
+        } while (left != 0);
+        if (val < 0) {
+            digits[--at] = '-';
+        }
+        room(digits.length - at + 2);
+        buffer.put(digits, at, digits.length - at);
+        buffer.put((byte) '.');
+        buffer.put((byte) '0');
+    }
+
+    private void writeString(String s) {
+        if (!asciiCompatible) {
+            writeBytes(s.getBytes(charset));
+            return;
+        }
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            if (s.charAt(i) >= 0x80) {
+                writeBytes(s.getBytes(charset));
+                return;
+            }
+        }
+        // all ascii, so the chars can go straight in w/o making a byte array
+        int at = 0;
+        while (at < len) {
+            room(1);
+            int amt = Math.min(buffer.remaining(), len - at);
+            for (int i = 0; i < amt; i++) {
+                buffer.put((byte) s.charAt(at + i));
+            }
+            at += amt;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        int at = 0;
+        while (at < bytes.length) {
+            room(1);
+            int amt = Math.min(buffer.remaining(), bytes.length - at);
+            buffer.put(bytes, at, amt);
+            at += amt;
+        }
+    }
+
+    /** makes sure there's space for at least this many bytes */
+    private void room(int amt) {
+        if (buffer.remaining() < amt) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (!broken && buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            broken = true;
+        }
+        buffer.clear();
+    }
+}
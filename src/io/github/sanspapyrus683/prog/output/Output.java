@@ -0,0 +1,19 @@
+package io.github.sanspapyrus683.prog.output;
+
+/**
+ * where print statements send their stuff
+ * everything gets printed the same way System.out.println would print it,
+ * except whole numbers (Longs) print like the double would've (see Values.str)
+ */
+public interface Output {
+    /** prints a value from the language (a string, number, boolean, or null) & a newline */
+    void println(Object val);
+
+    /** the same thing for a number that isn't boxed */
+    default void println(double val) {
+        println((Object) val);
+    }
+
+    /** makes sure everything that's been printed so far actually went out */
+    void flush();
+}
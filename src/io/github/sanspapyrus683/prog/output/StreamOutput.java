@@ -0,0 +1,31 @@
+package io.github.sanspapyrus683.prog.output;
+
+import io.github.sanspapyrus683.prog.inner.Values;
+
+import java.io.PrintStream;
+
+/**
+ * just prints to a regular PrintStream, one println at a time
+ */
+public class StreamOutput implements Output {
+    private final PrintStream stream;
+
+    public StreamOutput(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void println(Object val) {
+        stream.println(val instanceof Long ? Values.str((long) val) : val);
+    }
+
+    @Override
+    public void println(double val) {
+        stream.println(val);
+    }
+
+    @Override
+    public void flush() {
+        stream.flush();
+    }
+}
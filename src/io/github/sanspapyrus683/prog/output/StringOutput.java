@@ -0,0 +1,29 @@
+package io.github.sanspapyrus683.prog.output;
+
+import io.github.sanspapyrus683.prog.inner.Values;
+
+/**
+ * keeps everything that gets printed in memory, for when you want the output as a string
+ * not thread safe, give each run its own
+ */
+public class StringOutput implements Output {
+    private final StringBuilder printed = new StringBuilder();
+
+    @Override
+    public void println(Object val) {
+        printed.append(val instanceof Long ? Values.str((long) val) : val).append(System.lineSeparator());
+    }
+
+    @Override
+    public void println(double val) {
+        printed.append(val).append(System.lineSeparator());
+    }
+
+    @Override
+    public void flush() { }
+
+    @Override
+    public String toString() {
+        return printed.toString();
+    }
+}
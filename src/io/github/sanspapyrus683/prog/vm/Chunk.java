@@ -0,0 +1,52 @@
+package io.github.sanspapyrus683.prog.vm;
+
+import java.util.Arrays;
+
+/**
+ * a compiled program, ready to be run by the vm
+ * it's the code itself, the constants it uses, & enough info to
+ * figure out which line an instruction came from when something goes wrong
+ */
+public class Chunk {
+    final int[] code;
+    final Object[] constants;
+    final String[] varNames;  /** the name of each variable slot */
+    final int maxStack;  /** the most values that'll ever be on the stack at once */
+    final int counters;  /** how many counted loops there are, each gets its own register */
+    /**
+     * pairs of (code offset, line) sorted by offset
+     * each line applies to everything up until the next pair's offset
+     */
+    private final int[] lineTable;
+
+    Chunk(int[] code, Object[] constants, String[] varNames, int maxStack, int counters, int[] lineTable) {
+        this.code = code;
+        this.constants = constants;
+        this.varNames = varNames;
+        this.maxStack = maxStack;
+        this.counters = counters;
+        this.lineTable = lineTable;
+    }
+
+    /** gets the source line of the instruction at the given offset */
+    int lineAt(int offset) {
+        int lo = 0;
+        int hi = lineTable.length / 2 - 1;
+        int line = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lineTable[mid * 2] <= offset) {
+                line = lineTable[mid * 2 + 1];
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public String toString() {
+        return "Chunk(" + code.length + " words, constants " + Arrays.toString(constants) + ")";
+    }
+}
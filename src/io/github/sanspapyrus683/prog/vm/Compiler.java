@@ -0,0 +1,495 @@
+package io.github.sanspapyrus683.prog.vm;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.inner.CountedLoop;
+import io.github.sanspapyrus683.prog.inner.Expr;
+import io.github.sanspapyrus683.prog.inner.Fused;
+import io.github.sanspapyrus683.prog.inner.Stmt;
+import io.github.sanspapyrus683.prog.inner.Values;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * turns the statements the parser gives back into a chunk for the vm
+ * every variable's just global (same as the interpreter), so each
+ * distinct name gets its own slot & that's that
+ */
+public class Compiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private int[] code = new int[64];
+    private int size = 0;
+    private final Map<Object, Integer> constants = new HashMap<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int[] lineTable = new int[16];
+    private int lineCount = 0;
+    private int line = 0;  /** the line of whatever we're compiling right now */
+    private int stack = 0;  /** how big the stack is at this point of the code */
+    private int maxStack = 0;
+    private int counters = 0;  /** how many counted loops there are so far */
+    private final boolean budgeted;  /** if it should put TICKs in for a BudgetMeter */
+
+    public Compiler() {
+        this(false);
+    }
+
+    /** a budgeted compiler's chunks tick before every statement & every back jump, so they need a VM w/ a meter */
+    public Compiler(boolean budgeted) {
+        this.budgeted = budgeted;
+    }
+
+    public Chunk compile(List<Stmt> statements) {
+        for (Stmt s : statements) {
+            statement(s);
+        }
+        emit(OpCode.HALT);
+
+        Object[] pool = new Object[constants.size()];
+        for (Map.Entry<Object, Integer> c : constants.entrySet()) {
+            pool[c.getValue()] = c.getKey();
+        }
+        String[] names = new String[slots.size()];
+        for (Map.Entry<String, Integer> s : slots.entrySet()) {
+            names[s.getValue()] = s.getKey();
+        }
+        return new Chunk(
+                Arrays.copyOf(code, size), pool, names,
+                maxStack, counters, Arrays.copyOf(lineTable, lineCount * 2)
+        );
+    }
+
+    //region statements
+    private void statement(Stmt s) {
+        if (budgeted) {
+            line = s.line;
+            emit(OpCode.TICK);
+        }
+        s.accept(this);
+    }
+
+    @Override
+    public Void visitBlock(Stmt.Block stmt) {
+        for (Stmt s : stmt.content) {
+            statement(s);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Stmt.Expression stmt) {
+        // an assignment that's a statement doesn't have to leave its value on the stack just to get popped
+        if (stmt.expr instanceof Expr.Assignment && ((Expr.Assignment) stmt.expr).fused == null) {
+            assign((Expr.Assignment) stmt.expr);
+            return null;
+        }
+        stmt.expr.accept(this);
+        emit(OpCode.POP);
+        pop(1);
+        return null;
+    }
+
+    /** an assignment w/o a value after, as a STORE (or an UPDATE if it's like x = x + y) */
+    private void assign(Expr.Assignment expr) {
+        int op = expr.val instanceof Expr.Binary ? updateOp((Expr.Binary) expr.val, expr.slot) : -1;
+        if (op >= 0) {
+            Expr.Binary math = (Expr.Binary) expr.val;
+            math.left.accept(this);
+            math.right.accept(this);
+            at(math.op);
+            emit(OpCode.UPDATE, slot(expr.assignTo));
+            emit(op);
+            pop(2);
+            return;
+        }
+        expr.val.accept(this);
+        at(expr.assignTo);
+        emit(OpCode.STORE, slot(expr.assignTo));
+        pop(1);
+    }
+
+    /** the math opcode if it's x op y where x is the variable that's being assigned to, or -1 */
+    private static int updateOp(Expr.Binary math, int slot) {
+        if (math.fused != null || !(math.left instanceof Expr.Var) || ((Expr.Var) math.left).slot != slot) {
+            return -1;
+        }
+        switch (math.op.type) {
+            case PLUS: return OpCode.ADD;
+            case MINUS: return OpCode.SUB;
+            case STAR: return OpCode.MUL;
+            case SLASH: return OpCode.DIV;
+            case MOD: return OpCode.MOD;
+            default: return -1;
+        }
+    }
+
+    @Override
+    public Void visitIf(Stmt.If stmt) {
+        List<Integer> toElse = jumpIfFalse(stmt.condition);
+        statement(stmt.thenDo);
+        if (stmt.elseDo == null) {
+            patchJumps(toElse);
+        } else {
+            int toEnd = emitJump(OpCode.JUMP);
+            patchJumps(toElse);
+            statement(stmt.elseDo);
+            patchJump(toEnd);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitImport(Stmt.Import stmt) {
+        throw new IllegalStateException("imports should've been swapped out for their modules already");
+    }
+
+    @Override
+    public Void visitPrint(Stmt.Print stmt) {
+        stmt.expr.accept(this);
+        emit(OpCode.PRINT);
+        pop(1);
+        return null;
+    }
+
+    @Override
+    public Void visitVar(Stmt.Var stmt) {
+        stmt.init.accept(this);
+        at(stmt.name);
+        emit(OpCode.DEFINE, slot(stmt.name));
+        pop(1);
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(Stmt.While stmt) {
+        // a counted loop doesn't go through the normal back jump, so a budgeted one is just a normal loop
+        if (stmt.counted != null && !budgeted) {
+            countedLoop(stmt);
+            return null;
+        }
+        int start = size;
+        // a condition that's just a truthy literal doesn't need to be checked
+        boolean forever = stmt.condition instanceof Expr.Literal
+                && Values.bool(((Expr.Literal) stmt.condition).val);
+        List<Integer> toEnd = forever ? List.of() : jumpIfFalse(stmt.condition);
+        statement(stmt.toDo);
+        if (budgeted) {
+            line = stmt.line;
+            emit(OpCode.TICK);
+        }
+        emit(OpCode.JUMP, start - (size + 2));
+        patchJumps(toEnd);
+        return null;
+    }
+
+    /**
+     * code for a condition that jumps somewhere if it's false (& keeps going if it's true) w/o pushing anything,
+     * so and & or can jump straight to where they're going instead of leaving their value for a JUMP_IF_FALSE
+     * gives back the jumps that have to go to wherever false goes
+     */
+    private List<Integer> jumpIfFalse(Expr cond) {
+        while (cond instanceof Expr.Grouping) {
+            cond = ((Expr.Grouping) cond).group;
+        }
+        List<Integer> toFalse = new ArrayList<>();
+        if (cond instanceof Expr.Logical && ((Expr.Logical) cond).op.type == TokenType.AND) {
+            toFalse.addAll(jumpIfFalse(((Expr.Logical) cond).left));
+            toFalse.addAll(jumpIfFalse(((Expr.Logical) cond).right));
+        } else if (cond instanceof Expr.Logical) {
+            // if the left's true it skips the right, otherwise it's all up to the right
+            List<Integer> toRight = jumpIfFalse(((Expr.Logical) cond).left);
+            int toTrue = emitJump(OpCode.JUMP);
+            patchJumps(toRight);
+            toFalse.addAll(jumpIfFalse(((Expr.Logical) cond).right));
+            patchJump(toTrue);
+        } else if (cond instanceof Expr.Binary && ((Expr.Binary) cond).fused != null) {
+            Expr.Binary binary = (Expr.Binary) cond;
+            at(binary.op);
+            emit(OpCode.FUSED_IF, slot(binary.fused.var.name));
+            emit(constant(binary.fused));
+            int skip = emitOffset();
+            toFalse.add(emitOffset());
+            int end = size;
+            binary(binary, false);
+            toFalse.add(emitJump(OpCode.JUMP_IF_FALSE));
+            pop(1);
+            code[skip] = size - end;
+        } else {
+            cond.accept(this);
+            toFalse.add(emitJump(OpCode.JUMP_IF_FALSE));
+            pop(1);
+        }
+        return toFalse;
+    }
+
+    /** see OpCode.COUNT_START for what this looks like */
+    private void countedLoop(Stmt.While stmt) {
+        CountedLoop loop = stmt.counted;
+        int loopAt = constant(loop);
+        int register = counters++;
+        loop.counter.accept(this);
+        loop.bound.accept(this);
+        emit(OpCode.COUNT_START, loopAt);
+        emit(register);
+        int startToCondition = emitOffset();
+        int startToEnd = emitOffset();
+        int startEnd = size;
+        pop(2);
+
+        int body = size;
+        for (Stmt s : loop.body) {
+            s.accept(this);
+        }
+        emit(OpCode.COUNT_NEXT, loopAt);
+        emit(register);
+        int nextToBody = emitOffset();
+        int nextToCondition = emitOffset();
+        int nextToEnd = emitOffset();
+        int nextEnd = size;
+        code[nextToBody] = body - nextEnd;
+
+        // the normal loop, for when it isn't counting
+        List<Stmt> content = stmt.toDo instanceof Stmt.Block ? ((Stmt.Block) stmt.toDo).content : List.of(stmt.toDo);
+        content.get(content.size() - 1).accept(this);
+        code[startToCondition] = size - startEnd;
+        code[nextToCondition] = size - nextEnd;
+        List<Integer> toEnd = jumpIfFalse(stmt.condition);
+        emit(OpCode.JUMP, body - (size + 2));
+        patchJumps(toEnd);
+        code[startToEnd] = size - startEnd;
+        code[nextToEnd] = size - nextEnd;
+    }
+    //endregion
+
+    //region expressions
+    @Override
+    public Void visitAssignmentExpr(Expr.Assignment expr) {
+        at(expr.assignTo);
+        int fused = emitFused(expr.fused);
+        expr.val.accept(this);
+        at(expr.assignTo);
+        emit(OpCode.SET, slot(expr.assignTo));
+        patchFused(fused);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        binary(expr, true);
+        return null;
+    }
+
+    /** the FUSED (if there's one & it's asked for) & then the normal code */
+    private void binary(Expr.Binary expr, boolean withFused) {
+        at(expr.op);
+        int fused = withFused ? emitFused(expr.fused) : -1;
+        expr.left.accept(this);
+        expr.right.accept(this);
+        at(expr.op);
+        switch (expr.op.type) {
+            case PLUS: emit(OpCode.ADD); break;
+            case MINUS: emit(OpCode.SUB); break;
+            case STAR: emit(OpCode.MUL); break;
+            case SLASH: emit(OpCode.DIV); break;
+            case MOD: emit(OpCode.MOD); break;
+            case GREATER: emit(OpCode.GREATER); break;
+            case GREATER_EQUAL: emit(OpCode.GREATER_EQUAL); break;
+            case LESS: emit(OpCode.LESS); break;
+            case LESS_EQUAL: emit(OpCode.LESS_EQUAL); break;
+            case EQUAL_EQUAL: emit(OpCode.EQUAL); break;
+            case BANG_EQUAL: emit(OpCode.NOT_EQUAL); break;
+            default:  // the interpreter just gives back null for these
+                emit(OpCode.POP);
+                emit(OpCode.POP);
+                emit(OpCode.NULL);
+        }
+        pop(1);
+        patchFused(fused);
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        if (expr.val == null) {
+            emit(OpCode.NULL);
+        } else if (Boolean.TRUE.equals(expr.val)) {
+            emit(OpCode.TRUE);
+        } else if (Boolean.FALSE.equals(expr.val)) {
+            emit(OpCode.FALSE);
+        } else {
+            emit(OpCode.CONST, constant(expr.val));
+        }
+        push();
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        return expr.group.accept(this);
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        expr.left.accept(this);
+        // if the left side decides it, it stays on the stack as the result
+        int toEnd = emitJump(expr.op.type == TokenType.OR
+                ? OpCode.JUMP_IF_TRUE_KEEP : OpCode.JUMP_IF_FALSE_KEEP);
+        pop(1);
+        expr.right.accept(this);
+        patchJump(toEnd);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        expr.right.accept(this);
+        at(expr.op);
+        switch (expr.op.type) {
+            case MINUS: emit(OpCode.NEGATE); break;
+            case BANG: emit(OpCode.NOT); break;
+            default:
+                emit(OpCode.POP);
+                emit(OpCode.NULL);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVarExpr(Expr.Var expr) {
+        at(expr.name);
+        emit(OpCode.GET, slot(expr.name));
+        push();
+        return null;
+    }
+
+    @Override
+    public Void visitArrayLiteralExpr(Expr.ArrayLiteral expr) {
+        for (Expr item : expr.items) {
+            item.accept(this);
+        }
+        at(expr.bracket);
+        emit(OpCode.ARRAY, expr.items.size());
+        pop(expr.items.size());
+        push();
+        return null;
+    }
+
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        expr.array.accept(this);
+        expr.index.accept(this);
+        at(expr.bracket);
+        emit(OpCode.INDEX);
+        pop(1);
+        return null;
+    }
+
+    @Override
+    public Void visitIndexAssignmentExpr(Expr.IndexAssignment expr) {
+        expr.array.accept(this);
+        expr.index.accept(this);
+        expr.val.accept(this);
+        at(expr.bracket);
+        emit(OpCode.SET_INDEX);
+        pop(2);
+        return null;
+    }
+
+    @Override
+    public Void visitLengthExpr(Expr.Length expr) {
+        expr.array.accept(this);
+        at(expr.name);
+        emit(OpCode.LENGTH);
+        return null;
+    }
+    //endregion
+
+    //region emitting stuff
+    /** sets the line of the code that's about to be emitted */
+    private void at(Token token) {
+        line = token.line;
+    }
+
+    private void emit(int op) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+        }
+        // only record the line if it changed since the last instruction
+        if (lineCount == 0 || lineTable[lineCount * 2 - 1] != line) {
+            if (lineCount * 2 == lineTable.length) {
+                lineTable = Arrays.copyOf(lineTable, lineTable.length * 2);
+            }
+            lineTable[lineCount * 2] = size;
+            lineTable[lineCount * 2 + 1] = line;
+            lineCount++;
+        }
+        code[size++] = op;
+    }
+
+    private void emit(int op, int operand) {
+        emit(op);
+        emit(operand);
+    }
+
+    /** emits a placeholder for an offset that gets filled in later, returns where it is */
+    private int emitOffset() {
+        emit(0);
+        return size - 1;
+    }
+
+    /** emits a jump w/ a placeholder offset, returns where the offset is */
+    private int emitJump(int op) {
+        emit(op, 0);
+        return size - 1;
+    }
+
+    /**
+     * emits a FUSED in front of the normal code if there's a fused version, returns where its offset is (or -1)
+     * it pushes the same one value the normal code would, so the stack size doesn't change
+     */
+    private int emitFused(Fused fused) {
+        if (fused == null) {
+            return -1;
+        }
+        emit(OpCode.FUSED, slot(fused.var.name));
+        emit(constant(fused));
+        emit(0);
+        return size - 1;
+    }
+
+    /** makes the FUSED skip to the end of the normal code */
+    private void patchFused(int offsetAt) {
+        if (offsetAt >= 0) {
+            patchJump(offsetAt);
+        }
+    }
+
+    private void patchJumps(List<Integer> offsetsAt) {
+        for (int at : offsetsAt) {
+            patchJump(at);
+        }
+    }
+
+    /** makes a jump emitted earlier go to the current end of the code */
+    private void patchJump(int offsetAt) {
+        code[offsetAt] = size - (offsetAt + 1);
+    }
+
+    private int constant(Object val) {
+        return constants.computeIfAbsent(val, v -> constants.size());
+    }
+
+    private int slot(Token name) {
+        return slots.computeIfAbsent(name.lexeme, n -> slots.size());
+    }
+
+    private void push() {
+        maxStack = Math.max(maxStack, ++stack);
+    }
+
+    private void pop(int amt) {
+        stack -= amt;
+    }
+    //endregion
+}
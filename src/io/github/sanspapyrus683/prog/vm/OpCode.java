@@ -0,0 +1,85 @@
+package io.github.sanspapyrus683.prog.vm;
+
+/**
+ * all the instructions the vm knows about
+ * each one takes up one slot in the code array, followed by however
+ * many operands it has (listed in the brackets next to it)
+ */
+public final class OpCode {
+    private OpCode() { }
+
+    public static final int CONST = 0;  /** [index] pushes a value from the constant pool */
+    public static final int NULL = 1;
+    public static final int TRUE = 2;
+    public static final int FALSE = 3;
+    public static final int POP = 4;
+
+    public static final int DEFINE = 5;  /** [slot] pops the top & stores it in a variable */
+    public static final int GET = 6;  /** [slot] pushes a variable (errors if it doesn't exist yet) */
+    public static final int SET = 7;  /** [slot] stores the top in an existing variable, doesn't pop */
+
+    public static final int ADD = 8;
+    public static final int SUB = 9;
+    public static final int MUL = 10;
+    public static final int DIV = 11;
+    public static final int MOD = 12;
+    public static final int GREATER = 13;
+    public static final int GREATER_EQUAL = 14;
+    public static final int LESS = 15;
+    public static final int LESS_EQUAL = 16;
+    public static final int EQUAL = 17;
+    public static final int NOT_EQUAL = 18;
+    public static final int NEGATE = 19;
+    public static final int NOT = 20;
+
+    public static final int PRINT = 21;
+
+    // all jump offsets are relative to the instruction right after the jump
+    public static final int JUMP = 22;  /** [offset] */
+    public static final int JUMP_IF_FALSE = 23;  /** [offset] pops the condition */
+    /** [offset] these two leave the condition on the stack if they jump (for and/or) */
+    public static final int JUMP_IF_FALSE_KEEP = 24;
+    public static final int JUMP_IF_TRUE_KEEP = 25;
+
+    public static final int HALT = 26;
+
+    /**
+     * [slot, index, offset] a superinstruction for one of the shapes in inner.Fused (it's in the constant pool)
+     * the normal code for the same thing comes right after it, & if the variable's a number
+     * this pushes the answer (& stores it for an increment) & skips the normal code
+     */
+    public static final int FUSED = 27;
+
+    public static final int ARRAY = 28;  /** [count] pops that many things & pushes an array of them (in order) */
+    public static final int INDEX = 29;  /** pops the index & the array, pushes what's there */
+    public static final int SET_INDEX = 30;  /** pops the value, the index, & the array, stores it & pushes the value */
+    public static final int LENGTH = 31;
+
+    public static final int STORE = 32;  /** [slot] like SET but it pops the value too (for assignments that are statements) */
+    /**
+     * [slot, op] pops the right side & the variable's value (that a GET pushed), does the math op
+     * (ADD through MOD) & stores the answer back in the variable, for statements like x = x + y
+     */
+    public static final int UPDATE = 33;
+
+    /*
+     * counted loops (see inner.CountedLoop) run on a plain long counter in a register,
+     * the loop's code is:
+     *   push i & n, COUNT_START, body, COUNT_NEXT, increment, condition, JUMP_IF_FALSE to the end, JUMP to body
+     * & the increment & condition only run if the counter isn't a long (or overflows), like the normal loop would
+     */
+    /** [loop, register, to condition, to end] pops n & i, & starts counting if they're longs (otherwise it goes to the condition) */
+    public static final int COUNT_START = 34;
+    /** [loop, register, to body, to condition, to end] adds the step & jumps back if it's still going (does nothing if it isn't counting) */
+    public static final int COUNT_NEXT = 35;
+
+    /**
+     * [slot, index, offset, to false] a FUSED that's the whole condition of an if or a loop,
+     * so instead of pushing the answer it jumps right to wherever the JUMP_IF_FALSE after the normal code would've gone
+     * (offset is to right after that JUMP_IF_FALSE)
+     */
+    public static final int FUSED_IF = 36;
+
+    /** ticks the budget w/ the line it's on, only budgeted chunks have these (before every statement & back jump) */
+    public static final int TICK = 37;
+}
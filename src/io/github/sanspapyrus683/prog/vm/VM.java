@@ -0,0 +1,562 @@
+package io.github.sanspapyrus683.prog.vm;
+
+import io.github.sanspapyrus683.prog.Token;
+import io.github.sanspapyrus683.prog.TokenType;
+import io.github.sanspapyrus683.prog.errors.ErrorReporter;
+import io.github.sanspapyrus683.prog.errors.RuntimeError;
+import io.github.sanspapyrus683.prog.inner.Array;
+import io.github.sanspapyrus683.prog.inner.BudgetMeter;
+import io.github.sanspapyrus683.prog.inner.CountedLoop;
+import io.github.sanspapyrus683.prog.inner.Fused;
+import io.github.sanspapyrus683.prog.inner.Values;
+import io.github.sanspapyrus683.prog.output.Output;
+import io.github.sanspapyrus683.prog.output.StreamOutput;
+
+import java.util.Arrays;
+
+/**
+ * runs a chunk from the compiler
+ * it's just one big loop over the instructions w/ a stack for the values,
+ * so there's no visitor calls or recursion going on at all
+ * whole numbers stay plain longs the whole time (see the longs region), so math on them never allocates
+ */
+public class VM {
+    /** what a variable slot holds before its var statement runs */
+    private static final Object UNDEFINED = new Object();
+    /** a spot (on the stack or a variable) w/ this in it has a whole number that's in the long array next to it */
+    private static final Object LONG = new Object();
+
+    private final Output out;
+    private final ErrorReporter errors;
+    private final BudgetMeter meter;  /** only for budgeted chunks, null otherwise */
+
+    public VM() {
+        this(new StreamOutput(System.out));
+    }
+
+    public VM(Output out) {
+        this(out, ErrorReporter.STDERR);
+    }
+
+    public VM(Output out, ErrorReporter errors) {
+        this(out, errors, null);
+    }
+
+    /** a vm for chunks from a budgeted compiler, the TICKs in them go to the meter */
+    public VM(Output out, ErrorReporter errors, BudgetMeter meter) {
+        this.out = out;
+        this.errors = errors;
+        this.meter = meter;
+    }
+
+    public void interpret(Chunk chunk) {
+        try {
+            run(chunk);
+        } catch (RuntimeError error) {
+            errors.runtimeError(error);
+        }
+    }
+
+    private void run(Chunk chunk) {
+        final int[] code = chunk.code;
+        final Object[] constants = chunk.constants;
+        // a spot on the stack (or a variable) that's LONG has its value in the long array right next to it
+        final Object[] stack = new Object[chunk.maxStack + 1];
+        final long[] longs = new long[chunk.maxStack + 1];
+        final Object[] vars = new Object[chunk.varNames.length];
+        final long[] longVars = new long[chunk.varNames.length];
+        Arrays.fill(vars, UNDEFINED);
+        // for each counted loop, i & n (if it's counting) are at register * 2 & the one after
+        final long[] counts = new long[chunk.counters * 2];
+        final boolean[] counting = new boolean[chunk.counters];
+
+        int sp = 0;  // the next free spot on the stack
+        int pc = 0;
+        while (true) {
+            int at = pc;  // remember where this instruction started for errors
+            switch (code[pc++]) {
+                case OpCode.CONST: put(stack, longs, sp++, constants[code[pc++]]); break;
+                case OpCode.NULL: stack[sp++] = null; break;
+                case OpCode.TRUE: stack[sp++] = true; break;
+                case OpCode.FALSE: stack[sp++] = false; break;
+                case OpCode.POP: sp--; break;
+
+                case OpCode.DEFINE: {
+                    int slot = code[pc++];
+                    sp--;
+                    vars[slot] = stack[sp];
+                    longVars[slot] = longs[sp];
+                    break;
+                }
+                case OpCode.GET: {
+                    int slot = code[pc++];
+                    Object val = vars[slot];
+                    if (val == UNDEFINED) {
+                        throw notFound(chunk, at, slot);
+                    }
+                    stack[sp] = val;
+                    longs[sp] = longVars[slot];
+                    sp++;
+                    break;
+                }
+                case OpCode.SET: {
+                    int slot = code[pc++];
+                    if (vars[slot] == UNDEFINED) {
+                        throw notInitialized(chunk, at, slot);
+                    }
+                    vars[slot] = stack[sp - 1];
+                    longVars[slot] = longs[sp - 1];
+                    break;
+                }
+                case OpCode.STORE: {
+                    int slot = code[pc++];
+                    if (vars[slot] == UNDEFINED) {
+                        throw notInitialized(chunk, at, slot);
+                    }
+                    sp--;
+                    vars[slot] = stack[sp];
+                    longVars[slot] = longs[sp];
+                    break;
+                }
+                case OpCode.UPDATE: {
+                    // the GET before this already made sure the variable's there
+                    int slot = code[pc++];
+                    int op = code[pc++];
+                    sp -= 2;
+                    math(chunk, at, op, stack, longs, sp);
+                    vars[slot] = stack[sp];
+                    longVars[slot] = longs[sp];
+                    break;
+                }
+
+                case OpCode.ADD: {
+                    sp--;
+                    int left = sp - 1;
+                    if (stack[left] == LONG && stack[sp] == LONG) {
+                        long a = longs[left];
+                        long b = longs[sp];
+                        long res = a + b;
+                        if (((a ^ res) & (b ^ res)) < 0) {
+                            stack[left] = (double) a + (double) b;
+                        } else {
+                            longs[left] = res;
+                        }
+                    } else {
+                        put(stack, longs, left, add(chunk, at, boxed(stack, longs, left), boxed(stack, longs, sp)));
+                    }
+                    break;
+                }
+                case OpCode.SUB:
+                case OpCode.MUL:
+                case OpCode.DIV:
+                case OpCode.MOD:
+                    sp--;
+                    math(chunk, at, code[at], stack, longs, sp - 1);
+                    break;
+                case OpCode.GREATER:
+                case OpCode.GREATER_EQUAL:
+                case OpCode.LESS:
+                case OpCode.LESS_EQUAL:
+                    sp--;
+                    stack[sp - 1] = compare(chunk, at, code[at], stack, longs, sp - 1);
+                    break;
+                case OpCode.EQUAL: {
+                    sp--;
+                    stack[sp - 1] = equal(stack, longs, sp - 1);
+                    break;
+                }
+                case OpCode.NOT_EQUAL: {
+                    sp--;
+                    stack[sp - 1] = !equal(stack, longs, sp - 1);
+                    break;
+                }
+                case OpCode.NEGATE: {
+                    if (stack[sp - 1] == LONG) {
+                        put(stack, longs, sp - 1, Values.negate(longs[sp - 1]));
+                        break;
+                    }
+                    Object val = stack[sp - 1];
+                    if (!Values.isNumber(val)) {
+                        throw error(chunk, at, TokenType.MINUS, "-", "operand must be a number");
+                    }
+                    put(stack, longs, sp - 1, Values.negate(val));
+                    break;
+                }
+                case OpCode.NOT: stack[sp - 1] = !bool(stack, longs, sp - 1); break;
+
+                case OpCode.PRINT: sp--; out.println(boxed(stack, longs, sp)); break;
+
+                case OpCode.JUMP: {
+                    int offset = code[pc++];
+                    pc += offset;
+                    break;
+                }
+                case OpCode.JUMP_IF_FALSE: {
+                    int offset = code[pc++];
+                    sp--;
+                    if (!bool(stack, longs, sp)) {
+                        pc += offset;
+                    }
+                    break;
+                }
+                case OpCode.JUMP_IF_FALSE_KEEP: {
+                    int offset = code[pc++];
+                    if (!bool(stack, longs, sp - 1)) {
+                        pc += offset;
+                    } else {
+                        sp--;
+                    }
+                    break;
+                }
+                case OpCode.JUMP_IF_TRUE_KEEP: {
+                    int offset = code[pc++];
+                    if (bool(stack, longs, sp - 1)) {
+                        pc += offset;
+                    } else {
+                        sp--;
+                    }
+                    break;
+                }
+
+                case OpCode.FUSED: {
+                    int slot = code[pc++];
+                    Fused fused = (Fused) constants[code[pc++]];
+                    int offset = code[pc++];
+                    if (vars[slot] == LONG && fused.wholes() && fused.shape != Fused.Shape.MOD_COMPARE
+                            && (fused.op == TokenType.PLUS || fused.op == TokenType.MINUS)) {
+                        // i + 1 & all that, which can stay a long
+                        long v = longVars[slot];
+                        long n = fused.op == TokenType.PLUS ? (long) fused.n : -(long) fused.n;
+                        long res = v + n;
+                        if (((v ^ res) & (n ^ res)) >= 0 && n != Long.MIN_VALUE) {
+                            if (fused.shape == Fused.Shape.INCREMENT) {
+                                longVars[slot] = res;
+                            }
+                            stack[sp] = LONG;
+                            longs[sp] = res;
+                            sp++;
+                            pc += offset;
+                            break;
+                        }
+                    }
+                    // anything else falls through to the normal code, which does the erroring & all
+                    Object res = fused(fused, vars, longVars, slot);
+                    if (res != null) {
+                        if (fused.shape == Fused.Shape.INCREMENT) {
+                            put(vars, longVars, slot, res);
+                        }
+                        put(stack, longs, sp++, res);
+                        pc += offset;
+                    }
+                    break;
+                }
+
+                case OpCode.FUSED_IF: {
+                    Fused fused = (Fused) constants[code[pc + 1]];
+                    Object res = fused(fused, vars, longVars, code[pc]);
+                    if (res == null) {
+                        pc += 4;  // on to the normal code
+                    } else if (Values.bool(res)) {
+                        pc += 4 + code[pc + 2];
+                    } else {
+                        pc += 4 + code[pc + 3];
+                    }
+                    break;
+                }
+
+                case OpCode.COUNT_START: {
+                    CountedLoop loop = (CountedLoop) constants[code[pc++]];
+                    int reg = code[pc++];
+                    int toCondition = code[pc++];
+                    int toEnd = code[pc++];
+                    sp -= 2;
+                    counting[reg] = stack[sp] == LONG && stack[sp + 1] == LONG && loop.step instanceof Long;
+                    if (!counting[reg]) {
+                        pc += toCondition;  // the normal loop has to do it
+                    } else if (loop.test(longs[sp], longs[sp + 1])) {
+                        counts[reg * 2] = longs[sp];
+                        counts[reg * 2 + 1] = longs[sp + 1];
+                    } else {
+                        pc += toEnd;
+                    }
+                    break;
+                }
+                case OpCode.COUNT_NEXT: {
+                    CountedLoop loop = (CountedLoop) constants[code[pc++]];
+                    int reg = code[pc++];
+                    int toBody = code[pc++];
+                    int toCondition = code[pc++];
+                    int toEnd = code[pc++];
+                    if (!counting[reg]) {
+                        break;  // on to the increment
+                    }
+                    int slot = loop.counter.slot;
+                    long i = counts[reg * 2];
+                    long step = (long) loop.step;
+                    long next = i + step;
+                    if (((i ^ next) & (step ^ next)) < 0) {
+                        // it overflowed, so i's a double from here on & the normal loop takes over
+                        counting[reg] = false;
+                        vars[slot] = (double) i + (double) step;
+                        pc += toCondition;
+                    } else if (loop.test(next, counts[reg * 2 + 1])) {
+                        counts[reg * 2] = next;
+                        if (loop.bodyReads) {
+                            vars[slot] = LONG;
+                            longVars[slot] = next;
+                        }
+                        pc += toBody;
+                    } else {
+                        vars[slot] = LONG;
+                        longVars[slot] = next;
+                        pc += toEnd;
+                    }
+                    break;
+                }
+
+                case OpCode.ARRAY: {
+                    int count = code[pc++];
+                    Object[] items = new Object[count];
+                    sp -= count;
+                    for (int i = 0; i < count; i++) {
+                        items[i] = boxed(stack, longs, sp + i);
+                    }
+                    stack[sp++] = Array.of(items);
+                    break;
+                }
+                case OpCode.INDEX: {
+                    sp--;
+                    put(stack, longs, sp - 1, index(chunk, at, boxed(stack, longs, sp - 1), boxed(stack, longs, sp)));
+                    break;
+                }
+                case OpCode.SET_INDEX: {
+                    sp -= 2;
+                    Object val = boxed(stack, longs, sp + 1);
+                    put(stack, longs, sp - 1, setIndex(chunk, at, boxed(stack, longs, sp - 1), boxed(stack, longs, sp), val));
+                    break;
+                }
+                case OpCode.LENGTH: put(stack, longs, sp - 1, length(chunk, at, boxed(stack, longs, sp - 1))); break;
+
+                case OpCode.TICK: meter.tick(chunk.lineAt(at)); break;
+
+                case OpCode.HALT: return;
+                default:
+                    throw badOpcode(code, at);
+            }
+        }
+    }
+
+    //region longs
+    // whole numbers don't get boxed on the stack or in variables, they're LONG w/ the value in the long array instead,
+    // so anything that needs the actual Object goes through boxed & anything that might make a Long goes through put
+
+    /** the value at a spot, boxing it if it's a long */
+    private static Object boxed(Object[] objects, long[] longs, int at) {
+        Object val = objects[at];
+        return val == LONG ? (Object) longs[at] : val;
+    }
+
+    /** puts a value in a spot, unboxing it if it's a Long */
+    private static void put(Object[] objects, long[] longs, int at, Object val) {
+        if (val instanceof Long) {
+            objects[at] = LONG;
+            longs[at] = (long) val;
+        } else {
+            objects[at] = val;
+        }
+    }
+
+    private static boolean bool(Object[] stack, long[] longs, int at) {
+        Object val = stack[at];
+        return val == LONG ? longs[at] != 0 : Values.bool(val);
+    }
+
+    private static boolean equal(Object[] stack, long[] longs, int left) {
+        if (stack[left] == LONG && stack[left + 1] == LONG) {
+            return longs[left] == longs[left + 1];
+        }
+        return Values.equal(boxed(stack, longs, left), boxed(stack, longs, left + 1));
+    }
+
+    /** a fused thing on a variable, w/o boxing it if it's a long */
+    private static Object fused(Fused fused, Object[] vars, long[] longVars, int slot) {
+        Object val = vars[slot];
+        if (val == LONG) {
+            return fused.wholes() ? fused.apply(longVars[slot]) : fused.apply((Object) longVars[slot]);
+        }
+        return fused.apply(val);
+    }
+
+    /** SUB through MOD (& ADD for UPDATE) on the spot at left & the one after it, w/ the answer going in left */
+    private void math(Chunk chunk, int at, int op, Object[] stack, long[] longs, int left) {
+        if (stack[left] == LONG && stack[left + 1] == LONG && longMath(op, longs, left)) {
+            return;
+        }
+        put(stack, longs, left, math(chunk, at, op, boxed(stack, longs, left), boxed(stack, longs, left + 1)));
+    }
+
+    /**
+     * math on two longs w/o boxing anything, w/ the answer going in longs[left]
+     * false if the answer isn't a long (it overflowed, or it's -0 or a fraction or whatever)
+     */
+    private static boolean longMath(int op, long[] longs, int left) {
+        long a = longs[left];
+        long b = longs[left + 1];
+        long res;
+        switch (op) {
+            case OpCode.ADD:
+                res = a + b;
+                if (((a ^ res) & (b ^ res)) < 0) {
+                    return false;
+                }
+                break;
+            case OpCode.SUB:
+                res = a - b;
+                if (((a ^ b) & (a ^ res)) < 0) {
+                    return false;
+                }
+                break;
+            case OpCode.MUL:
+                res = a * b;
+                if (Math.multiplyHigh(a, b) != (res >> 63) || (res == 0 && (a ^ b) < 0)) {
+                    return false;
+                }
+                break;
+            case OpCode.MOD:
+                if (b == 0) {
+                    return false;
+                }
+                res = a % b;
+                if (res == 0 && a < 0) {
+                    return false;
+                }
+                break;
+            default:
+                return false;  // division's rarely whole anyways
+        }
+        longs[left] = res;
+        return true;
+    }
+
+    /** > through <= on the spot at left & the one after it */
+    private static boolean compare(Chunk chunk, int at, int op, Object[] stack, long[] longs, int left) {
+        if (stack[left] == LONG && stack[left + 1] == LONG) {
+            long a = longs[left];
+            long b = longs[left + 1];
+            switch (op) {
+                case OpCode.GREATER: return a > b;
+                case OpCode.GREATER_EQUAL: return a >= b;
+                case OpCode.LESS: return a < b;
+                default: return a <= b;
+            }
+        }
+        Object a = boxed(stack, longs, left);
+        Object b = boxed(stack, longs, left + 1);
+        switch (op) {
+            case OpCode.GREATER:
+                checkBothNums(chunk, at, TokenType.GREATER, ">", a, b);
+                return Values.greater(a, b);
+            case OpCode.GREATER_EQUAL:
+                checkBothNums(chunk, at, TokenType.GREATER_EQUAL, ">=", a, b);
+                return Values.greaterEqual(a, b);
+            case OpCode.LESS:
+                checkBothNums(chunk, at, TokenType.LESS, "<", a, b);
+                return Values.less(a, b);
+            default:
+                checkBothNums(chunk, at, TokenType.LESS_EQUAL, "<=", a, b);
+                return Values.lessEqual(a, b);
+        }
+    }
+    //endregion
+
+    /** + on two things, erroring if they can't be added */
+    private Object add(Chunk chunk, int at, Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            return Values.add((long) left, (long) right);
+        } else if (left instanceof CharSequence && right instanceof CharSequence) {
+            return meter == null ? Values.concat(left, right) : meter.concat(left, right, chunk.lineAt(at));
+        } else if (!Values.isNumber(left) || !Values.isNumber(right)) {
+            throw error(chunk, at, TokenType.PLUS, "+", "operands need to be the same");
+        }
+        return Values.add(left, right);
+    }
+
+    /** ADD through MOD on two things (for UPDATE), erroring if they can't be */
+    private Object math(Chunk chunk, int at, int op, Object left, Object right) {
+        switch (op) {
+            case OpCode.ADD:
+                return add(chunk, at, left, right);
+            case OpCode.SUB:
+                checkBothNums(chunk, at, TokenType.MINUS, "-", left, right);
+                return Values.sub(left, right);
+            case OpCode.MUL:
+                checkBothNums(chunk, at, TokenType.STAR, "*", left, right);
+                return Values.mul(left, right);
+            case OpCode.DIV:
+                checkBothNums(chunk, at, TokenType.SLASH, "/", left, right);
+                return Values.div(left, right);
+            default:
+                checkBothNums(chunk, at, TokenType.MOD, "%", left, right);
+                return Values.mod(left, right);
+        }
+    }
+
+    private static void checkBothNums(Chunk chunk, int at, TokenType op, String lexeme,
+                                      Object left, Object right) {
+        if (!(Values.isNumber(left) && Values.isNumber(right))) {
+            throw error(chunk, at, op, lexeme, "operands must both be numbers");
+        }
+    }
+
+    //region the slow stuff
+    // anything big or rare goes down here, so run stays small enough for the jit to do a good job on it
+
+    private static Object index(Chunk chunk, int at, Object array, Object index) {
+        try {
+            return Array.index(array, index);
+        } catch (Array.BadAccess e) {
+            throw e.at(token(chunk, at, TokenType.LEFT_BRACKET, "["));
+        }
+    }
+
+    private static Object setIndex(Chunk chunk, int at, Object array, Object index, Object val) {
+        try {
+            return Array.setIndex(array, index, val);
+        } catch (Array.BadAccess e) {
+            throw e.at(token(chunk, at, TokenType.LEFT_BRACKET, "["));
+        }
+    }
+
+    private static Object length(Chunk chunk, int at, Object array) {
+        try {
+            return Array.lengthOf(array);
+        } catch (Array.BadAccess e) {
+            throw e.at(token(chunk, at, TokenType.IDENTIFIER, "length"));
+        }
+    }
+
+    private static RuntimeError notFound(Chunk chunk, int at, int slot) {
+        String name = chunk.varNames[slot];
+        return error(chunk, at, TokenType.IDENTIFIER, name, "variable '" + name + "' not found");
+    }
+
+    private static RuntimeError notInitialized(Chunk chunk, int at, int slot) {
+        String name = chunk.varNames[slot];
+        return error(chunk, at, TokenType.IDENTIFIER, name, "variable '" + name + "' not initialized you moron");
+    }
+
+    private static IllegalStateException badOpcode(int[] code, int at) {
+        return new IllegalStateException("bad opcode " + code[at] + " at " + at);
+    }
+
+    /** makes an error pointing at the line the instruction came from */
+    private static RuntimeError error(Chunk chunk, int at, TokenType type, String lexeme, String msg) {
+        return new RuntimeError(token(chunk, at, type, lexeme), msg);
+    }
+
+    /** a stand-in for the token the instruction came from, w/ the right line */
+    private static Token token(Chunk chunk, int at, TokenType type, String lexeme) {
+        return new Token(type, lexeme, null, chunk.lineAt(at));
+    }
+    //endregion
+}